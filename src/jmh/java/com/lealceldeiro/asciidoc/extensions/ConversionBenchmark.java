@@ -0,0 +1,106 @@
+package com.lealceldeiro.asciidoc.extensions;
+
+import java.util.concurrent.TimeUnit;
+import org.asciidoctor.Asciidoctor;
+import org.asciidoctor.Options;
+import org.asciidoctor.SafeMode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * End-to-end conversion of {@link SyntheticDocuments} to HTML, with the extensions registered the
+ * same way as in production: through the {@code ExtensionRegistry} services found by Asciidoctor.
+ * It includes the cost of parsing the documents, and of the crossings between JRuby and Java.
+ *
+ * <p>Scores are documents per second. The {@code none} scenario converts a document with the same
+ * amount of paragraphs but without macros, so the cost of every macro can be isolated (see
+ * {@link ConversionReport}).
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+@State(Scope.Benchmark)
+public class ConversionBenchmark {
+  public static final String NONE = "none";
+  public static final String CALC = "calc";
+  public static final String CALC_DATE = "calc_date";
+  public static final String CALC_EXP = "calc_exp";
+  public static final String MIXED = "mixed";
+
+  @Param({NONE, CALC, CALC_DATE, CALC_EXP, MIXED})
+  private String macros;
+
+  /**
+   * Amount of paragraphs, all of them with a macro, except for the {@code none} scenario.
+   */
+  @Param({"300"})
+  private int paragraphs;
+
+  @Param({"5"})
+  private int operands;
+
+  @Param({"50"})
+  private int attributeDensity;
+
+  /**
+   * Whether the results of the macros are memoized. When on, every invocation but the first ones
+   * is a memo hit, as the same document is converted again and again.
+   */
+  @Param({"off", "on"})
+  private String memo;
+
+  private Asciidoctor asciidoctor;
+  private Options options;
+  private String document;
+
+  @Setup
+  public void setUp() {
+    System.setProperty(Util.SYSTEM_PROPERTY_PREFIX + Macro.Key.MEMO, memo);
+    asciidoctor = Asciidoctor.Factory.create();
+    options = Options.builder().safe(SafeMode.SAFE).build();
+    document = SyntheticDocuments.generate(spec(macros, paragraphs, operands, attributeDensity));
+  }
+
+  @TearDown
+  public void tearDown() {
+    asciidoctor.close();
+  }
+
+  @Benchmark
+  public String convert() {
+    return asciidoctor.convert(document, options);
+  }
+
+  static SyntheticDocuments.Spec spec(String macros, int paragraphs, int operands,
+                                      int attributeDensity) {
+    SyntheticDocuments.Spec spec
+        = new SyntheticDocuments.Spec(paragraphs, 0, 0, 0, operands, attributeDensity, 42);
+    return switch (macros) {
+      case CALC -> spec.withMacros(paragraphs, 0, 0);
+      case CALC_DATE -> spec.withMacros(0, paragraphs, 0);
+      case CALC_EXP -> spec.withMacros(0, 0, paragraphs);
+      case MIXED -> spec.withMacros(paragraphs / 3, paragraphs / 3, paragraphs / 3);
+      default -> spec;
+    };
+  }
+
+  static int macroCount(String macros, int paragraphs) {
+    return switch (macros) {
+      case NONE -> 0;
+      case MIXED -> paragraphs / 3 * 3;
+      default -> paragraphs;
+    };
+  }
+}
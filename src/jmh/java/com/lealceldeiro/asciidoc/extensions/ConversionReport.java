@@ -0,0 +1,66 @@
+package com.lealceldeiro.asciidoc.extensions;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the {@link ConversionBenchmark} and reports, for every scenario, the documents converted
+ * per second and the overhead per macro: the extra time taken to convert a document with macros,
+ * compared with the same document without them, divided by the amount of macros.
+ *
+ * <p>Accepts the same arguments as the JMH command line, i.e.: {@code -p paragraphs=1000}.
+ */
+public final class ConversionReport {
+  private ConversionReport() {
+  }
+
+  public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+    OptionsBuilder options = new OptionsBuilder();
+    options.parent(new CommandLineOptions(args))
+           .include(ConversionBenchmark.class.getSimpleName());
+    Collection<RunResult> results = new Runner(options.build()).run();
+
+    Map<String, Double> baselines = new HashMap<>();
+    for (RunResult result : results) {
+      BenchmarkParams params = result.getParams();
+      if (ConversionBenchmark.NONE.equals(params.getParam("macros"))) {
+        baselines.put(baselineKey(params), result.getPrimaryResult().getScore());
+      }
+    }
+
+    System.out.printf("%n%-10s %-6s %10s %10s %22s%n", "macros", "memo", "paragraphs", "docs/s",
+                      "overhead per macro (us)");
+    for (RunResult result : results) {
+      BenchmarkParams params = result.getParams();
+      String macros = params.getParam("macros");
+      int paragraphs = Integer.parseInt(params.getParam("paragraphs"));
+      double docsPerSecond = result.getPrimaryResult().getScore();
+      Double baseline = baselines.get(baselineKey(params));
+      int macroCount = ConversionBenchmark.macroCount(macros, paragraphs);
+
+      String overhead = "-";
+      if (baseline != null && macroCount > 0) {
+        double overheadMicros = (1 / docsPerSecond - 1 / baseline) * 1_000_000 / macroCount;
+        overhead = String.format("%.2f", overheadMicros);
+      }
+      System.out.printf("%-10s %-6s %10d %10.2f %22s%n", macros, params.getParam("memo"),
+                        paragraphs, docsPerSecond, overhead);
+    }
+  }
+
+  /**
+   * Every scenario is compared with the {@code none} one with the same parameters.
+   */
+  private static String baselineKey(BenchmarkParams params) {
+    return params.getParam("memo") + '/' + params.getParam("paragraphs") + '/'
+           + params.getParam("operands") + '/' + params.getParam("attributeDensity");
+  }
+}
@@ -0,0 +1,86 @@
+package com.lealceldeiro.asciidoc.extensions;
+
+import com.lealceldeiro.asciidoc.extensions.calc.CalcMacro;
+import com.lealceldeiro.asciidoc.extensions.calcdate.CalcDateMacro;
+import com.lealceldeiro.asciidoc.extensions.calcexpression.CalcExpressionMacro;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Throughput of the macros when the same instances are used by many threads at the same time, as
+ * the processors registered in an Asciidoctor instance are. Run it with different amounts of
+ * threads ({@code -t}) to check how it scales, or with {@link ScalingReport}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g", "-Dasciidoc.extensions.logger=noop"})
+@State(Scope.Benchmark)
+public class MacroScalingBenchmark {
+  private CalcMacro calc;
+  private CalcDateMacro calcDate;
+  private Map<String, Object> numbers;
+  private Map<String, Object> date;
+
+  @State(Scope.Benchmark)
+  public static class Expression {
+    /**
+     * Expression evaluated exactly by the default engine, or by mXparser.
+     */
+    @Param({"(1.5 + 2.25) * 3 / 4", "sin(0) + 2 ^ 0.5"})
+    private String expression;
+
+    private CalcExpressionMacro calcExp;
+    private CalcExpressionMacro.Attributes attributes;
+
+    @Setup
+    public void setUp() {
+      calcExp = new CalcExpressionMacro();
+      Map<String, Object> license
+          = Map.of(Macro.Key.AUTHOR, "Benchmark Author",
+                   Macro.Key.LICENSE_TYPE, CalcExpressionMacro.LICENSE_TYPE_NON_COMMERCIAL_VALUE);
+      attributes = new CalcExpressionMacro.Attributes(license, Map.of(Macro.Key.EXP, expression));
+    }
+  }
+
+  @Setup
+  public void setUp() {
+    calc = new CalcMacro();
+    calcDate = new CalcDateMacro();
+
+    numbers = new HashMap<>();
+    for (int i = 1; i <= 10; i++) {
+      numbers.put(String.valueOf(i), i + ".25");
+    }
+    date = Map.of("1", "2024-01-31", "2", "1m", "3", "MMM d, yyyy",
+                  Macro.Key.FROM_ZONE_ID, "Europe/Madrid", Macro.Key.TO_ZONE_ID, "UTC");
+  }
+
+  @Benchmark
+  public String calc() {
+    return calc.calculate(Operator.SUM, numbers);
+  }
+
+  @Benchmark
+  public String calcDate() {
+    return calcDate.calculate(Operator.SUM, date);
+  }
+
+  @Benchmark
+  public String calcExp(Expression expression) {
+    return expression.calcExp.calculate(null, expression.attributes);
+  }
+}
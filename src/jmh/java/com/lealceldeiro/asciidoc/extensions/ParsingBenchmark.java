@@ -0,0 +1,148 @@
+package com.lealceldeiro.asciidoc.extensions;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Compares {@link Parsing} with the exception based parsing it replaced, for inputs that are
+ * mostly invalid, as in documents using placeholder values along with {@code ignore_invalid}.
+ * Every invocation parses a batch of {@value #BATCH} values.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ParsingBenchmark {
+  private static final int BATCH = 100;
+
+  @Param({"0", "50", "90", "100"})
+  private int invalidPercentage;
+
+  private String[] numbers;
+  private String[] dates;
+  private String[] roundingModes;
+  private String[] zoneIds;
+
+  @Setup
+  public void setUp() {
+    numbers = new String[BATCH];
+    dates = new String[BATCH];
+    roundingModes = new String[BATCH];
+    zoneIds = new String[BATCH];
+    for (int i = 0; i < BATCH; i++) {
+      boolean invalid = i < invalidPercentage;
+      numbers[i] = invalid ? "{amount-" + i + "}" : String.valueOf(i * 31);
+      dates[i] = invalid ? "{release-date}" : "2024-0" + (1 + i % 9) + "-1" + (i % 10);
+      roundingModes[i] = invalid ? "half_up" : RoundingMode.values()[i % 8].name();
+      zoneIds[i] = invalid ? "{zone}" : "Europe/Paris";
+    }
+  }
+
+  @Benchmark
+  public void bigDecimal(Blackhole blackhole) {
+    for (String number : numbers) {
+      blackhole.consume(Parsing.toBigDecimal(number));
+    }
+  }
+
+  @Benchmark
+  public void bigDecimalThrowing(Blackhole blackhole) {
+    for (String number : numbers) {
+      try {
+        blackhole.consume(new BigDecimal(number));
+      } catch (NumberFormatException e) {
+        blackhole.consume(e);
+      }
+    }
+  }
+
+  @Benchmark
+  public void longValue(Blackhole blackhole) {
+    for (String number : numbers) {
+      blackhole.consume(Parsing.toLong(number));
+    }
+  }
+
+  @Benchmark
+  public void longValueThrowing(Blackhole blackhole) {
+    for (String number : numbers) {
+      try {
+        blackhole.consume(Long.parseLong(number));
+      } catch (NumberFormatException e) {
+        blackhole.consume(e);
+      }
+    }
+  }
+
+  @Benchmark
+  public void localDate(Blackhole blackhole) {
+    for (String date : dates) {
+      blackhole.consume(Parsing.toLocalDate(date));
+    }
+  }
+
+  @Benchmark
+  public void localDateThrowing(Blackhole blackhole) {
+    for (String date : dates) {
+      try {
+        blackhole.consume(LocalDate.parse(date));
+      } catch (DateTimeException e) {
+        blackhole.consume(e);
+      }
+    }
+  }
+
+  @Benchmark
+  public void roundingMode(Blackhole blackhole) {
+    for (String roundingMode : roundingModes) {
+      blackhole.consume(Parsing.toRoundingMode(roundingMode));
+    }
+  }
+
+  @Benchmark
+  public void roundingModeThrowing(Blackhole blackhole) {
+    for (String roundingMode : roundingModes) {
+      try {
+        blackhole.consume(RoundingMode.valueOf(roundingMode));
+      } catch (IllegalArgumentException e) {
+        blackhole.consume(e);
+      }
+    }
+  }
+
+  @Benchmark
+  public void zoneId(Blackhole blackhole) {
+    for (String zoneId : zoneIds) {
+      blackhole.consume(Parsing.toZoneId(zoneId));
+    }
+  }
+
+  @Benchmark
+  public void zoneIdThrowing(Blackhole blackhole) {
+    for (String zoneId : zoneIds) {
+      try {
+        blackhole.consume(ZoneId.of(zoneId));
+      } catch (DateTimeException e) {
+        blackhole.consume(e);
+      }
+    }
+  }
+}
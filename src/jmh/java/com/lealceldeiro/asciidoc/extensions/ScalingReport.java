@@ -0,0 +1,52 @@
+package com.lealceldeiro.asciidoc.extensions;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the {@link MacroScalingBenchmark} with 1, 2, 4... threads, up to the amount of available
+ * processors, and reports the throughput of every macro along with its speedup and efficiency
+ * (speedup divided by the amount of threads) compared with a single thread. Linear scaling means
+ * an efficiency close to 1.
+ *
+ * <p>Accepts the same arguments as the JMH command line, i.e.: {@code -p expression="1 + 1"}.
+ */
+public final class ScalingReport {
+  private ScalingReport() {
+  }
+
+  public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+    int processors = Runtime.getRuntime().availableProcessors();
+    Map<String, Double> singleThreaded = new LinkedHashMap<>();
+    List<String> report = new ArrayList<>();
+    report.add(String.format("%-55s %7s %14s %8s %10s", "benchmark", "threads", "ops/ms",
+                             "speedup", "efficiency"));
+    for (int threads = 1; threads <= processors; threads *= 2) {
+      OptionsBuilder options = new OptionsBuilder();
+      options.parent(new CommandLineOptions(args))
+             .include(MacroScalingBenchmark.class.getSimpleName())
+             .threads(threads)
+             .shouldDoGC(true);
+      for (RunResult result : new Runner(options.build()).run()) {
+        String expression = result.getParams().getParam("expression");
+        String benchmark = result.getParams().getBenchmark().replaceFirst(".*\\.", "")
+                           + (expression != null ? " " + expression : "");
+        double score = result.getPrimaryResult().getScore();
+        singleThreaded.putIfAbsent(benchmark, score);
+        double speedup = score / singleThreaded.get(benchmark);
+        report.add(String.format("%-55s %7d %14.2f %8.2f %10.2f", benchmark, threads, score,
+                                 speedup, speedup / threads));
+      }
+    }
+    System.out.println();
+    report.forEach(System.out::println);
+  }
+}
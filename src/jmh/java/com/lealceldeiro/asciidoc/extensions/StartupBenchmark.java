@@ -0,0 +1,87 @@
+package com.lealceldeiro.asciidoc.extensions;
+
+import com.lealceldeiro.asciidoc.extensions.calcexpression.ExpressionEngineStartup;
+import java.util.concurrent.TimeUnit;
+import org.asciidoctor.Asciidoctor;
+import org.asciidoctor.Options;
+import org.asciidoctor.SafeMode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Startup time in a cold JVM (every measurement is done in a new fork) with each of the
+ * {@link ExpressionEngineStartup} modes:
+ *
+ * <ul>
+ *   <li>{@code registration}: creation of an Asciidoctor instance, registering the extensions.</li>
+ *   <li>{@code firstRender}: conversion of the first document using {@code calc_exp}, some time
+ *   ({@code idleMillis}) after the instance was created, as when a document is opened in an
+ *   editor with a live preview.</li>
+ * </ul>
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(value = 10, jvmArgsAppend = {"-Xms1g", "-Xmx1g", "-Dasciidoc.extensions.logger=noop"})
+public class StartupBenchmark {
+  private static final String DOCUMENT = """
+      = Startup
+      :author: Benchmark Author
+      :calc_exp_license_type: non_commercial
+
+      Total: calc_exp:[exp=(1.5 + 2.25) * 3 / 4]. Rate: calc_exp:[exp=sin(0.5) + 2 ^ 0.5].
+      """;
+
+  @State(Scope.Benchmark)
+  public static class Startup {
+    @Param({ExpressionEngineStartup.LAZY, ExpressionEngineStartup.PREWARM})
+    private String mode;
+
+    @Setup
+    public void setUp() {
+      System.setProperty(Util.SYSTEM_PROPERTY_PREFIX + Macro.Key.EXPRESSION_STARTUP, mode);
+    }
+  }
+
+  @State(Scope.Benchmark)
+  public static class Registered {
+    @Param({"0", "1000"})
+    private long idleMillis;
+
+    private Asciidoctor asciidoctor;
+    private Options options;
+
+    @Setup
+    public void setUp(Startup startup) throws InterruptedException {
+      asciidoctor = Asciidoctor.Factory.create();
+      options = Options.builder().safe(SafeMode.SAFE).build();
+      Thread.sleep(idleMillis);
+    }
+
+    @TearDown
+    public void tearDown() {
+      asciidoctor.close();
+    }
+  }
+
+  @Benchmark
+  public void registration(Startup startup) {
+    Asciidoctor.Factory.create().close();
+  }
+
+  @Benchmark
+  public String firstRender(Registered registered) {
+    return registered.asciidoctor.convert(DOCUMENT, registered.options);
+  }
+}
@@ -0,0 +1,151 @@
+package com.lealceldeiro.asciidoc.extensions;
+
+import com.lealceldeiro.asciidoc.extensions.calcexpression.CalcExpressionMacro;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generator of synthetic documents full of macros, similar to the financial reports and release
+ * notes in which they're used: a header defining the attributes the macros refer to, followed by
+ * sections of paragraphs, each one containing at most one macro.
+ *
+ * <p>Run {@link #main(String[])} to write the documents to disk.
+ */
+public final class SyntheticDocuments {
+  public static final String AUTHOR = "Synthetic Author";
+  private static final int PARAGRAPHS_PER_SECTION = 20;
+
+  /**
+   * @param paragraphs       Amount of paragraphs. Paragraphs without a macro contain a plain
+   *                         number instead, so the cost of the macros can be isolated by comparing
+   *                         with a document without them.
+   * @param calcMacros       Amount of {@code calc} macros.
+   * @param calcDateMacros   Amount of {@code calc_date} macros.
+   * @param calcExpMacros    Amount of {@code calc_exp} macros.
+   * @param operands         Amount of operands of every {@code calc} and {@code calc_exp} macro.
+   * @param attributeDensity Percentage (0-100) of the operands which are references to document
+   *                         attributes, instead of literal values.
+   * @param seed             Seed of the random values, the same spec always generates the same
+   *                         document.
+   */
+  public record Spec(int paragraphs, int calcMacros, int calcDateMacros, int calcExpMacros,
+                     int operands, int attributeDensity, long seed) {
+    public Spec {
+      if (calcMacros + calcDateMacros + calcExpMacros > paragraphs) {
+        throw new IllegalArgumentException("There must be at least a paragraph per macro");
+      }
+    }
+
+    public Spec withMacros(int calc, int calcDate, int calcExp) {
+      return new Spec(paragraphs, calc, calcDate, calcExp, operands, attributeDensity, seed);
+    }
+  }
+
+  private SyntheticDocuments() {
+  }
+
+  public static String generate(Spec spec) {
+    Random random = new Random(spec.seed());
+    int attributes = Math.max(1, spec.operands());
+    StringBuilder document = new StringBuilder(spec.paragraphs() * 96);
+    document.append("= Synthetic report ").append(spec.seed()).append('\n')
+            .append(AUTHOR).append('\n')
+            .append(':').append(Macro.Key.LICENSE_TYPE).append(": ")
+            .append(CalcExpressionMacro.LICENSE_TYPE_NON_COMMERCIAL_VALUE).append('\n')
+            .append(":release-date: 2024-0").append(1 + random.nextInt(9)).append("-15\n");
+    for (int i = 0; i < attributes; i++) {
+      document.append(":price-").append(i).append(": ").append(number(random)).append('\n');
+    }
+
+    List<String> macros = new ArrayList<>(spec.paragraphs());
+    for (int i = 0; i < spec.calcMacros(); i++) {
+      macros.add(calc(spec, random));
+    }
+    for (int i = 0; i < spec.calcDateMacros(); i++) {
+      macros.add(calcDate(spec, random));
+    }
+    for (int i = 0; i < spec.calcExpMacros(); i++) {
+      macros.add(calcExp(spec, random));
+    }
+    while (macros.size() < spec.paragraphs()) {
+      macros.add(number(random));
+    }
+    Collections.shuffle(macros, random);
+
+    for (int i = 0; i < macros.size(); i++) {
+      if (i % PARAGRAPHS_PER_SECTION == 0) {
+        document.append("\n== Section ").append(i / PARAGRAPHS_PER_SECTION + 1).append('\n');
+      }
+      document.append("\nThe total for item ").append(i).append(" is ").append(macros.get(i))
+              .append(", as reported by the _synthetic_ department.\n");
+    }
+    return document.toString();
+  }
+
+  private static String calc(Spec spec, Random random) {
+    StringBuilder macro = new StringBuilder("calc:").append(random.nextBoolean() ? "sum" : "sub")
+                                                    .append('[');
+    for (int i = 0; i < spec.operands(); i++) {
+      macro.append(i > 0 ? ", " : "").append(operand(spec, random));
+    }
+    return macro.append(']').toString();
+  }
+
+  private static String calcDate(Spec spec, Random random) {
+    String date = random.nextInt(100) < spec.attributeDensity()
+                  ? "{release-date}"
+                  : "2024-0" + (1 + random.nextInt(9)) + "-1" + random.nextInt(10);
+    return "calc_date:sum[" + date + ", " + random.nextInt(60) + "d, format=\"MMM d, yyyy\"]";
+  }
+
+  private static String calcExp(Spec spec, Random random) {
+    StringBuilder macro = new StringBuilder("calc_exp:[(");
+    for (int i = 0; i < spec.operands(); i++) {
+      macro.append(i > 0 ? " + " : "").append(operand(spec, random));
+    }
+    return macro.append(") * 1.21]").toString();
+  }
+
+  private static String operand(Spec spec, Random random) {
+    return random.nextInt(100) < spec.attributeDensity()
+           ? "{price-" + random.nextInt(Math.max(1, spec.operands())) + "}"
+           : number(random);
+  }
+
+  private static String number(Random random) {
+    return random.nextInt(10_000) + "." + (10 + random.nextInt(90));
+  }
+
+  /**
+   * Writes synthetic documents to disk.
+   *
+   * @param args Output directory, amount of documents, and optionally (in this order) the amount of
+   *             paragraphs, {@code calc}, {@code calc_date}, and {@code calc_exp} macros, operands,
+   *             and attribute density of every document. By default: 200 paragraphs, 50 macros of
+   *             each kind, 5 operands, and 50% of attribute references.
+   */
+  public static void main(String[] args) throws IOException {
+    if (args.length < 2) {
+      System.err.println("Usage: SyntheticDocuments <output directory> <documents> [paragraphs "
+                         + "calc calc_date calc_exp operands attribute_density]");
+      System.exit(1);
+    }
+    Path output = Files.createDirectories(Path.of(args[0]));
+    int documents = Integer.parseInt(args[1]);
+    int[] settings = {200, 50, 50, 50, 5, 50};
+    for (int i = 2; i < args.length && i - 2 < settings.length; i++) {
+      settings[i - 2] = Integer.parseInt(args[i]);
+    }
+    for (int i = 0; i < documents; i++) {
+      Spec spec = new Spec(settings[0], settings[1], settings[2], settings[3], settings[4],
+                           settings[5], i);
+      Files.writeString(output.resolve("synthetic-" + i + ".adoc"), generate(spec));
+    }
+    System.out.println("Generated " + documents + " documents in " + output.toAbsolutePath());
+  }
+}
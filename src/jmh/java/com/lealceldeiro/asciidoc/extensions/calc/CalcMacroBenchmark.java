@@ -0,0 +1,62 @@
+package com.lealceldeiro.asciidoc.extensions.calc;
+
+import com.lealceldeiro.asciidoc.extensions.Macro;
+import com.lealceldeiro.asciidoc.extensions.Operator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@link CalcMacro#calculate(String, Map)} with attributes as provided by Asciidoctor for
+ * {@code calc:sum[...]}, where one out of five operands is a placeholder in the invalid inputs.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g", "-Dasciidoc.extensions.logger=noop"})
+@State(Scope.Benchmark)
+public class CalcMacroBenchmark {
+  @Param({"valid", "invalid", "ignore_invalid"})
+  private String input;
+
+  @Param({"2", "50"})
+  private int operands;
+
+  @Param({Operator.SUM, Operator.MULTIPLY})
+  private String operation;
+
+  private CalcMacro macro;
+  private Map<String, Object> attributes;
+
+  @Setup
+  public void setUp() {
+    macro = new CalcMacro();
+    attributes = new HashMap<>();
+    int position = 1;
+    if ("ignore_invalid".equals(input)) {
+      attributes.put(String.valueOf(position++), Macro.Value.IGNORE_INVALID);
+    }
+    for (int i = 0; i < operands; i++) {
+      boolean placeholder = !"valid".equals(input) && i % 5 == 4;
+      attributes.put(String.valueOf(position++), placeholder ? "{price-" + i + "}" : "1.0" + i);
+    }
+    attributes.put(Macro.Key.ROUNDING_MODE, "HALF_UP");
+  }
+
+  @Benchmark
+  public String calculate() {
+    return macro.calculate(operation, attributes);
+  }
+}
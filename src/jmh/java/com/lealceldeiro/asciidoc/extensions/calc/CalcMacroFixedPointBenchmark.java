@@ -0,0 +1,88 @@
+package com.lealceldeiro.asciidoc.extensions.calc;
+
+import com.lealceldeiro.asciidoc.extensions.Operator;
+import com.lealceldeiro.asciidoc.extensions.Parsing;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BinaryOperator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the {@link FixedPoint} arithmetic used by {@link CalcMacro} for prices (numbers with two
+ * decimals), falling back to {@link BigDecimal} when they don't fit, with the {@link BigDecimal}
+ * only arithmetic used before. Both parse the prices, calculate, and format the result.
+ * {@code calculate} measures the whole macro, including the lookup of its attributes.
+ *
+ * <p>The product of a few prices overflows a {@code long}, or has more than
+ * {@link FixedPoint#MAX_SCALE} decimals, so it measures the cost of falling back.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g", "-Dasciidoc.extensions.logger=noop"})
+@State(Scope.Benchmark)
+public class CalcMacroFixedPointBenchmark {
+  @Param({Operator.SUM, Operator.MULTIPLY})
+  private String operator;
+
+  @Param({"2", "8", "50"})
+  private int operands;
+
+  private CalcMacro macro;
+  private Map<String, Object> attributes;
+  private String[] prices;
+  private BinaryOperator<BigDecimal> operation;
+
+  @Setup
+  public void setUp() {
+    macro = new CalcMacro();
+    attributes = new HashMap<>();
+    prices = new String[operands];
+    for (int i = 0; i < operands; i++) {
+      prices[i] = (i % 7 + 1) + "." + (10 + i * 13 % 90);
+      attributes.put(String.valueOf(i + 1), prices[i]);
+    }
+    operation = Operator.SUM.equals(operator) ? BigDecimal::add : BigDecimal::multiply;
+  }
+
+  @Benchmark
+  public String fixedPoint() {
+    long[] unscaled = new long[prices.length];
+    int[] scales = new int[prices.length];
+    for (int i = 0; i < prices.length; i++) {
+      scales[i] = FixedPoint.parse(prices[i], unscaled, i);
+    }
+    String result = FixedPoint.calculate(operator, unscaled, scales, prices.length,
+                                         CalcMacro.DEFAULT_SCALE, RoundingMode.HALF_EVEN);
+    return result != null ? result : bigDecimal();
+  }
+
+  @Benchmark
+  public String calculate() {
+    return macro.calculate(operator, attributes);
+  }
+
+  @Benchmark
+  public String bigDecimal() {
+    BigDecimal result = null;
+    for (String price : prices) {
+      BigDecimal number = Parsing.toBigDecimal(price);
+      result = result == null ? number : operation.apply(result, number);
+    }
+    return result.setScale(CalcMacro.DEFAULT_SCALE, RoundingMode.HALF_EVEN).toPlainString();
+  }
+}
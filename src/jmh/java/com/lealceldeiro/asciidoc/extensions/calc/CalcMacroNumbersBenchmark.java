@@ -0,0 +1,109 @@
+package com.lealceldeiro.asciidoc.extensions.calc;
+
+import com.lealceldeiro.asciidoc.extensions.Macro;
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares {@link CalcMacro#getNumbers(Map)} with the stream based implementation it replaced, for
+ * {@code calc:sum[...]} invocations with several operands, some of them invalid.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CalcMacroNumbersBenchmark {
+  @Param({"2", "10", "50"})
+  private int operands;
+
+  @Param({"0", "20"})
+  private int invalidPercentage;
+
+  private Map<String, Object> attributes;
+
+  @Setup
+  public void setUp() {
+    attributes = new HashMap<>();
+    attributes.put(CalcMacro.MODE_ATTRIBUTE_POSITION, Macro.Value.IGNORE_INVALID);
+    for (int i = 0; i < operands; i++) {
+      boolean invalid = invalidPercentage > 0 && i % (100 / invalidPercentage) == 0;
+      attributes.put(String.valueOf(i + 2), invalid ? "{undefined}" : (i * 1013) + "." + (i % 100));
+    }
+  }
+
+  @Benchmark
+  public CalcMacro.Numbers singlePass() {
+    return CalcMacro.getNumbers(attributes);
+  }
+
+  @Benchmark
+  public List<BigDecimal> streams() {
+    return LegacyNumbers.getNumbers(attributes);
+  }
+
+  /**
+   * Implementation of {@code CalcMacro.getNumbers} up to version {@code 2.3.x}.
+   */
+  private static final class LegacyNumbers {
+    static List<BigDecimal> getNumbers(Map<String, Object> attributes) {
+      return attributes.entrySet()
+                       .stream()
+                       .filter(entry -> !Macro.Key.MODE.equals(entry.getKey())
+                                        && !isIgnoreInvalidConfigEntry(entry))
+                       .filter(entry -> isIntValue(entry.getKey()))
+                       .sorted((entry1, entry2) -> {
+                         int key1 = Integer.parseInt(entry1.getKey());
+                         int key2 = Integer.parseInt(entry2.getKey());
+                         return key1 - key2;
+                       })
+                       .map(Map.Entry::getValue)
+                       .map(LegacyNumbers::getBigDecimal)
+                       .filter(Optional::isPresent)
+                       .map(Optional::get)
+                       .collect(Collectors.toList());
+    }
+
+    private static boolean isIgnoreInvalidConfigEntry(Map.Entry<String, Object> entry) {
+      return CalcMacro.MODE_ATTRIBUTE_POSITION.equals(entry.getKey())
+             && Macro.Value.IGNORE_INVALID.equals(entry.getValue());
+    }
+
+    private static boolean isIntValue(String rawValue) {
+      try {
+        Integer.parseInt(rawValue);
+      } catch (NullPointerException | NumberFormatException e) {
+        return false;
+      }
+      return true;
+    }
+
+    private static Optional<BigDecimal> getBigDecimal(Object value) {
+      if (value == null) {
+        return Optional.empty();
+      }
+      try {
+        return Optional.of(new BigDecimal(String.valueOf(value)));
+      } catch (NullPointerException | NumberFormatException e) {
+        return Optional.empty();
+      }
+    }
+  }
+}
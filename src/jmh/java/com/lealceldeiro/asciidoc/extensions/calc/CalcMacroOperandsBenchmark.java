@@ -0,0 +1,71 @@
+package com.lealceldeiro.asciidoc.extensions.calc;
+
+import com.lealceldeiro.asciidoc.extensions.Macro;
+import com.lealceldeiro.asciidoc.extensions.Operator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the ways of giving {@code 1, 2, ..., size} to {@link CalcMacro}: as positional
+ * attributes, as a {@link NumberList} (already parsed, as every macro but the first one of a
+ * document referencing it), and as a {@link Range}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g", "-Dasciidoc.extensions.logger=noop"})
+@State(Scope.Benchmark)
+public class CalcMacroOperandsBenchmark {
+  @Param({Operator.SUM, Operator.MEDIAN})
+  private String operator;
+
+  @Param({"100", "10000"})
+  private int size;
+
+  private CalcMacro macro;
+  private Map<String, Object> positional;
+  private Map<String, Object> list;
+  private Map<String, Object> range;
+
+  @Setup
+  public void setUp() {
+    macro = new CalcMacro();
+    positional = new HashMap<>();
+    StringJoiner joiner = new StringJoiner(", ");
+    for (int i = 1; i <= size; i++) {
+      positional.put(String.valueOf(i), String.valueOf(i));
+      joiner.add(String.valueOf(i));
+    }
+    list = Map.of(Macro.Key.LIST, NumberList.of(joiner.toString()));
+    range = Map.of(Macro.Key.RANGE, "1.." + size);
+  }
+
+  @Benchmark
+  public String positional() {
+    return macro.calculate(operator, positional);
+  }
+
+  @Benchmark
+  public String list() {
+    return macro.calculate(operator, list);
+  }
+
+  @Benchmark
+  public String range() {
+    return macro.calculate(operator, range);
+  }
+}
@@ -0,0 +1,72 @@
+package com.lealceldeiro.asciidoc.extensions.calc;
+
+import java.nio.LongBuffer;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the scalar {@link LongKernel} with the {@link VectorLongKernel} aggregating a column of
+ * {@code rows} numbers with two decimals (i.e.: amounts up to {@code 1000000.00}), some of them
+ * {@link ColumnSidecar#INVALID}, and the {@link ColumnSidecar.Column#summary()} of the same column,
+ * which copies it by chunks from a buffer, as it's mapped from the sidecar, and aggregates them
+ * with the vectorized kernel.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g", "-Dasciidoc.extensions.logger=noop",
+                                  "--add-modules", "jdk.incubator.vector"})
+@State(Scope.Benchmark)
+public class LongKernelBenchmark {
+  @Param({"1000000"})
+  private int rows;
+
+  private long[] values;
+  private LongKernel scalar;
+  private LongKernel vector;
+  private LongKernel.Partial partial;
+  private ColumnSidecar.Column column;
+
+  @Setup
+  public void setUp() {
+    Random random = new Random(42);
+    values = new long[rows];
+    for (int i = 0; i < rows; i++) {
+      values[i] = random.nextInt(1000) == 0 ? ColumnSidecar.INVALID : random.nextLong(100_000_000L);
+    }
+    scalar = new LongKernel();
+    vector = new VectorLongKernel();
+    partial = new LongKernel.Partial();
+    column = new ColumnSidecar.Column(2, rows, 0, List.of(LongBuffer.wrap(values)));
+  }
+
+  @Benchmark
+  public LongKernel.Partial scalar() {
+    scalar.aggregate(values, rows, partial);
+    return partial;
+  }
+
+  @Benchmark
+  public LongKernel.Partial vector() {
+    vector.aggregate(values, rows, partial);
+    return partial;
+  }
+
+  @Benchmark
+  public Aggregates.Summary summary() {
+    return column.summary();
+  }
+}
@@ -0,0 +1,65 @@
+package com.lealceldeiro.asciidoc.extensions.calcdate;
+
+import com.lealceldeiro.asciidoc.extensions.Macro;
+import com.lealceldeiro.asciidoc.extensions.Operator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@link CalcDateMacro#calculate(String, Map)} with attributes as provided by Asciidoctor for
+ * {@code calc_date:sum[...]}. The invalid inputs use placeholders for the date, format, and zones.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g", "-Dasciidoc.extensions.logger=noop"})
+@State(Scope.Benchmark)
+public class CalcDateMacroBenchmark {
+  @Param({"valid", "invalid", "ignore_invalid"})
+  private String input;
+
+  /**
+   * Whether a format and zones are provided, besides the date and amount.
+   */
+  @Param({"false", "true"})
+  private boolean allAttributes;
+
+  private CalcDateMacro macro;
+  private Map<String, Object> attributes;
+
+  @Setup
+  public void setUp() {
+    macro = new CalcDateMacro();
+    boolean valid = "valid".equals(input);
+    attributes = new HashMap<>();
+    attributes.put(CalcDateMacro.DATE_ATTRIBUTE_POSITION, valid ? "2024-01-31" : "{release-date}");
+    attributes.put(CalcDateMacro.AMOUNT_ATTRIBUTE_POSITION, "1m");
+    if (allAttributes) {
+      attributes.put(CalcDateMacro.TARGET_FORMAT_ATTRIBUTE_POSITION,
+                     valid ? "MMM d, yyyy" : "{date-format}");
+      attributes.put(Macro.Key.FROM_ZONE_ID, valid ? "Europe/Madrid" : "{from-zone}");
+      attributes.put(Macro.Key.TO_ZONE_ID, valid ? "America/New_York" : "{to-zone}");
+    }
+    if ("ignore_invalid".equals(input)) {
+      attributes.put(Macro.Key.MODE, Macro.Value.IGNORE_INVALID);
+    }
+  }
+
+  @Benchmark
+  public String calculate() {
+    return macro.calculate(Operator.SUM, attributes);
+  }
+}
@@ -0,0 +1,78 @@
+package com.lealceldeiro.asciidoc.extensions.calcexpression;
+
+import com.lealceldeiro.asciidoc.extensions.Macro;
+import com.lealceldeiro.asciidoc.extensions.Util;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@link CalcExpressionMacro#calculate(String, CalcExpressionMacro.Attributes)} with the author and
+ * license set at the document level, as recommended. The invalid expressions contain a
+ * placeholder, as left by Asciidoctor for undefined attributes.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g", "-Dasciidoc.extensions.logger=noop"})
+@State(Scope.Benchmark)
+public class CalcExpressionMacroBenchmark {
+  @Param({"valid", "invalid"})
+  private String input;
+
+  @Param({"2", "50"})
+  private int operands;
+
+  @Param({DefaultExpressionEngine.NAME, MXparserExpressionEngine.NAME})
+  private String engine;
+
+  /**
+   * Size of the cache of parsed expressions, {@code 0} measures parsing on every invocation. It's
+   * set before the macro is loaded, as every combination of parameters runs in its own fork.
+   */
+  @Param({"0", "512"})
+  private int cacheSize;
+
+  private CalcExpressionMacro macro;
+  private CalcExpressionMacro.Attributes attributes;
+
+  @Setup
+  public void setUp() {
+    System.setProperty(Util.SYSTEM_PROPERTY_PREFIX + Macro.Key.EXPRESSION_CACHE_SIZE,
+                       String.valueOf(cacheSize));
+    macro = new CalcExpressionMacro();
+    StringBuilder expression = new StringBuilder("(1.5");
+    for (int i = 1; i < operands; i++) {
+      expression.append(i % 3 == 0 ? " * " : " + ").append(i).append(".25");
+    }
+    expression.append(") / 4");
+    if ("invalid".equals(input)) {
+      expression.append(" + {tax-rate}");
+    }
+
+    Map<String, Object> documentAttributes = new HashMap<>();
+    documentAttributes.put(Macro.Key.AUTHOR, "Benchmark Author");
+    documentAttributes.put(Macro.Key.LICENSE_TYPE,
+                           CalcExpressionMacro.LICENSE_TYPE_NON_COMMERCIAL_VALUE);
+    documentAttributes.put(Macro.Key.EXPRESSION_ENGINE, engine);
+    attributes = new CalcExpressionMacro.Attributes(documentAttributes,
+                                                    Map.of(Macro.Key.EXP, expression.toString()));
+  }
+
+  @Benchmark
+  public String calculate() {
+    return macro.calculate(null, attributes);
+  }
+}
@@ -1,6 +1,7 @@
 package com.lealceldeiro.asciidoc.extensions;
 
 import com.lealceldeiro.asciidoc.extensions.calcexpression.CalcExpressionMacro;
+import com.lealceldeiro.asciidoc.extensions.calcexpression.ExpressionEngineStartup;
 import org.asciidoctor.Asciidoctor;
 import org.asciidoctor.extension.JavaExtensionRegistry;
 import org.asciidoctor.jruby.extension.spi.ExtensionRegistry;
@@ -22,5 +23,7 @@ public class CalcExpressionMacroExtensionRegistry implements ExtensionRegistry {
 
     JavaExtensionRegistry javaExtensionRegistry = asciidoctor.javaExtensionRegistry();
     javaExtensionRegistry.inlineMacro("calc_exp", CalcExpressionMacro.class);
+
+    ExpressionEngineStartup.onRegistration();
   }
 }
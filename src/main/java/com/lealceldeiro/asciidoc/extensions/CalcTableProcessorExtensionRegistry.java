@@ -0,0 +1,27 @@
+package com.lealceldeiro.asciidoc.extensions;
+
+import com.lealceldeiro.asciidoc.extensions.calc.CalcTableProcessor;
+import org.asciidoctor.Asciidoctor;
+import org.asciidoctor.extension.JavaExtensionRegistry;
+import org.asciidoctor.jruby.extension.spi.ExtensionRegistry;
+
+import java.util.logging.Logger;
+
+/**
+ * Docs at
+ * <a href="https://docs.asciidoctor.org/asciidoctorj/latest/extensions/extensions-introduction/">
+ * AsciidocJ Extensions API
+ * </a>
+ */
+public class CalcTableProcessorExtensionRegistry implements ExtensionRegistry {
+  private static final Logger LOGGER
+      = Logger.getLogger(CalcTableProcessorExtensionRegistry.class.getName());
+
+  @Override
+  public void register(Asciidoctor asciidoctor) {
+    LOGGER.info("Registering CalcTableProcessor");
+
+    JavaExtensionRegistry javaExtensionRegistry = asciidoctor.javaExtensionRegistry();
+    javaExtensionRegistry.treeprocessor(CalcTableProcessor.class);
+  }
+}
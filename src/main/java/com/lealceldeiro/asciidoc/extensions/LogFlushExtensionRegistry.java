@@ -0,0 +1,24 @@
+package com.lealceldeiro.asciidoc.extensions;
+
+import com.lealceldeiro.asciidoc.extensions.calclogger.BufferedLogger;
+import com.lealceldeiro.asciidoc.extensions.calclogger.ExtensionLoggerFactory;
+import com.lealceldeiro.asciidoc.extensions.calclogger.LogFlushPostprocessor;
+import org.asciidoctor.Asciidoctor;
+import org.asciidoctor.jruby.extension.spi.ExtensionRegistry;
+
+/**
+ * Registers {@link LogFlushPostprocessor}, only if messages are buffered.
+ *
+ * <p>Docs at
+ * <a href="https://docs.asciidoctor.org/asciidoctorj/latest/extensions/extensions-introduction/">
+ * AsciidocJ Extensions API
+ * </a>
+ */
+public class LogFlushExtensionRegistry implements ExtensionRegistry {
+  @Override
+  public void register(Asciidoctor asciidoctor) {
+    if (ExtensionLoggerFactory.getInstance() instanceof BufferedLogger) {
+      asciidoctor.javaExtensionRegistry().postprocessor(LogFlushPostprocessor.class);
+    }
+  }
+}
@@ -0,0 +1,189 @@
+package com.lealceldeiro.asciidoc.extensions;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Bounded, thread-safe, least-recently-used cache.
+ *
+ * <p>Lookups don't take any lock, so the cache can be read by many threads at the same time. Every
+ * entry records when it was last used, by means of a clock which only advances when entries are
+ * added: reads just stamp the entry with the current time, so they don't write anything shared,
+ * and reading an entry which was already read after the last addition doesn't write anything at
+ * all, so hot entries aren't written by every thread reading them. Entries read since the last
+ * addition are equally recent. Only evictions take a lock.
+ *
+ * <p>Evictions are approximate: the last use of the entries to evict is estimated from a sample
+ * of the entries, instead of sorting all of them, and entries used before it are evicted.
+ *
+ * <p>Values are computed outside any lock, so two threads missing on the same key at the same
+ * time may both compute it; the first value stored wins and is returned to both of them.
+ *
+ * @param <K> Type of the keys.
+ * @param <V> Type of the values.
+ */
+public final class LruCache<K, V> {
+  public record Stats(long hits, long misses, long evictions, int size, int capacity) {
+  }
+
+  /**
+   * Caches at least this big evict a few more entries than needed at once (1/16 of their
+   * capacity), so full caches don't look for the least recently used entry on every insertion.
+   */
+  private static final int BATCH_EVICTION_CAPACITY = 64;
+  /**
+   * Entries whose last use is looked at to choose the ones to evict. Caches up to this size are
+   * evicted exactly.
+   */
+  private static final int EVICTION_SAMPLE_SIZE = 64;
+
+  private static final class Entry<V> {
+    private final V value;
+    // twice the clock when the entry was added, or that plus one when it was read
+    private volatile long lastUsed;
+
+    private Entry(V value, long lastUsed) {
+      this.value = value;
+      this.lastUsed = lastUsed;
+    }
+  }
+
+  private final Map<K, Entry<V>> entries = new ConcurrentHashMap<>();
+  private final AtomicLong clock = new AtomicLong();
+  private final Object evictionLock = new Object();
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder evictions = new LongAdder();
+  private volatile int capacity;
+
+  public LruCache(int capacity) {
+    this.capacity = Math.max(0, capacity);
+  }
+
+  public V get(K key) {
+    Entry<V> entry = entries.get(key);
+    if (entry == null) {
+      misses.increment();
+      return null;
+    }
+    hits.increment();
+    long now = 2 * clock.get() + 1;
+    if (entry.lastUsed < now) {
+      entry.lastUsed = now;
+    }
+    return entry.value;
+  }
+
+  public V computeIfAbsent(K key, Function<? super K, ? extends V> loader) {
+    V value = get(key);
+    if (value != null) {
+      return value;
+    }
+    V computed = loader.apply(key);
+    if (computed == null || capacity == 0) {
+      return computed;
+    }
+    Entry<V> existing = entries.putIfAbsent(key, new Entry<>(computed, 2 * clock.incrementAndGet()));
+    if (existing != null) {
+      return existing.value;
+    }
+    evictExceeding();
+    return computed;
+  }
+
+  public void put(K key, V value) {
+    if (capacity == 0) {
+      return;
+    }
+    entries.put(key, new Entry<>(value, 2 * clock.incrementAndGet()));
+    evictExceeding();
+  }
+
+  public void remove(K key) {
+    entries.remove(key);
+  }
+
+  public void resize(int newCapacity) {
+    int sanitizedCapacity = Math.max(0, newCapacity);
+    if (sanitizedCapacity == capacity) {
+      return;
+    }
+    capacity = sanitizedCapacity;
+    evictExceeding();
+  }
+
+  public void clear() {
+    entries.clear();
+  }
+
+  public int capacity() {
+    return capacity;
+  }
+
+  public Stats stats() {
+    return new Stats(hits.sum(), misses.sum(), evictions.sum(), entries.size(), capacity);
+  }
+
+  private void evictExceeding() {
+    if (entries.size() <= capacity) {
+      return;
+    }
+    synchronized (evictionLock) {
+      int currentCapacity = capacity;
+      int targetSize = currentCapacity >= BATCH_EVICTION_CAPACITY
+                       ? currentCapacity - currentCapacity / 16
+                       : currentCapacity;
+      int exceeding = entries.size() - targetSize;
+      if (entries.size() <= currentCapacity || exceeding <= 0) {
+        return;
+      }
+      long[] sample = sampleLastUses();
+      // the share of entries to evict gives the last use of the eldest ones, in the sample
+      int index = Math.max(0, (int) Math.ceil((double) exceeding * sample.length
+                                              / entries.size()) - 1);
+      int evicted = 0;
+      while (evicted < exceeding) {
+        // if even the latest use in the sample is too early, any entry goes
+        boolean anyEntry = index >= sample.length;
+        evicted += evictUsedUntil(anyEntry ? Long.MAX_VALUE : sample[index], exceeding - evicted);
+        if (anyEntry) {
+          break;
+        }
+        // the sample underestimated it
+        index = Math.min(2 * index + 1, sample.length);
+      }
+    }
+  }
+
+  private long[] sampleLastUses() {
+    long[] sample = new long[Math.min(EVICTION_SAMPLE_SIZE, entries.size())];
+    int sampled = 0;
+    // entries are iterated by hash, which has nothing to do with when they were used
+    Iterator<Entry<V>> iterator = entries.values().iterator();
+    while (sampled < sample.length && iterator.hasNext()) {
+      sample[sampled++] = iterator.next().lastUsed;
+    }
+    sample = Arrays.copyOf(sample, sampled);
+    Arrays.sort(sample);
+    return sample;
+  }
+
+  private int evictUsedUntil(long lastUsed, int maxEvictions) {
+    int evicted = 0;
+    Iterator<Map.Entry<K, Entry<V>>> iterator = entries.entrySet().iterator();
+    while (evicted < maxEvictions && iterator.hasNext()) {
+      Map.Entry<K, Entry<V>> entry = iterator.next();
+      if (entry.getValue().lastUsed <= lastUsed
+          && entries.remove(entry.getKey(), entry.getValue())) {
+        evicted++;
+      }
+    }
+    evictions.add(evicted);
+    return evicted;
+  }
+}
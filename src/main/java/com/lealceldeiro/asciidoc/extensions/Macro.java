@@ -18,8 +18,37 @@ public final class Macro {
     public static final String EXP = "exp";
     public static final String AUTHOR = "author";
     public static final String LICENSE_TYPE = "calc_exp_license_type";
+    public static final String EXPRESSION_CACHE_SIZE = "calc_exp_cache_size";
+    public static final String DATE_CACHE_SIZE = "calc_date_cache_size";
+    public static final String EXPRESSION_ENGINE = "calc_exp_engine";
+    public static final String EXPRESSION_STARTUP = "calc_exp_startup";
 
     public static final String ROUNDING_MODE = "rounding_mode";
+    public static final String SCALE = "scale";
+    public static final String PRECISION = "precision";
+    public static final String DOCUMENT_SCALE = "calc_scale";
+    public static final String DOCUMENT_PRECISION = "calc_precision";
+    public static final String PERCENTILE = "p";
+    public static final String RANGE = "range";
+    public static final String STEP = "step";
+    public static final String LIST = "list";
+    public static final String LIST_CACHE_SIZE = "calc_list_cache_size";
+    public static final String FILE = "file";
+    public static final String COLUMN = "column";
+    public static final String HEADER = "header";
+    public static final String FILE_CACHE_SIZE = "calc_file_cache_size";
+    public static final String FILE_SIDECAR = "calc_file_sidecar";
+    public static final String FILE_SIDECAR_DIRECTORY = "calc_file_sidecar_dir";
+    public static final String ERROR = "error";
+    public static final String TABLE_FOOTER = "calc-footer";
+    public static final String TABLE_ATTRIBUTES = "calc-attributes";
+    public static final String TABLE_SETTING_PREFIX = "calc-";
+
+    public static final String MEMO = "memo";
+    public static final String MEMO_SIZE = "memo_size";
+    public static final String PERSISTENT_CACHE = "persistent_cache";
+    public static final String PERSISTENT_CACHE_FILE = "persistent_cache_file";
+    public static final String PERSISTENT_CACHE_MAX_SIZE = "persistent_cache_max_size";
   }
 
   public static final class Value {
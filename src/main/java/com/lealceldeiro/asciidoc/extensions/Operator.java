@@ -6,6 +6,21 @@ public final class Operator {
   public static final String MULTIPLY = "multiply";
   public static final String DIVIDE = "divide";
 
+  public static final String AVG = "avg";
+  public static final String MIN = "min";
+  public static final String MAX = "max";
+  public static final String COUNT = "count";
+  public static final String VARIANCE = "variance";
+  public static final String STDDEV = "stddev";
+  public static final String MEDIAN = "median";
+  public static final String PERCENTILE = "percentile";
+
+  public static final String APPROX_MEDIAN = "approx_median";
+  public static final String APPROX_PERCENTILE = "approx_percentile";
+  public static final String P95 = "p95";
+  public static final String P99 = "p99";
+  public static final String APPROX_DISTINCT = "approx_distinct";
+
   private Operator() {
   }
 }
@@ -0,0 +1,224 @@
+package com.lealceldeiro.asciidoc.extensions;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.Month;
+import java.time.Year;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Parsing of attribute values which, unlike the JDK parsing methods, doesn't throw on invalid
+ * values: they're validated before being parsed, and {@code null} (or {@link #NOT_AN_INT}) is
+ * returned instead. Documents full of placeholder values (i.e.: using {@code ignore_invalid}) would
+ * otherwise pay for an exception, and its stack trace, per invalid value.
+ */
+public final class Parsing {
+  public static final long NOT_AN_INT = Long.MIN_VALUE;
+
+  private static final Map<String, RoundingMode> ROUNDING_MODES
+      = Arrays.stream(RoundingMode.values())
+              .collect(Collectors.toUnmodifiableMap(RoundingMode::name, Function.identity()));
+  private static final Set<String> REGION_IDS = ZoneId.getAvailableZoneIds();
+
+  private Parsing() {
+  }
+
+  /**
+   * @return The value as a {@link BigDecimal}, or {@code null} if it isn't a valid number, as
+   *     accepted by {@link BigDecimal#BigDecimal(String)}.
+   */
+  public static BigDecimal toBigDecimal(Object value) {
+    if (value == null) {
+      return null;
+    }
+    String number = value instanceof String string ? string : String.valueOf(value);
+    if (!isNumber(number)) {
+      return null;
+    }
+    try {
+      return new BigDecimal(number);
+    } catch (NumberFormatException e) {
+      // only reachable with exponents out of the int range
+      return null;
+    }
+  }
+
+  /**
+   * @return Whether the value follows the format accepted by {@link BigDecimal#BigDecimal(String)}:
+   *     an optional sign, digits with an optional decimal point, and an optional exponent.
+   */
+  public static boolean isNumber(String value) {
+    int length = value.length();
+    int index = skipSign(value, 0);
+    int digits = 0;
+    boolean decimalPoint = false;
+    for (; index < length; index++) {
+      char c = value.charAt(index);
+      if (Character.isDigit(c)) {
+        digits++;
+      } else if (c == '.' && !decimalPoint) {
+        decimalPoint = true;
+      } else {
+        break;
+      }
+    }
+    if (digits == 0) {
+      return false;
+    }
+    if (index < length && (value.charAt(index) == 'e' || value.charAt(index) == 'E')) {
+      index = skipSign(value, index + 1);
+      int exponentStart = index;
+      while (index < length && Character.isDigit(value.charAt(index))) {
+        index++;
+      }
+      if (index == exponentStart) {
+        return false;
+      }
+    }
+    return index == length;
+  }
+
+  /**
+   * Parses a value the same way {@link Integer#parseInt(String)} does.
+   *
+   * @return The parsed value, or {@link #NOT_AN_INT} if it isn't an int value.
+   */
+  public static long toInt(String value) {
+    Long parsed = toLong(value);
+    return parsed != null && parsed >= Integer.MIN_VALUE && parsed <= Integer.MAX_VALUE
+           ? parsed
+           : NOT_AN_INT;
+  }
+
+  /**
+   * Parses a value the same way {@link Long#parseLong(String)} does.
+   *
+   * @return The parsed value, or {@code null} if it isn't a long value.
+   */
+  public static Long toLong(String value) {
+    if (value == null || value.isEmpty()) {
+      return null;
+    }
+    boolean negative = value.charAt(0) == '-';
+    int index = skipSign(value, 0);
+    if (index == value.length()) {
+      return null;
+    }
+    // accumulated negatively, as Long.parseLong does, so Long.MIN_VALUE doesn't overflow
+    long limit = negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+    long result = 0;
+    for (; index < value.length(); index++) {
+      int digit = Character.digit(value.charAt(index), 10);
+      if (digit < 0 || result < limit / 10) {
+        return null;
+      }
+      result *= 10;
+      if (result < limit + digit) {
+        return null;
+      }
+      result -= digit;
+    }
+    return negative ? result : -result;
+  }
+
+  /**
+   * Parses a value the same way {@link LocalDate#parse(CharSequence)} does. Dates in the most
+   * common format ({@code yyyy-MM-dd}) are validated and parsed without the
+   * {@link java.time.format.DateTimeFormatter} machinery.
+   *
+   * @return The parsed date, or {@code null} if it isn't a valid ISO-8601 date.
+   */
+  public static LocalDate toLocalDate(String value) {
+    if (value == null || value.isEmpty()) {
+      return null;
+    }
+    if (value.length() == 10 && value.charAt(4) == '-' && value.charAt(7) == '-') {
+      int year = digits(value, 0, 4);
+      int month = digits(value, 5, 7);
+      int day = digits(value, 8, 10);
+      if (year < 0 || month < 1 || month > 12 || day < 1
+          || day > Month.of(month).length(Year.isLeap(year))) {
+        return null;
+      }
+      return LocalDate.of(year, month, day);
+    }
+    char first = value.charAt(0);
+    if (value.length() > 10 && (first == '+' || first == '-' || isAsciiDigit(first))) {
+      // years out of the 0000-9999 range are rare: left to the JDK
+      try {
+        return LocalDate.parse(value);
+      } catch (DateTimeParseException e) {
+        return null;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * @return The {@link RoundingMode} with the given name, or {@code null} if there isn't any.
+   */
+  public static RoundingMode toRoundingMode(String name) {
+    return name != null ? ROUNDING_MODES.get(name) : null;
+  }
+
+  /**
+   * Parses a value the same way {@link ZoneId#of(String)} does. Region ids are looked up in the
+   * available ones, so only the offset based ids (i.e.: {@code +01:00} or {@code UTC+1}) can go
+   * through {@link ZoneId#of(String)} and fail.
+   *
+   * @return The zone, or {@code null} if the id isn't valid.
+   */
+  public static ZoneId toZoneId(String id) {
+    if (id == null || id.isEmpty()) {
+      return null;
+    }
+    if (REGION_IDS.contains(id)) {
+      return ZoneId.of(id);
+    }
+    char first = id.charAt(0);
+    if (first == 'Z' || first == '+' || first == '-' || id.startsWith("UT")
+        || id.startsWith("GMT")) {
+      try {
+        return ZoneId.of(id);
+      } catch (DateTimeException e) {
+        return null;
+      }
+    }
+    return null;
+  }
+
+  private static int skipSign(String value, int index) {
+    if (index < value.length() && (value.charAt(index) == '-' || value.charAt(index) == '+')) {
+      return index + 1;
+    }
+    return index;
+  }
+
+  /**
+   * @return The value of the ASCII digits between {@code start} (inclusive) and {@code end}
+   *     (exclusive), or {@code -1} if any of the characters isn't an ASCII digit.
+   */
+  private static int digits(String value, int start, int end) {
+    int result = 0;
+    for (int i = start; i < end; i++) {
+      char c = value.charAt(i);
+      if (!isAsciiDigit(c)) {
+        return -1;
+      }
+      result = result * 10 + (c - '0');
+    }
+    return result;
+  }
+
+  private static boolean isAsciiDigit(char c) {
+    return c >= '0' && c <= '9';
+  }
+}
@@ -0,0 +1,362 @@
+package com.lealceldeiro.asciidoc.extensions;
+
+import com.lealceldeiro.asciidoc.extensions.calclogger.ExtensionLogger;
+import com.lealceldeiro.asciidoc.extensions.calclogger.ExtensionLoggerFactory;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32;
+import org.asciidoctor.ast.Document;
+
+/**
+ * Persistent, append-only, cache of macro results.
+ *
+ * <p>The file starts with a header ({@link #MAGIC} followed by {@link #FORMAT_VERSION}) and
+ * contains a sequence of records: the SHA-256 hash of the canonical invocation (see
+ * {@link ResultMemo#key(String, String, Map[])}), the length of the result, the result encoded in
+ * UTF-8, and a CRC32 checksum of all the previous fields. Later records override earlier ones.
+ *
+ * <p>The file is loaded on the first lookup. Reading stops at the first corrupted, or truncated,
+ * record, and the file is truncated at that point. When the file grows beyond its maximum size, it
+ * is compacted: only the latest result for every invocation is kept and, if that isn't enough, the
+ * oldest results are discarded.
+ *
+ * <p>The file may be shared by several processes (i.e.: the modules of a parallel Maven build), so
+ * it's only written while holding a lock on a sibling {@link #LOCK_SUFFIX} file, records are
+ * always appended at its actual end, and, if another process replaced it when compacting it, it's
+ * opened (and loaded) again.
+ */
+public final class PersistentResultCache {
+  static final String FILE = "asciidoc-extensions/results.cache";
+  /**
+   * Used when the document isn't within a Maven or Gradle project, relative to the working
+   * directory.
+   */
+  static final String DEFAULT_FILE = "target/" + FILE;
+  static final String LOCK_SUFFIX = ".lock";
+  static final long DEFAULT_MAX_SIZE = 16L * 1024 * 1024;
+  static final String ENABLED_VALUE = "on";
+
+  /**
+   * Must be increased whenever a change in the macros may change the result of an invocation, so
+   * the results cached by previous versions are discarded.
+   */
+  static final int FORMAT_VERSION = 7;
+  private static final byte[] MAGIC = "CALCRES".getBytes(StandardCharsets.US_ASCII);
+  private static final int HEADER_SIZE = MAGIC.length + Integer.BYTES;
+  private static final int HASH_SIZE = 32;
+  private static final int RECORD_OVERHEAD = HASH_SIZE + Integer.BYTES + Integer.BYTES;
+
+  private static final HexFormat HEX = HexFormat.of();
+  private static final ExtensionLogger logger = ExtensionLoggerFactory.getInstance();
+  private static final Map<Path, PersistentResultCache> instances = new ConcurrentHashMap<>();
+
+  private final Path file;
+  private final long maxSize;
+  private LinkedHashMap<String, String> results;
+  private FileChannel channel;
+  private FileChannel lockChannel;
+  /**
+   * Identifies the file {@link #channel} was opened on, if supported by the file system.
+   */
+  private Object fileKey;
+  private boolean unavailable;
+
+  PersistentResultCache(Path file, long maxSize) {
+    this.file = file;
+    this.maxSize = maxSize;
+  }
+
+  public static boolean isEnabled(Object persistentCacheAttribute) {
+    return ENABLED_VALUE.equalsIgnoreCase(Util.setting(Macro.Key.PERSISTENT_CACHE,
+                                                       persistentCacheAttribute, "off"));
+  }
+
+  /**
+   * @param persistentCacheAttribute Value of the {@value Macro.Key#PERSISTENT_CACHE} attribute.
+   * @param document                 Document being converted, if any.
+   *
+   * @return The cache for the document, or {@code null} if it isn't enabled.
+   */
+  public static PersistentResultCache of(Object persistentCacheAttribute, Document document) {
+    if (!isEnabled(persistentCacheAttribute)) {
+      return null;
+    }
+    return getInstance(document == null ? null : Util.baseDirectory(document));
+  }
+
+  /**
+   * Returns the cache backed by the file set in the system property
+   * {@code asciidoc.extensions.persistent_cache_file}, or, if not set, by {@value #FILE} in the
+   * {@link Util#buildDirectory(Path) build directory} of the project of the document (or
+   * {@value #DEFAULT_FILE}, relative to the working directory, if there's none).
+   *
+   * @param baseDirectory Base directory of the document, if known.
+   */
+  static PersistentResultCache getInstance(Path baseDirectory) {
+    String setting = Util.setting(Macro.Key.PERSISTENT_CACHE_FILE, null, null);
+    Path file = setting != null
+                ? Path.of(setting)
+                : Optional.ofNullable(baseDirectory)
+                          .flatMap(Util::buildDirectory)
+                          .map(directory -> directory.resolve(FILE))
+                          .orElseGet(() -> Path.of(DEFAULT_FILE));
+    Path path = file.toAbsolutePath().normalize();
+    return instances.computeIfAbsent(path, p -> {
+      long maxSize = Util.intSetting(Macro.Key.PERSISTENT_CACHE_MAX_SIZE, null, -1);
+      PersistentResultCache cache
+          = new PersistentResultCache(p, maxSize > 0 ? maxSize : DEFAULT_MAX_SIZE);
+      Runtime.getRuntime().addShutdownHook(new Thread(cache::close));
+      return cache;
+    });
+  }
+
+  Path file() {
+    return file;
+  }
+
+  public synchronized String get(String invocationKey) {
+    if (!ensureLoaded()) {
+      return null;
+    }
+    return results.get(hash(invocationKey));
+  }
+
+  public synchronized void put(String invocationKey, String result) {
+    if (!ensureLoaded()) {
+      return;
+    }
+    String hash = hash(invocationKey);
+    if (result.equals(results.get(hash))) {
+      return;
+    }
+    results.remove(hash);
+    results.put(hash, result);
+    try (FileLock ignored = lockChannel.lock()) {
+      reopenIfReplaced();
+      ByteBuffer record = record(hash, result);
+      long size = channel.size();
+      if (size + record.remaining() > maxSize) {
+        compact();
+      } else {
+        // other processes may have appended records since it was loaded
+        channel.write(record, size);
+      }
+    } catch (IOException e) {
+      logger.warn(null, "Could not write to the persistent result cache " + file + ": " + e);
+      if (!channel.isOpen()) {
+        // it couldn't be opened again, so it's not retried on every result
+        close();
+      }
+    }
+  }
+
+  public synchronized void close() {
+    if (lockChannel == null) {
+      return;
+    }
+    try {
+      if (channel != null) {
+        channel.close();
+      }
+      lockChannel.close();
+    } catch (IOException e) {
+      logger.log(null, () -> "Could not close the persistent result cache " + file + ": " + e);
+    }
+    channel = null;
+    lockChannel = null;
+    unavailable = true;
+  }
+
+  /**
+   * Loads the file on the first call.
+   *
+   * @return Whether the cache can be used. If the file can't be opened, it's never retried.
+   */
+  private boolean ensureLoaded() {
+    if (lockChannel != null || unavailable) {
+      return !unavailable;
+    }
+    results = new LinkedHashMap<>();
+    try {
+      Files.createDirectories(file.getParent());
+      lockChannel = FileChannel.open(file.resolveSibling(file.getFileName() + LOCK_SUFFIX),
+                                     StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+      try (FileLock ignored = lockChannel.lock()) {
+        open();
+      }
+    } catch (IOException e) {
+      logger.warn(null, "Could not open the persistent result cache " + file + ": " + e);
+      close();
+    }
+    return !unavailable;
+  }
+
+  /**
+   * Opens the file, and loads its records, discarding the corrupted ones. Must hold the lock.
+   */
+  private void open() throws IOException {
+    channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                               StandardOpenOption.WRITE);
+    fileKey = Files.readAttributes(file, BasicFileAttributes.class).fileKey();
+    channel.truncate(load());
+  }
+
+  /**
+   * Opens the file again if another process replaced it (by compacting it) or deleted it, so the
+   * records aren't written to a file nobody reads. Must hold the lock.
+   */
+  private void reopenIfReplaced() throws IOException {
+    boolean replaced;
+    try {
+      replaced = fileKey != null && !fileKey.equals(
+          Files.readAttributes(file, BasicFileAttributes.class).fileKey());
+    } catch (NoSuchFileException e) {
+      replaced = true;
+    }
+    if (replaced) {
+      channel.close();
+      open();
+    }
+  }
+
+  /**
+   * Reads all the valid records of the file.
+   *
+   * @return Position right after the last valid record.
+   */
+  private long load() throws IOException {
+    long fileSize = channel.size();
+    if (fileSize < HEADER_SIZE || fileSize > Integer.MAX_VALUE) {
+      return writeHeader();
+    }
+    ByteBuffer buffer = ByteBuffer.allocate((int) fileSize);
+    while (buffer.hasRemaining() && channel.read(buffer, buffer.position()) >= 0) {
+      // keep reading until the whole file is in the buffer
+    }
+    buffer.flip();
+    byte[] magic = new byte[MAGIC.length];
+    buffer.get(magic);
+    if (!Arrays.equals(MAGIC, magic) || buffer.getInt() != FORMAT_VERSION) {
+      logger.log(null, () -> "Discarding persistent result cache with unknown format: " + file);
+      return writeHeader();
+    }
+
+    byte[] hash = new byte[HASH_SIZE];
+    CRC32 crc = new CRC32();
+    while (buffer.remaining() >= RECORD_OVERHEAD) {
+      int start = buffer.position();
+      buffer.get(hash);
+      int length = buffer.getInt();
+      if (length < 0 || length > buffer.remaining() - Integer.BYTES) {
+        return corruptedAt(start);
+      }
+      byte[] value = new byte[length];
+      buffer.get(value);
+      crc.reset();
+      crc.update(buffer.slice(start, HASH_SIZE + Integer.BYTES + length));
+      if ((int) crc.getValue() != buffer.getInt()) {
+        return corruptedAt(start);
+      }
+      String key = HEX.formatHex(hash);
+      results.remove(key);
+      results.put(key, new String(value, StandardCharsets.UTF_8));
+    }
+    if (buffer.hasRemaining()) {
+      return corruptedAt(buffer.position());
+    }
+    return buffer.position();
+  }
+
+  private long corruptedAt(long position) {
+    logger.warn(null, "Persistent result cache " + file + " is corrupted at byte " + position
+                      + ", discarding the records from there on");
+    return position;
+  }
+
+  private long writeHeader() throws IOException {
+    results.clear();
+    ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).put(MAGIC).putInt(FORMAT_VERSION).flip();
+    channel.truncate(0);
+    channel.write(header, 0);
+    return HEADER_SIZE;
+  }
+
+  /**
+   * Rewrites the file keeping only the latest results, dropping the oldest ones until the file
+   * takes at most half of its maximum size. Must hold the lock.
+   */
+  private void compact() throws IOException {
+    long targetSize = maxSize / 2;
+    long compactedSize = HEADER_SIZE;
+    for (Map.Entry<String, String> entry : results.entrySet()) {
+      compactedSize += recordSize(entry.getValue());
+    }
+    Iterator<Map.Entry<String, String>> oldest = results.entrySet().iterator();
+    while (compactedSize > targetSize && oldest.hasNext()) {
+      compactedSize -= recordSize(oldest.next().getValue());
+      oldest.remove();
+    }
+
+    Path compacted = file.resolveSibling(file.getFileName() + ".compacting");
+    try (FileChannel out = FileChannel.open(compacted, StandardOpenOption.CREATE,
+                                            StandardOpenOption.WRITE,
+                                            StandardOpenOption.TRUNCATE_EXISTING)) {
+      out.write(ByteBuffer.allocate(HEADER_SIZE).put(MAGIC).putInt(FORMAT_VERSION).flip());
+      for (Map.Entry<String, String> entry : results.entrySet()) {
+        out.write(record(entry.getKey(), entry.getValue()));
+      }
+    }
+    // some file systems can't replace a file which is open
+    channel.close();
+    try {
+      Files.move(compacted, file, StandardCopyOption.REPLACE_EXISTING,
+                 StandardCopyOption.ATOMIC_MOVE);
+    } finally {
+      Files.deleteIfExists(compacted);
+      // the compacted file, or the previous one if it couldn't be replaced
+      open();
+    }
+  }
+
+  private static int recordSize(String value) {
+    return RECORD_OVERHEAD + value.getBytes(StandardCharsets.UTF_8).length;
+  }
+
+  private static ByteBuffer record(String hash, String value) {
+    byte[] valueBytes = value.getBytes(StandardCharsets.UTF_8);
+    ByteBuffer record = ByteBuffer.allocate(RECORD_OVERHEAD + valueBytes.length);
+    record.put(HEX.parseHex(hash)).putInt(valueBytes.length).put(valueBytes);
+
+    CRC32 crc = new CRC32();
+    crc.update(record.array(), 0, record.position());
+    return record.putInt((int) crc.getValue()).flip();
+  }
+
+  private static String hash(String invocationKey) {
+    try {
+      MessageDigest digest = MessageDigest.getInstance("SHA-256");
+      return HEX.formatHex(digest.digest(invocationKey.getBytes(StandardCharsets.UTF_8)));
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 not available", e);
+    }
+  }
+
+}
@@ -0,0 +1,112 @@
+package com.lealceldeiro.asciidoc.extensions;
+
+import java.lang.ref.SoftReference;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Supplier;
+
+/**
+ * JVM-wide memo of macro results, shared across documents and {@code Asciidoctor} instances.
+ *
+ * <p>Only pure calculations must be memoized: results are keyed on the macro name, its target and
+ * its attributes, nothing else. Values are softly referenced, so they can be reclaimed under
+ * memory pressure, and the number of entries is bounded.
+ */
+public final class ResultMemo {
+  static final int DEFAULT_SIZE = 10_000;
+  static final String DISABLED_VALUE = "off";
+
+  private static final LruCache<String, SoftReference<String>> results
+      = new LruCache<>(Util.intSetting(Macro.Key.MEMO_SIZE, null, DEFAULT_SIZE));
+
+  private ResultMemo() {
+  }
+
+  public static boolean isEnabled(Object memoAttribute) {
+    String memo = Util.setting(Macro.Key.MEMO, memoAttribute, "on");
+    return !DISABLED_VALUE.equalsIgnoreCase(memo) && !"false".equalsIgnoreCase(memo);
+  }
+
+  /**
+   * Returns the memoized result for the given invocation, performing the calculation only if
+   * there's no such result yet.
+   *
+   * <p>On a miss, the {@link PersistentResultCache} is looked up as well, if it's enabled.
+   *
+   * @param memoAttribute   Value of the {@value Macro.Key#MEMO} attribute, if any.
+   * @param persistentCache Provides the persistent cache of the document, or {@code null} if it
+   *                        isn't enabled (see {@link PersistentResultCache#of}). Only called on a
+   *                        miss.
+   * @param calculation     Calculation to perform on a miss.
+   * @param macroName       Name of the macro being invoked.
+   * @param target          Target of the macro.
+   * @param attributes      Attributes the calculation depends on, later ones override earlier
+   *                        ones.
+   *
+   * @return The result of the calculation.
+   */
+  @SafeVarargs
+  public static String memoize(Object memoAttribute,
+                               Supplier<PersistentResultCache> persistentCache,
+                               Supplier<String> calculation, String macroName, String target,
+                               Map<String, Object>... attributes) {
+    if (!isEnabled(memoAttribute)) {
+      return calculation.get();
+    }
+    String key = key(macroName, target, attributes);
+    SoftReference<String> reference = results.get(key);
+    String result = reference != null ? reference.get() : null;
+    if (result == null) {
+      PersistentResultCache cache = persistentCache.get();
+      result = cache != null ? persistentCalculation(cache, key, calculation) : calculation.get();
+      results.put(key, new SoftReference<>(result));
+    }
+    return result;
+  }
+
+  private static String persistentCalculation(PersistentResultCache persistentCache, String key,
+                                              Supplier<String> calculation) {
+    String result = persistentCache.get(key);
+    if (result == null) {
+      result = calculation.get();
+      persistentCache.put(key, result);
+    }
+    return result;
+  }
+
+  /**
+   * Builds the canonical form of a macro invocation: attributes are merged, sorted by name and
+   * length-prefixed, so the key doesn't depend on the iteration order of the given maps.
+   */
+  @SafeVarargs
+  public static String key(String macroName, String target, Map<String, Object>... attributes) {
+    Map<String, String> merged = new TreeMap<>();
+    for (Map<String, Object> attrs : attributes) {
+      if (attrs != null) {
+        attrs.forEach((name, value) -> merged.put(name, String.valueOf(value)));
+      }
+    }
+
+    StringBuilder key = new StringBuilder(64);
+    append(key, macroName);
+    append(key, target);
+    merged.forEach((name, value) -> {
+      append(key, name);
+      append(key, value);
+    });
+    return key.toString();
+  }
+
+  public static LruCache.Stats stats() {
+    return results.stats();
+  }
+
+  static void clear() {
+    results.clear();
+  }
+
+  private static void append(StringBuilder key, String value) {
+    String safeValue = String.valueOf(value);
+    key.append(safeValue.length()).append(':').append(safeValue);
+  }
+}
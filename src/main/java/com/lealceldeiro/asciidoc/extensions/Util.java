@@ -1,26 +1,102 @@
 package com.lealceldeiro.asciidoc.extensions;
 
-import com.lealceldeiro.asciidoc.extensions.calclogger.ExtensionLogger;
 import com.lealceldeiro.asciidoc.extensions.calclogger.ExtensionLoggerFactory;
 import java.math.RoundingMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import org.asciidoctor.ast.Document;
 
 public final class Util {
-  private static final ExtensionLogger logger = ExtensionLoggerFactory.getInstance();
+  public static final String SYSTEM_PROPERTY_PREFIX = "asciidoc.extensions.";
+  public static final String BASE_DIR_OPTION = "base_dir";
+  public static final String DOCUMENT_DIR = "docdir";
+
+  private static final List<String> MAVEN_FILES = List.of("pom.xml");
+  private static final List<String> GRADLE_FILES = List.of("build.gradle", "build.gradle.kts",
+                                                           "settings.gradle",
+                                                           "settings.gradle.kts");
+  private static final LruCache<Path, Optional<Path>> buildDirectories = new LruCache<>(32);
 
   public static RoundingMode roundingMode(org.asciidoctor.extension.BaseProcessor callingProcessor,
                                           Map<String, Object> attributes) {
     Object specifiedRoundingMode = attributes.get(Macro.Key.ROUNDING_MODE);
     if (specifiedRoundingMode instanceof String modeString) {
-      try {
-        return RoundingMode.valueOf(modeString);
-      } catch (IllegalArgumentException e) {
-        logger.log(callingProcessor, "Invalid rounding mode: " + modeString);
+      RoundingMode roundingMode = Parsing.toRoundingMode(modeString);
+      if (roundingMode != null) {
+        return roundingMode;
       }
+      // not kept in a field, as the logger is created with the settings read by this class
+      ExtensionLoggerFactory.getInstance()
+                            .log(callingProcessor, () -> "Invalid rounding mode: " + modeString);
     } else {
-      logger.log(callingProcessor, "Rounding mode not set");
+      ExtensionLoggerFactory.getInstance().log(callingProcessor, "Rounding mode not set");
     }
 
     return RoundingMode.HALF_EVEN;
   }
+
+  /**
+   * Resolves a setting that can be provided as an attribute (macro or document level) or as a
+   * system property named after the attribute, prefixed with {@value #SYSTEM_PROPERTY_PREFIX}.
+   * The attribute takes precedence over the system property.
+   *
+   * @param key          Attribute name.
+   * @param attribute    Value of the attribute, if any.
+   * @param defaultValue Value returned when neither the attribute nor the system property are set.
+   *
+   * @return The resolved setting.
+   */
+  public static String setting(String key, Object attribute, String defaultValue) {
+    if (attribute != null && !String.valueOf(attribute).isBlank()) {
+      return String.valueOf(attribute).trim();
+    }
+    String property = System.getProperty(SYSTEM_PROPERTY_PREFIX + key);
+    return property != null && !property.isBlank() ? property.trim() : defaultValue;
+  }
+
+  public static int intSetting(String key, Object attribute, int defaultValue) {
+    long value = Parsing.toInt(setting(key, attribute, null));
+    return value != Parsing.NOT_AN_INT ? (int) value : defaultValue;
+  }
+
+  /**
+   * @return The base directory of the document (or, if not set, its directory), which Asciidoctor
+   *     resolves included files against.
+   */
+  public static Path baseDirectory(Document document) {
+    Object baseDir = document.getOptions().get(BASE_DIR_OPTION);
+    if (baseDir == null) {
+      baseDir = document.getAttribute(DOCUMENT_DIR, "");
+    }
+    return Path.of(String.valueOf(baseDir)).toAbsolutePath().normalize();
+  }
+
+  /**
+   * Output directory of the closest Maven ({@code target}) or Gradle ({@code build}) project
+   * containing the given directory, so generated files are kept out of the sources, and, in a
+   * multi-module build, within their module.
+   *
+   * @return The directory (which may not exist yet), or nothing if the given one isn't within a
+   *     project.
+   */
+  public static Optional<Path> buildDirectory(Path directory) {
+    return buildDirectories.computeIfAbsent(directory.toAbsolutePath().normalize(), start -> {
+      for (Path project = start; project != null; project = project.getParent()) {
+        if (containsAny(project, MAVEN_FILES)) {
+          return Optional.of(project.resolve("target"));
+        }
+        if (containsAny(project, GRADLE_FILES)) {
+          return Optional.of(project.resolve("build"));
+        }
+      }
+      return Optional.empty();
+    });
+  }
+
+  private static boolean containsAny(Path directory, List<String> files) {
+    return files.stream().anyMatch(file -> Files.isRegularFile(directory.resolve(file)));
+  }
 }
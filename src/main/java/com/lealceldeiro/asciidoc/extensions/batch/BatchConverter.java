@@ -0,0 +1,347 @@
+package com.lealceldeiro.asciidoc.extensions.batch;
+
+import com.lealceldeiro.asciidoc.extensions.Util;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import org.asciidoctor.Asciidoctor;
+import org.asciidoctor.Options;
+import org.asciidoctor.SafeMode;
+
+/**
+ * Converts every {@code .adoc} file in a directory tree to HTML, in parallel.
+ *
+ * <p>Conversions run on virtual threads, on a pool of {@link Asciidoctor} instances created (and
+ * warmed up) when the converter is created. Every instance is created with
+ * {@link Asciidoctor.Factory#create()}, so the extensions registries of this project are
+ * registered once per instance. An instance is only used by one conversion at a time.
+ *
+ * <p>At most {@link Settings#maxInFlight()} files are scheduled at the same time (new files are
+ * scheduled only as fast as previous ones are converted), and a file which takes longer than
+ * {@link Settings#fileTimeout()} to be converted, including the time waiting for an instance, is
+ * reported as timed out. The instance converting a file which timed out is retired (and closed
+ * once the conversion finishes, if ever), and replaced by a new one, so conversions that hang
+ * don't hold the rest of the files back. Files and directories starting with {@code _} are
+ * skipped, as they are usually included by other documents.
+ *
+ * <p>It can also be run from the command line:
+ * {@code java com.lealceldeiro.asciidoc.extensions.batch.BatchConverter <source dir> [output dir]}.
+ */
+public final class BatchConverter implements AutoCloseable {
+  public static final String INSTANCES = "batch_instances";
+  public static final String MAX_IN_FLIGHT = "batch_max_in_flight";
+  public static final String FILE_TIMEOUT = "batch_file_timeout";
+
+  private static final String SOURCE_EXTENSION = ".adoc";
+  private static final String TARGET_EXTENSION = ".html";
+  private static final String WARM_UP_DOCUMENT = """
+      = Warm up
+
+      calc:sum[1, 2.5] calc:multiply[3, 4, 5] calc_date:sum[2024-01-01, 1d]
+      """;
+
+  /**
+   * @param instances   Amount of {@link Asciidoctor} instances, that is, of files converted at the
+   *                    same time.
+   * @param maxInFlight Maximum amount of files scheduled (being converted or waiting for an
+   *                    instance) at the same time.
+   * @param fileTimeout Maximum time taken by the conversion of a file.
+   */
+  public record Settings(int instances, int maxInFlight, Duration fileTimeout) {
+    public Settings {
+      if (instances < 1 || maxInFlight < 1) {
+        throw new IllegalArgumentException("instances and maxInFlight must be greater than 0");
+      }
+      if (fileTimeout.isNegative() || fileTimeout.isZero()) {
+        throw new IllegalArgumentException("fileTimeout must be positive");
+      }
+    }
+
+    /**
+     * Settings given by the system properties {@code asciidoc.extensions.batch_instances}
+     * (defaults to the amount of available processors),
+     * {@code asciidoc.extensions.batch_max_in_flight} (defaults to four times the amount of
+     * instances), and {@code asciidoc.extensions.batch_file_timeout} (in seconds, defaults to
+     * {@code 60}).
+     */
+    public static Settings fromSystemProperties() {
+      int instances = Util.intSetting(INSTANCES, null, Runtime.getRuntime().availableProcessors());
+      int maxInFlight = Util.intSetting(MAX_IN_FLIGHT, null, instances * 4);
+      int timeoutSeconds = Util.intSetting(FILE_TIMEOUT, null, 60);
+      return new Settings(instances, maxInFlight, Duration.ofSeconds(timeoutSeconds));
+    }
+  }
+
+  public enum Status {
+    CONVERTED, FAILED, TIMED_OUT
+  }
+
+  public record FileResult(Path source, Status status, Duration elapsed, String error) {
+  }
+
+  public record Report(List<FileResult> files, Duration elapsed) {
+    public long count(Status status) {
+      return files.stream().filter(file -> file.status() == status).count();
+    }
+
+    public boolean successful() {
+      return count(Status.CONVERTED) == files.size();
+    }
+
+    public String summary() {
+      StringBuilder summary = new StringBuilder();
+      summary.append(String.format("Converted %d of %d files in %.1f s (%d failed, %d timed out)%n",
+                                   count(Status.CONVERTED), files.size(), elapsed.toMillis() / 1e3,
+                                   count(Status.FAILED), count(Status.TIMED_OUT)));
+      for (FileResult file : files) {
+        if (file.status() != Status.CONVERTED) {
+          summary.append(String.format("%-9s %s (%d ms)%s%n", file.status(), file.source(),
+                                       file.elapsed().toMillis(),
+                                       file.error() != null ? ": " + file.error() : ""));
+        }
+      }
+      return summary.toString();
+    }
+  }
+
+  private final Settings settings;
+  private final Supplier<Asciidoctor> instanceFactory;
+  private final List<Asciidoctor> instances = new CopyOnWriteArrayList<>();
+  private final BlockingQueue<Asciidoctor> idleInstances = new LinkedBlockingQueue<>();
+  private volatile boolean closed;
+
+  public BatchConverter(Settings settings) {
+    this(settings, Asciidoctor.Factory::create);
+  }
+
+  BatchConverter(Settings settings, Supplier<Asciidoctor> instanceFactory) {
+    this.settings = settings;
+    this.instanceFactory = instanceFactory;
+    List<Asciidoctor> created = createInstances(settings.instances(), instanceFactory);
+    instances.addAll(created);
+    idleInstances.addAll(created);
+  }
+
+  public static void main(String[] args) throws IOException {
+    if (args.length < 1 || args.length > 2) {
+      System.err.println("Usage: BatchConverter <source dir> [output dir]");
+      System.exit(2);
+    }
+    Path sourceDir = Path.of(args[0]);
+    Path outputDir = args.length > 1 ? Path.of(args[1]) : sourceDir;
+
+    Report report;
+    try (BatchConverter converter = new BatchConverter(Settings.fromSystemProperties())) {
+      report = converter.convert(sourceDir, outputDir);
+    }
+    System.out.print(report.summary());
+    if (!report.successful()) {
+      System.exit(1);
+    }
+  }
+
+  /**
+   * Converts every {@code .adoc} file in {@code sourceDir} (and its subdirectories) to an
+   * {@code .html} file, in the same relative location under {@code outputDir}.
+   */
+  public Report convert(Path sourceDir, Path outputDir) throws IOException {
+    long start = System.nanoTime();
+    List<Path> sources = sources(sourceDir);
+    Semaphore inFlight = new Semaphore(settings.maxInFlight());
+    List<Future<FileResult>> results = new ArrayList<>(sources.size());
+
+    try (ExecutorService files = Executors.newVirtualThreadPerTaskExecutor()) {
+      for (Path source : sources) {
+        inFlight.acquireUninterruptibly();
+        Path target = target(sourceDir.relativize(source), outputDir);
+        results.add(files.submit(() -> convert(source, target, inFlight)));
+      }
+    }
+
+    List<FileResult> fileResults = new ArrayList<>(results.size());
+    for (Future<FileResult> result : results) {
+      fileResults.add(result.resultNow());
+    }
+    return new Report(fileResults, Duration.ofNanos(System.nanoTime() - start));
+  }
+
+  @Override
+  public void close() {
+    closed = true;
+    instances.forEach(this::retire);
+  }
+
+  private FileResult convert(Path source, Path target, Semaphore inFlight) {
+    try {
+      return convertFile(source, target);
+    } finally {
+      inFlight.release();
+    }
+  }
+
+  private FileResult convertFile(Path source, Path target) {
+    long start = System.nanoTime();
+    long deadline = start + settings.fileTimeout().toNanos();
+    Asciidoctor asciidoctor;
+    try {
+      asciidoctor = idleInstances.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return new FileResult(source, Status.FAILED, elapsedSince(start), "Interrupted");
+    }
+    if (asciidoctor == null) {
+      return new FileResult(source, Status.TIMED_OUT, elapsedSince(start),
+                            "No Asciidoctor instance available");
+    }
+
+    // set by whichever comes first: the end of the conversion, which gives the instance back, or
+    // the timeout, which retires it
+    AtomicBoolean released = new AtomicBoolean();
+    CompletableFuture<Void> conversion = new CompletableFuture<>();
+    Thread thread = Thread.ofVirtual().name("batch-conversion").start(() -> {
+      try {
+        asciidoctor.convertFile(source.toFile(), options(source, target));
+        conversion.complete(null);
+      } catch (Throwable e) {
+        conversion.completeExceptionally(e);
+      } finally {
+        if (released.compareAndSet(false, true)) {
+          idleInstances.add(asciidoctor);
+        } else {
+          retire(asciidoctor);
+        }
+      }
+    });
+
+    try {
+      conversion.get(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+      return new FileResult(source, Status.CONVERTED, elapsedSince(start), null);
+    } catch (TimeoutException e) {
+      if (released.compareAndSet(false, true)) {
+        thread.interrupt();
+        replaceInstance();
+      }
+      return new FileResult(source, Status.TIMED_OUT, elapsedSince(start), null);
+    } catch (ExecutionException e) {
+      return new FileResult(source, Status.FAILED, elapsedSince(start), e.getCause().toString());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return new FileResult(source, Status.FAILED, elapsedSince(start), "Interrupted");
+    }
+  }
+
+  /**
+   * Creates a new instance in the background, in place of a retired one. If it can't be created,
+   * the pool just shrinks.
+   */
+  private void replaceInstance() {
+    Thread.ofVirtual().name("batch-instance").start(() -> {
+      Asciidoctor replacement;
+      try {
+        replacement = warmUp(instanceFactory.get());
+      } catch (RuntimeException e) {
+        return;
+      }
+      instances.add(replacement);
+      idleInstances.add(replacement);
+      if (closed) {
+        retire(replacement);
+      }
+    });
+  }
+
+  private void retire(Asciidoctor asciidoctor) {
+    if (instances.remove(asciidoctor)) {
+      idleInstances.remove(asciidoctor);
+      asciidoctor.close();
+    }
+  }
+
+  /**
+   * Same safe mode as the Asciidoctor command line, so includes and output paths behave the same.
+   */
+  private static Options options(Path source, Path target) {
+    return Options.builder()
+                  .safe(SafeMode.UNSAFE)
+                  .baseDir(source.toAbsolutePath().getParent().toFile())
+                  .toFile(target.toFile())
+                  .mkDirs(true)
+                  .build();
+  }
+
+  private static List<Asciidoctor> createInstances(int amount, Supplier<Asciidoctor> factory) {
+    List<Future<Asciidoctor>> futures = new ArrayList<>(amount);
+    try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+      for (int i = 0; i < amount; i++) {
+        futures.add(executor.submit(() -> warmUp(factory.get())));
+      }
+    }
+
+    List<Asciidoctor> created = new ArrayList<>(amount);
+    Throwable failure = null;
+    for (Future<Asciidoctor> future : futures) {
+      if (future.state() == Future.State.SUCCESS) {
+        created.add(future.resultNow());
+      } else {
+        failure = future.exceptionNow();
+      }
+    }
+    if (failure != null) {
+      created.forEach(Asciidoctor::close);
+      throw new IllegalStateException("Asciidoctor couldn't be created", failure);
+    }
+    return created;
+  }
+
+  private static Asciidoctor warmUp(Asciidoctor asciidoctor) {
+    asciidoctor.convert(WARM_UP_DOCUMENT, Options.builder().safe(SafeMode.SAFE).build());
+    return asciidoctor;
+  }
+
+  private static List<Path> sources(Path sourceDir) throws IOException {
+    try (Stream<Path> paths = Files.walk(sourceDir)) {
+      return paths.filter(path -> path.getFileName().toString().endsWith(SOURCE_EXTENSION))
+                  .filter(Files::isRegularFile)
+                  .filter(path -> isNotPartial(sourceDir.relativize(path)))
+                  .sorted()
+                  .toList();
+    }
+  }
+
+  private static boolean isNotPartial(Path relativePath) {
+    for (Path element : relativePath) {
+      if (element.toString().startsWith("_")) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static Path target(Path relativeSource, Path outputDir) {
+    String fileName = relativeSource.getFileName().toString();
+    String targetName = fileName.substring(0, fileName.length() - SOURCE_EXTENSION.length())
+                        + TARGET_EXTENSION;
+    return outputDir.resolve(relativeSource).resolveSibling(targetName);
+  }
+
+  private static Duration elapsedSince(long start) {
+    return Duration.ofNanos(System.nanoTime() - start);
+  }
+}
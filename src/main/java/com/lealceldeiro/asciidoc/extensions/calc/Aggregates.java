@@ -0,0 +1,264 @@
+package com.lealceldeiro.asciidoc.extensions.calc;
+
+import com.lealceldeiro.asciidoc.extensions.Operator;
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.Optional;
+
+/**
+ * Aggregates of the first {@code size} numbers of an array, calculated in a single pass over them,
+ * except for the percentiles, which are selected in linear (expected) time, without sorting.
+ *
+ * <p>Every intermediate result is rounded with the given {@link MathContext}. When it's unlimited
+ * (precision {@code 0}), {@link MathContext#DECIMAL128} is used instead for divisions and square
+ * roots, as most of them don't have a terminating decimal expansion (i.e.: the average of
+ * {@code 1}, {@code 1}, and {@code 2}).
+ */
+final class Aggregates {
+  private static final BigDecimal HUNDRED = BigDecimal.valueOf(100);
+
+  private Aggregates() {
+  }
+
+  static BigDecimal average(BigDecimal[] values, int size, MathContext mathContext) {
+    BigDecimal sum = BigDecimal.ZERO;
+    for (int i = 0; i < size; i++) {
+      sum = sum.add(values[i], mathContext);
+    }
+    return sum.divide(BigDecimal.valueOf(size), divisionContext(mathContext));
+  }
+
+  static BigDecimal min(BigDecimal[] values, int size) {
+    BigDecimal min = values[0];
+    for (int i = 1; i < size; i++) {
+      if (values[i].compareTo(min) < 0) {
+        min = values[i];
+      }
+    }
+    return min;
+  }
+
+  static BigDecimal max(BigDecimal[] values, int size) {
+    BigDecimal max = values[0];
+    for (int i = 1; i < size; i++) {
+      if (values[i].compareTo(max) > 0) {
+        max = values[i];
+      }
+    }
+    return max;
+  }
+
+  /**
+   * Population variance, calculated with Welford's algorithm: the running mean and sum of squared
+   * differences from it don't lose precision when the numbers are big compared to their
+   * differences, as the sum of squares would.
+   */
+  static BigDecimal variance(BigDecimal[] values, int size, MathContext mathContext) {
+    MathContext divisionContext = divisionContext(mathContext);
+    BigDecimal mean = BigDecimal.ZERO;
+    BigDecimal squaredDifferences = BigDecimal.ZERO;
+    for (int i = 0; i < size; i++) {
+      BigDecimal delta = values[i].subtract(mean, mathContext);
+      mean = mean.add(delta.divide(BigDecimal.valueOf(i + 1L), divisionContext), mathContext);
+      squaredDifferences = squaredDifferences.add(
+          delta.multiply(values[i].subtract(mean, mathContext), mathContext), mathContext);
+    }
+    return squaredDifferences.divide(BigDecimal.valueOf(size), divisionContext);
+  }
+
+  static BigDecimal standardDeviation(BigDecimal[] values, int size, MathContext mathContext) {
+    BigDecimal variance = variance(values, size, mathContext);
+    // rounding errors may leave a tiny negative variance when every number is the same
+    return variance.signum() <= 0 ? BigDecimal.ZERO : variance.sqrt(divisionContext(mathContext));
+  }
+
+  /**
+   * Percentile {@code p} (from {@code 0} to {@code 100}), interpolating linearly between the
+   * closest ranks, as the {@code PERCENTILE.INC} function of spreadsheets. The order of the numbers
+   * in the array is changed.
+   */
+  static BigDecimal percentile(BigDecimal[] values, int size, BigDecimal p,
+                               MathContext mathContext) {
+    // p% of the distance from the first number to the last one (exact, as it's divided by 100)
+    BigDecimal rank = p.multiply(BigDecimal.valueOf(size - 1L)).divide(HUNDRED);
+    int lowerRank = rank.intValue();
+    BigDecimal fraction = rank.subtract(BigDecimal.valueOf(lowerRank));
+
+    select(values, size, lowerRank);
+    BigDecimal lower = values[lowerRank];
+    if (fraction.signum() == 0) {
+      return lower;
+    }
+    // after the selection, the next number is the smallest one on the right
+    BigDecimal upper = values[lowerRank + 1];
+    for (int i = lowerRank + 2; i < size; i++) {
+      if (values[i].compareTo(upper) < 0) {
+        upper = values[i];
+      }
+    }
+    return lower.add(upper.subtract(lower, mathContext).multiply(fraction, mathContext),
+                     mathContext);
+  }
+
+  /**
+   * Quickselect (Hoare's partition): places the {@code k}-th smallest number at index {@code k},
+   * with none bigger on its left, nor smaller on its right.
+   */
+  private static void select(BigDecimal[] values, int size, int k) {
+    int left = 0;
+    int right = size - 1;
+    while (left < right) {
+      BigDecimal pivot = values[(left + right) >>> 1];
+      int i = left;
+      int j = right;
+      while (i <= j) {
+        while (values[i].compareTo(pivot) < 0) {
+          i++;
+        }
+        while (values[j].compareTo(pivot) > 0) {
+          j--;
+        }
+        if (i <= j) {
+          BigDecimal swapped = values[i];
+          values[i++] = values[j];
+          values[j--] = swapped;
+        }
+      }
+      if (k <= j) {
+        right = j;
+      } else if (k >= i) {
+        left = i;
+      } else {
+        return;
+      }
+    }
+  }
+
+  /**
+   * Aggregates of numbers given one by one, so they don't need to be kept (i.e.: the numbers of a
+   * whole {@link CsvFile} column).
+   *
+   * <p>Sums are exact, so the variance, calculated from the sum of squares, isn't affected by
+   * cancellation, and the summary doesn't depend on any {@link MathContext}: it's only applied
+   * to the results.
+   */
+  static final class Summary {
+    private long count;
+    private int invalid;
+    private BigDecimal first;
+    private BigDecimal min;
+    private BigDecimal max;
+    private BigDecimal sum = BigDecimal.ZERO;
+    private BigDecimal squares = BigDecimal.ZERO;
+
+    /**
+     * Summary of numbers aggregated elsewhere (i.e.: scanning a {@link ColumnSidecar}).
+     */
+    static Summary of(long count, int invalid, BigDecimal first, BigDecimal min, BigDecimal max,
+                      BigDecimal sum, BigDecimal squares) {
+      Summary summary = new Summary();
+      summary.count = count;
+      summary.invalid = invalid;
+      summary.first = first;
+      summary.min = min;
+      summary.max = max;
+      summary.sum = sum;
+      summary.squares = squares;
+      return summary;
+    }
+
+    static boolean supports(String operator) {
+      return switch (operator) {
+        case Operator.SUM, Operator.SUB, Operator.AVG, Operator.MIN, Operator.MAX, Operator.COUNT,
+             Operator.VARIANCE, Operator.STDDEV -> true;
+        default -> false;
+      };
+    }
+
+    void add(BigDecimal number) {
+      if (count++ == 0) {
+        first = number;
+        min = number;
+        max = number;
+      } else if (number.compareTo(min) < 0) {
+        min = number;
+      } else if (number.compareTo(max) > 0) {
+        max = number;
+      }
+      sum = sum.add(number);
+      squares = squares.add(number.multiply(number));
+    }
+
+    void addInvalid() {
+      invalid++;
+    }
+
+    /**
+     * @return A new summary of the numbers of both summaries, the ones of this one first.
+     */
+    Summary merge(Summary other) {
+      if (other.count == 0 || count == 0) {
+        Summary merged = count == 0 ? of(other) : of(this);
+        merged.invalid = (int) Math.min(Integer.MAX_VALUE, (long) invalid + other.invalid);
+        return merged;
+      }
+      return of(count + other.count,
+                (int) Math.min(Integer.MAX_VALUE, (long) invalid + other.invalid), first,
+                min.min(other.min), max.max(other.max), sum.add(other.sum),
+                squares.add(other.squares));
+    }
+
+    private static Summary of(Summary summary) {
+      return of(summary.count, summary.invalid, summary.first, summary.min, summary.max,
+                summary.sum, summary.squares);
+    }
+
+    long count() {
+      return count;
+    }
+
+    /**
+     * @return The amount of values which weren't numbers.
+     */
+    int invalid() {
+      return invalid;
+    }
+
+    /**
+     * @param operator One of the operators {@link #supports(String) supported}, except
+     *                 {@link Operator#COUNT}.
+     *
+     * @return The result, or nothing if there are no numbers.
+     */
+    Optional<BigDecimal> result(String operator, MathContext mathContext) {
+      if (count == 0) {
+        return Optional.empty();
+      }
+      MathContext divisionContext = divisionContext(mathContext);
+      BigDecimal size = BigDecimal.valueOf(count);
+      BigDecimal result = switch (operator) {
+        case Operator.SUM -> sum.round(mathContext);
+        case Operator.SUB -> first.subtract(sum.subtract(first)).round(mathContext);
+        case Operator.AVG -> sum.divide(size, divisionContext);
+        case Operator.MIN -> min;
+        case Operator.MAX -> max;
+        case Operator.VARIANCE -> variance(size, divisionContext);
+        case Operator.STDDEV -> variance(size, divisionContext).sqrt(divisionContext);
+        default -> throw new IllegalArgumentException("Unsupported operator: " + operator);
+      };
+      return Optional.of(result);
+    }
+
+    /**
+     * {@code (n * squares - sum²) / n²}, where only the division is rounded.
+     */
+    private BigDecimal variance(BigDecimal size, MathContext divisionContext) {
+      return squares.multiply(size).subtract(sum.multiply(sum))
+                    .divide(size.multiply(size), divisionContext);
+    }
+  }
+
+  private static MathContext divisionContext(MathContext mathContext) {
+    return mathContext.getPrecision() == 0 ? MathContext.DECIMAL128 : mathContext;
+  }
+}
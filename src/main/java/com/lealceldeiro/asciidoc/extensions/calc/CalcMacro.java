@@ -4,20 +4,30 @@ import com.lealceldeiro.asciidoc.extensions.Calc;
 import com.lealceldeiro.asciidoc.extensions.InvalidValue;
 import com.lealceldeiro.asciidoc.extensions.Macro;
 import com.lealceldeiro.asciidoc.extensions.Operator;
+import com.lealceldeiro.asciidoc.extensions.Parsing;
+import com.lealceldeiro.asciidoc.extensions.PersistentResultCache;
+import com.lealceldeiro.asciidoc.extensions.ResultMemo;
 import com.lealceldeiro.asciidoc.extensions.Util;
 import com.lealceldeiro.asciidoc.extensions.calclogger.ExtensionLogger;
 import com.lealceldeiro.asciidoc.extensions.calclogger.ExtensionLoggerFactory;
+import java.io.IOException;
 import java.math.BigDecimal;
+import java.math.MathContext;
 import java.math.RoundingMode;
-import java.util.Collection;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.function.BinaryOperator;
-import java.util.stream.Collectors;
+import org.asciidoctor.ast.Document;
 import org.asciidoctor.ast.PhraseNode;
 import org.asciidoctor.ast.StructuralNode;
+import org.asciidoctor.extension.BaseProcessor;
 import org.asciidoctor.extension.InlineMacroProcessor;
 import org.asciidoctor.extension.Name;
 import org.asciidoctor.extension.PositionalAttributes;
@@ -33,10 +43,65 @@ import org.asciidoctor.extension.PositionalAttributes;
 public class CalcMacro extends InlineMacroProcessor implements Calc<Map<String, Object>> {
   private static final ExtensionLogger logger = ExtensionLoggerFactory.getInstance();
   static final String MODE_ATTRIBUTE_POSITION = "1";
+  static final int DEFAULT_SCALE = 2;
+  /**
+   * Unlimited precision, so intermediate results are exact unless a precision is given (or they
+   * can't be, see {@link #divide} and {@link #multiply}).
+   */
+  static final int DEFAULT_PRECISION = 0;
+  static final int MAX_SCALE = 1000;
+  static final int MAX_PRECISION = 1000;
+  /**
+   * Maximum amount of significant digits of exact products and quotients, and of integer digits of
+   * any product, as their cost and size grow with every factor.
+   */
+  static final int MAX_RESULT_DIGITS = 1000;
+  private static final BigDecimal FIFTY = BigDecimal.valueOf(50);
+  private static final BigDecimal NINETY_FIVE = BigDecimal.valueOf(95);
+  private static final BigDecimal NINETY_NINE = BigDecimal.valueOf(99);
+  private static final BigDecimal HUNDRED = BigDecimal.valueOf(100);
+  private static final String FILE_SEPARATOR = ",";
+  /**
+   * Attributes which configure the calculation, instead of giving numbers, other than the
+   * {@value Macro.Key#MODE}, which may be given by position too.
+   */
+  private static final Set<String> CONFIGURATION_KEYS = Set.of(
+      Macro.Key.ROUNDING_MODE, Macro.Key.MEMO, Macro.Key.SCALE, Macro.Key.PRECISION,
+      Macro.Key.PERCENTILE, Macro.Key.RANGE, Macro.Key.STEP, Macro.Key.LIST, Macro.Key.FILE,
+      Macro.Key.COLUMN, Macro.Key.HEADER, Macro.Key.ERROR);
+  /**
+   * Operators which aren't a binary operation of the numbers.
+   */
+  private static final Set<String> AGGREGATE_OPERATORS = Set.of(
+      Operator.COUNT, Operator.APPROX_DISTINCT, Operator.AVG, Operator.MIN, Operator.MAX,
+      Operator.VARIANCE, Operator.STDDEV, Operator.MEDIAN, Operator.PERCENTILE,
+      Operator.APPROX_MEDIAN, Operator.APPROX_PERCENTILE, Operator.P95, Operator.P99);
+
+  private final BaseProcessor logSource;
+
+  public CalcMacro() {
+    this.logSource = this;
+  }
+
+  /**
+   * @param logSource Processor logging the messages of the calculations, for those done on behalf
+   *                  of another processor (i.e.: {@link CalcTableProcessor}).
+   */
+  CalcMacro(BaseProcessor logSource) {
+    this.logSource = logSource;
+  }
 
   @Override
   public PhraseNode process(StructuralNode parent, String target, Map<String, Object> attributes) {
-    String calcResult = calculate(target, attributes);
+    Document document = parent.getDocument();
+    Map<String, Object> calcAttributes = withCsvFile(document, withNumberList(
+        document, withDocumentSettings(document, attributes)));
+    String calcResult = ResultMemo.memoize(calcAttributes.get(Macro.Key.MEMO),
+                                           () -> PersistentResultCache.of(
+                                               document.getAttribute(Macro.Key.PERSISTENT_CACHE),
+                                               document),
+                                           () -> calculate(target, calcAttributes),
+                                           "calc", target, calcAttributes);
 
     // https://docs.asciidoctor.org/pdf-converter/latest/extend/create-converter/#override-a-method
     // https://www.rubydoc.info/gems/asciidoctor-pdf/Asciidoctor/PDF/Converter#convert_inline_quoted-instance_method
@@ -45,44 +110,380 @@ public class CalcMacro extends InlineMacroProcessor implements Calc<Map<String,
 
   @Override
   public String calculate(String operator, Map<String, Object> attributes) {
-    logger.log(this, "Operator: " + operator);
-    logger.log(this, "Attributes: " + attributes);
+    logger.log(logSource, () -> "Operator: " + operator);
+    logger.log(logSource, () -> "Attributes: " + attributes);
 
     boolean ignoreInvalid = ignoreInvalid(attributes);
     if (ignoreInvalid) {
-      logger.log(this, "Ignoring invalid attributes");
+      logger.log(logSource, "Ignoring invalid attributes");
     }
 
-    List<BigDecimal> numbers = getNumbers(attributes);
+    Numbers numbers = getNumbers(attributes);
     int expectedNumbersCount = attributes.size() - positionalAttributesCount(attributes);
     if (!ignoreInvalid && numbers.size() != expectedNumbersCount) {
       return InvalidValue.NOT_A_NUMBER;
     }
+    Object list = attributes.get(Macro.Key.LIST);
+    if (list != null) {
+      numbers = followedByList(numbers, list, ignoreInvalid);
+      if (numbers == null) {
+        return InvalidValue.NOT_A_NUMBER;
+      }
+    }
+    // ranges are never materialized, and files are read only once the operator is known, so
+    // they can't be combined with other numbers
+    boolean combined = numbers.size() > 0 || list != null;
+    Range range = null;
+    if (attributes.containsKey(Macro.Key.RANGE)) {
+      range = combined
+              ? null
+              : Range.parse(attributes.get(Macro.Key.RANGE), attributes.get(Macro.Key.STEP));
+      if (range == null) {
+        logger.log(logSource, () -> "Invalid range: " + attributes.get(Macro.Key.RANGE));
+        return InvalidValue.NOT_A_NUMBER;
+      }
+    }
+    List<CsvFile> files = null;
+    if (attributes.containsKey(Macro.Key.FILE)) {
+      files = combined || range != null || attributes.get(Macro.Key.COLUMN) == null
+              ? null
+              : csvFiles(attributes.get(Macro.Key.FILE));
+      if (files == null) {
+        logger.log(logSource, () -> "Invalid file: " + attributes.get(Macro.Key.FILE));
+        return InvalidValue.NOT_A_NUMBER;
+      }
+    }
+
+    int precision = setting(Macro.Key.PRECISION, attributes, DEFAULT_PRECISION, MAX_PRECISION);
+    // intermediate results are rounded half-even, only the final one uses the given rounding mode
+    MathContext mathContext = precision == 0
+                              ? MathContext.UNLIMITED
+                              : new MathContext(precision, RoundingMode.HALF_EVEN);
+    BinaryOperator<BigDecimal> operation = operation(operator, mathContext);
+    if (operation == null && !AGGREGATE_OPERATORS.contains(operator)) {
+      return InvalidValue.NOT_AN_OPERATION;
+    }
+    // only numbers in files are approximated, the rest are already in memory
+    if (files == null && (Operator.COUNT.equals(operator)
+                          || Operator.APPROX_DISTINCT.equals(operator))) {
+      if (range != null) {
+        return range.count().toPlainString();
+      }
+      return String.valueOf(Operator.COUNT.equals(operator) ? numbers.size() : distinct(numbers));
+    }
+
+    Calculation calculation = calculation(operator, attributes, ignoreInvalid, operation,
+                                          mathContext);
+    if (calculation == null) {
+      return InvalidValue.NOT_A_NUMBER;
+    }
+    if (range != null) {
+      return calculation.result(range.calculate(operator, calculation.percentile(), mathContext));
+    }
+    if (files != null) {
+      return calculateFiles(calculation, files, attributes);
+    }
+    return calculateNumbers(calculation, numbers);
+  }
+
+  /**
+   * Settings of a calculation, once validated.
+   *
+   * @param operation Binary operation of the operator, or {@code null} if it's an aggregate.
+   * @param percentile Percentile of the percentile operators, or {@code null} for the others.
+   */
+  private record Calculation(String operator, boolean ignoreInvalid,
+                             BinaryOperator<BigDecimal> operation, MathContext mathContext,
+                             int scale, RoundingMode roundingMode, BigDecimal percentile,
+                             double error) {
+    String result(Optional<BigDecimal> result) {
+      return result.map(val -> val.setScale(scale, roundingMode))
+                   .map(BigDecimal::toPlainString)
+                   .orElse(InvalidValue.NOT_A_VALID_MATH);
+    }
+  }
+
+  /**
+   * @return The calculation, or {@code null} if its percentile, or error, isn't valid.
+   */
+  private Calculation calculation(String operator, Map<String, Object> attributes,
+                                  boolean ignoreInvalid, BinaryOperator<BigDecimal> operation,
+                                  MathContext mathContext) {
+    BigDecimal percentile = switch (operator) {
+      case Operator.MEDIAN, Operator.APPROX_MEDIAN -> FIFTY;
+      case Operator.P95 -> NINETY_FIVE;
+      case Operator.P99 -> NINETY_NINE;
+      default -> null;
+    };
+    if (Operator.PERCENTILE.equals(operator) || Operator.APPROX_PERCENTILE.equals(operator)) {
+      percentile = Parsing.toBigDecimal(attributes.get(Macro.Key.PERCENTILE));
+      if (percentile == null || percentile.signum() < 0 || percentile.compareTo(HUNDRED) > 0) {
+        logger.log(logSource, () -> "Invalid percentile: " + attributes.get(Macro.Key.PERCENTILE));
+        return null;
+      }
+    }
+    double error = ColumnSketch.DEFAULT_ERROR;
+    if (ColumnSketch.supports(operator) && attributes.containsKey(Macro.Key.ERROR)) {
+      BigDecimal errorValue = Parsing.toBigDecimal(attributes.get(Macro.Key.ERROR));
+      if (errorValue == null || errorValue.signum() <= 0
+          || errorValue.compareTo(BigDecimal.ONE) >= 0) {
+        logger.log(logSource, () -> "Invalid error: " + attributes.get(Macro.Key.ERROR));
+        return null;
+      }
+      error = errorValue.doubleValue();
+    }
+    return new Calculation(operator, ignoreInvalid, operation, mathContext,
+                           setting(Macro.Key.SCALE, attributes, DEFAULT_SCALE, MAX_SCALE),
+                           Util.roundingMode(logSource, attributes), percentile, error);
+  }
+
+  private static BinaryOperator<BigDecimal> operation(String operator, MathContext mathContext) {
+    return switch (operator) {
+      case Operator.SUM -> (left, right) -> left.add(right, mathContext);
+      case Operator.SUB -> (left, right) -> left.subtract(right, mathContext);
+      case Operator.MULTIPLY -> (left, right) -> multiply(left, right, mathContext);
+      case Operator.DIVIDE -> (left, right) -> divide(left, right, mathContext);
+      default -> null;
+    };
+  }
+
+  /**
+   * @return The numbers followed by those of the {@link NumberList}, or {@code null} if it isn't
+   *     one, or it has invalid numbers which aren't ignored.
+   */
+  private Numbers followedByList(Numbers numbers, Object list, boolean ignoreInvalid) {
+    if (!(list instanceof NumberList numberList) || (!ignoreInvalid && numberList.invalid() > 0)) {
+      logger.log(logSource, () -> "Invalid list: " + list);
+      return null;
+    }
+    return numbers.followedBy(numberList.numbers());
+  }
+
+  /**
+   * Calculates the column of the files with their sketch or summary, if the operator supports
+   * them, or with all their numbers otherwise, which are only kept together in such case.
+   */
+  private String calculateFiles(Calculation calculation, List<CsvFile> files,
+                                Map<String, Object> attributes) {
+    String column = String.valueOf(attributes.get(Macro.Key.COLUMN));
+    boolean header = Boolean.parseBoolean(String.valueOf(attributes.get(Macro.Key.HEADER))
+                                                .strip());
+    String operator = calculation.operator();
+    try {
+      if (ColumnSketch.supports(operator)) {
+        return calculateSketch(calculation, files, column, header);
+      }
+      if (Aggregates.Summary.supports(operator)) {
+        return calculateSummary(calculation, files, column, header);
+      }
+      int[] invalid = new int[1];
+      Numbers numbers = null;
+      for (CsvFile file : files) {
+        Numbers fileNumbers = file.numbers(column, header, invalid);
+        numbers = numbers == null ? fileNumbers : numbers.followedBy(fileNumbers);
+      }
+      if (!calculation.ignoreInvalid() && invalid[0] > 0) {
+        return InvalidValue.NOT_A_NUMBER;
+      }
+      return calculateNumbers(calculation, numbers);
+    } catch (IOException | IllegalArgumentException e) {
+      logger.log(logSource, () -> "Unable to read " + column + " from "
+                             + attributes.get(Macro.Key.FILE) + ": " + e);
+      return InvalidValue.NOT_A_NUMBER;
+    }
+  }
+
+  private static String calculateSketch(Calculation calculation, List<CsvFile> files,
+                                        String column, boolean header) throws IOException {
+    ColumnSketch sketch = null;
+    for (CsvFile file : files) {
+      ColumnSketch fileSketch = file.sketch(column, header, calculation.error());
+      sketch = sketch == null ? fileSketch : sketch.merge(fileSketch);
+    }
+    if (!calculation.ignoreInvalid() && sketch.invalid() > 0) {
+      return InvalidValue.NOT_A_NUMBER;
+    }
+    if (Operator.APPROX_DISTINCT.equals(calculation.operator())) {
+      return String.valueOf(sketch.distinct());
+    }
+    return calculation.result(sketch.percentile(calculation.percentile()));
+  }
+
+  private static String calculateSummary(Calculation calculation, List<CsvFile> files,
+                                         String column, boolean header) throws IOException {
+    Aggregates.Summary summary = null;
+    for (CsvFile file : files) {
+      Aggregates.Summary fileSummary = file.summary(column, header);
+      summary = summary == null ? fileSummary : summary.merge(fileSummary);
+    }
+    if (!calculation.ignoreInvalid() && summary.invalid() > 0) {
+      return InvalidValue.NOT_A_NUMBER;
+    }
+    if (Operator.COUNT.equals(calculation.operator())) {
+      return String.valueOf(summary.count());
+    }
+    return calculation.result(summary.result(calculation.operator(),
+                                             calculation.mathContext()));
+  }
+
+  /**
+   * Calculates numbers in memory: given as positional attributes, in a list, or read from files.
+   */
+  private String calculateNumbers(Calculation calculation, Numbers numbers) {
+    int precision = calculation.mathContext().getPrecision();
+    // fixed point results have at most 19 digits, so they're exact within such precision
+    if (calculation.operation() != null && numbers.fixedPoint()
+        && (precision == 0 || precision >= FixedPoint.MAX_DIGITS)) {
+      String result = FixedPoint.calculate(calculation.operator(), numbers.unscaled,
+                                           numbers.scales, numbers.size(), calculation.scale(),
+                                           calculation.roundingMode());
+      if (result != null) {
+        return result;
+      }
+    }
+    if (calculation.operation() != null) {
+      return calculation.result(calc(numbers, calculation.operation()));
+    }
+    return calculation.result(aggregate(calculation.operator(), numbers,
+                                        calculation.percentile(), calculation.mathContext()));
+  }
+
+  private static Optional<BigDecimal> aggregate(String operator, Numbers numbers,
+                                                BigDecimal percentile, MathContext mathContext) {
+    int size = numbers.size();
+    if (size == 0) {
+      return Optional.empty();
+    }
+    BigDecimal[] values = numbers.values();
+    return Optional.of(switch (operator) {
+      case Operator.AVG -> Aggregates.average(values, size, mathContext);
+      case Operator.MIN -> Aggregates.min(values, size);
+      case Operator.MAX -> Aggregates.max(values, size);
+      case Operator.VARIANCE -> Aggregates.variance(values, size, mathContext);
+      case Operator.STDDEV -> Aggregates.standardDeviation(values, size, mathContext);
+      // selection changes the order of the numbers, which may be shared (see NumberList)
+      default -> Aggregates.percentile(Arrays.copyOf(values, size), size, percentile, mathContext);
+    });
+  }
+
+  private static long distinct(Numbers numbers) {
+    Set<BigDecimal> distinct = new HashSet<>();
+    BigDecimal[] values = numbers.values();
+    for (int i = 0; i < numbers.size(); i++) {
+      distinct.add(values[i].signum() == 0 ? BigDecimal.ZERO : values[i].stripTrailingZeros());
+    }
+    return distinct.size();
+  }
 
-    Optional<BigDecimal> value;
-    switch (operator) {
-      case Operator.SUM:
-        value = calc(numbers, BigDecimal::add);
-        break;
-      case Operator.SUB:
-        value = calc(numbers, BigDecimal::subtract);
-        break;
-      case Operator.MULTIPLY:
-        value = calc(numbers, BigDecimal::multiply);
-        break;
-      case Operator.DIVIDE:
-        value = calc(numbers, BigDecimal::divide);
-        break;
-      default:
-        return InvalidValue.NOT_AN_OPERATION;
+  /**
+   * @return The files of the {@value Macro.Key#FILE} attribute, or {@code null} if it isn't a
+   *     {@link CsvFile}, nor a list of them.
+   */
+  private static List<CsvFile> csvFiles(Object files) {
+    if (files instanceof CsvFile file) {
+      return List.of(file);
     }
+    if (files instanceof List<?> list && !list.isEmpty()
+        && list.stream().allMatch(CsvFile.class::isInstance)) {
+      return list.stream().map(CsvFile.class::cast).toList();
+    }
+    return null;
+  }
 
-    RoundingMode roundingMode = Util.roundingMode(this, attributes);
-    return value.map(val -> val.setScale(2, roundingMode))
-                .map(BigDecimal::toString)
-                .orElse(InvalidValue.NOT_A_VALID_MATH);
+  /**
+   * Adds the {@value Macro.Key#DOCUMENT_SCALE} and {@value Macro.Key#DOCUMENT_PRECISION} document
+   * attributes, if any, as the {@value Macro.Key#SCALE} and {@value Macro.Key#PRECISION} attributes
+   * of the macro, unless they're already set in it. That way, they're part of the memoized
+   * invocation too.
+   */
+  static Map<String, Object> withDocumentSettings(Document document,
+                                                  Map<String, Object> attributes) {
+    if (document == null) {
+      return attributes;
+    }
+    Object scale = attributes.containsKey(Macro.Key.SCALE)
+                   ? null
+                   : document.getAttribute(Macro.Key.DOCUMENT_SCALE);
+    Object precision = attributes.containsKey(Macro.Key.PRECISION)
+                       ? null
+                       : document.getAttribute(Macro.Key.DOCUMENT_PRECISION);
+    if (scale == null && precision == null) {
+      return attributes;
+    }
+
+    Map<String, Object> merged = new HashMap<>(attributes);
+    if (scale != null) {
+      merged.put(Macro.Key.SCALE, scale);
+    }
+    if (precision != null) {
+      merged.put(Macro.Key.PRECISION, precision);
+    }
+    return merged;
   }
 
+  /**
+   * Replaces the name of the document attribute given in the {@value Macro.Key#LIST} attribute by
+   * its {@link NumberList}, if there's such a document attribute. The list identifies itself in the
+   * memoized invocation by a digest of its value.
+   */
+  static Map<String, Object> withNumberList(Document document, Map<String, Object> attributes) {
+    Object name = attributes.get(Macro.Key.LIST);
+    Object list = name == null || document == null
+                  ? null
+                  : document.getAttribute(String.valueOf(name).strip());
+    if (list == null) {
+      return attributes;
+    }
+
+    Map<String, Object> merged = new HashMap<>(attributes);
+    merged.put(Macro.Key.LIST, NumberList.of(String.valueOf(list)));
+    return merged;
+  }
+
+  /**
+   * Replaces the path given in the {@value Macro.Key#FILE} attribute by its {@link CsvFile}, if
+   * it can be read from the document, or, if it's a list of paths separated by commas, by the list
+   * of their files, if all of them can be read. The file identifies itself in the memoized
+   * invocation by its path, size and modification time, so a changed file is read again.
+   */
+  static Map<String, Object> withCsvFile(Document document, Map<String, Object> attributes) {
+    Object path = attributes.get(Macro.Key.FILE);
+    if (path == null || document == null) {
+      return attributes;
+    }
+    Object files = CsvFile.resolve(document, path);
+    if (files == null && String.valueOf(path).contains(FILE_SEPARATOR)) {
+      List<CsvFile> resolved = new ArrayList<>();
+      for (String filePath : String.valueOf(path).split(FILE_SEPARATOR)) {
+        CsvFile file = CsvFile.resolve(document, filePath);
+        if (file == null) {
+          return attributes;
+        }
+        resolved.add(file);
+      }
+      files = List.copyOf(resolved);
+    }
+    if (files == null) {
+      return attributes;
+    }
+
+    Map<String, Object> merged = new HashMap<>(attributes);
+    merged.put(Macro.Key.FILE, files);
+    return merged;
+  }
+
+  private int setting(String key, Map<String, Object> attributes, int defaultValue, int max) {
+    Object value = attributes.get(key);
+    if (value == null) {
+      return defaultValue;
+    }
+    long setting = Parsing.toInt(String.valueOf(value).trim());
+    if (setting < 0 || setting > max) {
+      logger.log(logSource, () -> "Invalid " + key + ": " + value);
+      return defaultValue;
+    }
+    return (int) setting;
+  }
 
   private static int positionalAttributesCount(Map<String, Object> attributes) {
     int configAttributeCount = 0;
@@ -90,8 +491,10 @@ public class CalcMacro extends InlineMacroProcessor implements Calc<Map<String,
         || Macro.Value.IGNORE_INVALID.equals(attributes.get(MODE_ATTRIBUTE_POSITION))) {
       configAttributeCount++;
     }
-    if (attributes.containsKey(Macro.Key.ROUNDING_MODE)) {
-      configAttributeCount++;
+    for (String key : CONFIGURATION_KEYS) {
+      if (attributes.containsKey(key)) {
+        configAttributeCount++;
+      }
     }
     return configAttributeCount;
   }
@@ -101,26 +504,148 @@ public class CalcMacro extends InlineMacroProcessor implements Calc<Map<String,
     return mode != null && Macro.Value.IGNORE_INVALID.equals(String.valueOf(mode));
   }
 
-  private List<BigDecimal> getNumbers(Map<String, Object> attributes) {
-    return attributes.entrySet()
-                     .stream()
-                     .filter(entry -> !isModeConfigEntry(entry)
-                                      && !isIgnoreInvalidConfigEntry(entry))
-                     .filter(entry -> isIntValue(entry.getKey()))
-                     .sorted((entry1, entry2) -> {
-                       int key1 = Integer.parseInt(entry1.getKey());
-                       int key2 = Integer.parseInt(entry2.getKey());
-                       return key1 - key2;
-                     })
-                     .map(Map.Entry::getValue)
-                     .map(this::getBigDecimal)
-                     .filter(Optional::isPresent)
-                     .map(Optional::get)
-                     .collect(Collectors.toList());
+  /**
+   * Numbers provided as positional attributes, sorted by their position. Numbers which fit a
+   * {@link FixedPoint} are only converted to {@link BigDecimal} if {@link #values()} is called.
+   */
+  static final class Numbers {
+    private final BigDecimal[] values;
+    private final long[] unscaled;
+    private final int[] scales;
+    private final int size;
+    private final boolean fixedPoint;
+
+    /**
+     * @param values   Numbers, only the first {@code size} ones are set, except for those with a
+     *                 scale in {@code scales}.
+     * @param unscaled Unscaled values of the {@link FixedPoint} numbers.
+     * @param scales   Scales of the {@link FixedPoint} numbers, or
+     *                 {@link FixedPoint#NOT_FIXED_POINT} for the rest.
+     * @param size     Amount of numbers.
+     */
+    Numbers(BigDecimal[] values, long[] unscaled, int[] scales, int size) {
+      this.values = values;
+      this.unscaled = unscaled;
+      this.scales = scales;
+      this.size = size;
+      boolean allFixedPoint = scales != null;
+      for (int i = 0; allFixedPoint && i < size; i++) {
+        allFixedPoint = scales[i] != FixedPoint.NOT_FIXED_POINT;
+      }
+      this.fixedPoint = allFixedPoint;
+    }
+
+    Numbers(BigDecimal[] values, int size) {
+      this(values, null, null, size);
+    }
+
+    BigDecimal[] values() {
+      for (int i = 0; i < size; i++) {
+        if (values[i] == null) {
+          values[i] = BigDecimal.valueOf(unscaled[i], scales[i]);
+        }
+      }
+      return values;
+    }
+
+    int size() {
+      return size;
+    }
+
+    /**
+     * @return These numbers followed by the given ones, without modifying any of them.
+     */
+    Numbers followedBy(Numbers next) {
+      if (next.size == 0) {
+        return this;
+      }
+      if (size == 0) {
+        return next;
+      }
+      int total = size + next.size;
+      BigDecimal[] joinedValues = Arrays.copyOf(values(), total);
+      System.arraycopy(next.values(), 0, joinedValues, size, next.size);
+      if (!fixedPoint || !next.fixedPoint) {
+        return new Numbers(joinedValues, total);
+      }
+      long[] joinedUnscaled = Arrays.copyOf(unscaled, total);
+      System.arraycopy(next.unscaled, 0, joinedUnscaled, size, next.size);
+      int[] joinedScales = Arrays.copyOf(scales, total);
+      System.arraycopy(next.scales, 0, joinedScales, size, next.size);
+      return new Numbers(joinedValues, joinedUnscaled, joinedScales, total);
+    }
+
+    /**
+     * @return Whether every number fits a {@link FixedPoint}.
+     */
+    boolean fixedPoint() {
+      return fixedPoint;
+    }
+  }
+
+  /**
+   * Collects the valid numbers provided as positional attributes in a single pass, placing each
+   * of them at the index given by its position, so no sorting is needed. Positions outside the
+   * expected range, or repeated (i.e.: {@code 1} and {@code 01}), are rare, and sorted instead.
+   */
+  static Numbers getNumbers(Map<String, Object> attributes) {
+    int capacity = attributes.size() + 1;
+    BigDecimal[] numbers = new BigDecimal[capacity];
+    long[] unscaled = new long[capacity];
+    int[] scales = new int[capacity];
+    boolean[] present = new boolean[capacity];
+    for (Map.Entry<String, Object> entry : attributes.entrySet()) {
+      long position = Parsing.toInt(entry.getKey());
+      if (position == Parsing.NOT_AN_INT || isIgnoreInvalidConfigEntry(entry)) {
+        continue;
+      }
+      if (position < 0 || position >= capacity || present[(int) position]) {
+        if (Parsing.toBigDecimal(entry.getValue()) == null) {
+          continue;
+        }
+        return getSortedNumbers(attributes);
+      }
+
+      int index = (int) position;
+      Object value = entry.getValue();
+      int scale = value == null
+                  ? FixedPoint.NOT_FIXED_POINT
+                  : FixedPoint.parse(String.valueOf(value), unscaled, index);
+      if (scale == FixedPoint.NOT_FIXED_POINT) {
+        BigDecimal number = Parsing.toBigDecimal(value);
+        if (number == null) {
+          continue;
+        }
+        numbers[index] = number;
+      }
+      scales[index] = scale;
+      present[index] = true;
+    }
+
+    int size = 0;
+    for (int i = 0; i < capacity; i++) {
+      if (present[i]) {
+        numbers[size] = numbers[i];
+        unscaled[size] = unscaled[i];
+        scales[size] = scales[i];
+        size++;
+      }
+    }
+    return new Numbers(numbers, unscaled, scales, size);
   }
 
-  private static boolean isModeConfigEntry(Map.Entry<String, Object> entry) {
-    return Macro.Key.MODE.equals(entry.getKey());
+  private static Numbers getSortedNumbers(Map<String, Object> attributes) {
+    List<Map.Entry<Long, BigDecimal>> numbers = new ArrayList<>(attributes.size());
+    for (Map.Entry<String, Object> entry : attributes.entrySet()) {
+      long position = Parsing.toInt(entry.getKey());
+      BigDecimal number = Parsing.toBigDecimal(entry.getValue());
+      if (position != Parsing.NOT_AN_INT && !isIgnoreInvalidConfigEntry(entry) && number != null) {
+        numbers.add(Map.entry(position, number));
+      }
+    }
+    numbers.sort(Map.Entry.comparingByKey());
+    return new Numbers(numbers.stream().map(Map.Entry::getValue).toArray(BigDecimal[]::new),
+                       numbers.size());
   }
 
   private static boolean isIgnoreInvalidConfigEntry(Map.Entry<String, Object> entry) {
@@ -128,30 +653,52 @@ public class CalcMacro extends InlineMacroProcessor implements Calc<Map<String,
            && Macro.Value.IGNORE_INVALID.equals(entry.getValue());
   }
 
-  private static boolean isIntValue(String rawValue) {
-    try {
-      Integer.parseInt(rawValue);
-    } catch (NullPointerException | NumberFormatException e) {
-      return false;
+  /**
+   * @return The product, rounded to the precision of {@code mathContext} if any.
+   *
+   * @throws ArithmeticException If the product has more than {@link #MAX_RESULT_DIGITS} integer
+   *                             digits, or significant ones if there's no precision.
+   */
+  static BigDecimal multiply(BigDecimal left, BigDecimal right, MathContext mathContext) {
+    // the exact product has at least as many digits as its factors together, minus one
+    if (mathContext.getPrecision() == 0
+        && left.precision() + right.precision() - 1 > MAX_RESULT_DIGITS) {
+      throw new ArithmeticException("Product with more than " + MAX_RESULT_DIGITS + " digits");
     }
-    return true;
+    BigDecimal product = left.multiply(right, mathContext);
+    if (product.precision() > MAX_RESULT_DIGITS
+        || product.precision() - (long) product.scale() > MAX_RESULT_DIGITS) {
+      throw new ArithmeticException("Product with more than " + MAX_RESULT_DIGITS + " digits");
+    }
+    return product;
   }
 
-  private Optional<BigDecimal> getBigDecimal(Object value) {
-    if (value == null) {
-      return Optional.empty();
+  /**
+   * @return The quotient, rounded to the precision of {@code mathContext} if any. Without it, the
+   *     exact quotient, or the one of {@link MathContext#DECIMAL128} if it doesn't terminate (or
+   *     has more than {@link #MAX_RESULT_DIGITS} digits).
+   *
+   * @throws ArithmeticException If {@code right} is zero.
+   */
+  static BigDecimal divide(BigDecimal left, BigDecimal right, MathContext mathContext) {
+    if (mathContext.getPrecision() != 0 || right.signum() == 0) {
+      return left.divide(right, mathContext);
     }
     try {
-      return Optional.of(new BigDecimal(String.valueOf(value)));
-    } catch (NullPointerException | NumberFormatException e) {
-      return Optional.empty();
+      BigDecimal quotient = left.divide(right);
+      return quotient.precision() > MAX_RESULT_DIGITS
+             ? quotient.round(MathContext.DECIMAL128)
+             : quotient;
+    } catch (ArithmeticException e) {
+      return left.divide(right, MathContext.DECIMAL128);
     }
   }
 
-  private Optional<BigDecimal> calc(Collection<BigDecimal> numbers,
-                                    BinaryOperator<BigDecimal> operation) {
+  private Optional<BigDecimal> calc(Numbers numbers, BinaryOperator<BigDecimal> operation) {
+    BigDecimal[] values = numbers.values();
     BigDecimal result = null;
-    for (BigDecimal number : numbers) {
+    for (int i = 0; i < numbers.size(); i++) {
+      BigDecimal number = values[i];
       if (result == null) {
         result = number;
       } else {
@@ -0,0 +1,245 @@
+package com.lealceldeiro.asciidoc.extensions.calc;
+
+import com.lealceldeiro.asciidoc.extensions.InvalidValue;
+import com.lealceldeiro.asciidoc.extensions.Macro;
+import com.lealceldeiro.asciidoc.extensions.Parsing;
+import com.lealceldeiro.asciidoc.extensions.calclogger.ExtensionLogger;
+import com.lealceldeiro.asciidoc.extensions.calclogger.ExtensionLoggerFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ObjIntConsumer;
+import org.asciidoctor.ast.Cell;
+import org.asciidoctor.ast.Column;
+import org.asciidoctor.ast.Document;
+import org.asciidoctor.ast.Row;
+import org.asciidoctor.ast.StructuralNode;
+import org.asciidoctor.ast.Table;
+import org.asciidoctor.extension.Treeprocessor;
+
+/**
+ * Calculates aggregates of the columns of tables, with the operators of {@link CalcMacro}, given
+ * as {@code operator:column} in the {@value Macro.Key#TABLE_FOOTER} attribute of the table, whose
+ * results are added as footer rows, or as {@code name=operator:column} in its
+ * {@value Macro.Key#TABLE_ATTRIBUTES} attribute, whose results are set as document attributes:
+ *
+ * <pre>
+ * [%header, calc-footer="sum:3, avg:price", calc-attributes="total=sum:3"]
+ * </pre>
+ *
+ * <p>Columns are given by their name, if the table has a header, or by their position (from
+ * {@code 1}). Each table is walked once, whatever the amount of aggregates, collecting the text of
+ * the cells of the aggregated columns, which is parsed as a {@link NumberList}, so cells follow the
+ * same rules as the numbers of the macro. The settings of the macro (i.e.:
+ * {@value Macro.Key#SCALE}) are given as attributes of the table, prefixed with
+ * {@value Macro.Key#TABLE_SETTING_PREFIX} (i.e.: {@code calc-scale=3}).
+ */
+public class CalcTableProcessor extends Treeprocessor {
+  private static final ExtensionLogger logger = ExtensionLoggerFactory.getInstance();
+  static final String AGGREGATE_SEPARATOR = ",";
+  static final String COLUMN_SEPARATOR = ":";
+  static final String NAME_SEPARATOR = "=";
+  static final List<String> SETTINGS = List.of(Macro.Key.MODE, Macro.Key.ROUNDING_MODE,
+                                               Macro.Key.SCALE, Macro.Key.PRECISION,
+                                               Macro.Key.PERCENTILE, Macro.Key.ERROR);
+  private static final Map<Object, Object> TABLES = Map.of("context", ":table");
+
+  private final CalcMacro calcMacro = new CalcMacro(this);
+
+  /**
+   * Aggregate of a column, set as the document attribute {@code name}, or added to the footer if
+   * there's no name.
+   */
+  record Aggregate(String name, String operator, String column) {
+  }
+
+  @Override
+  public Document process(Document document) {
+    for (StructuralNode node : document.findBy(TABLES)) {
+      if (node instanceof Table table) {
+        List<Aggregate> footer = aggregates(table.getAttribute(Macro.Key.TABLE_FOOTER), false);
+        List<Aggregate> named = aggregates(table.getAttribute(Macro.Key.TABLE_ATTRIBUTES), true);
+        if (!footer.isEmpty() || !named.isEmpty()) {
+          process(document, table, footer, named);
+        }
+      }
+    }
+    return document;
+  }
+
+  private void process(Document document, Table table, List<Aggregate> footer,
+                       List<Aggregate> named) {
+    List<Column> columns = table.getColumns();
+    Map<String, Integer> headerNames = headerNames(table);
+    Map<String, Integer> positions = new HashMap<>();
+    Map<Integer, List<String>> cells = new HashMap<>();
+    for (List<Aggregate> aggregates : List.of(footer, named)) {
+      for (Aggregate aggregate : aggregates) {
+        int position = positions.computeIfAbsent(
+            aggregate.column(), column -> position(column, headerNames, columns.size()));
+        if (position >= 0) {
+          cells.putIfAbsent(position, new ArrayList<>());
+        }
+      }
+    }
+
+    if (!cells.isEmpty()) {
+      forEachCell(table.getBody(), columns.size(), (cell, position) -> {
+        List<String> values = cells.get(position);
+        if (values != null) {
+          values.add(cell.getText());
+        }
+      });
+    }
+    Map<Integer, NumberList> lists = new HashMap<>();
+    cells.forEach((position, values) -> lists.put(position, NumberList.parse(values)));
+    Map<String, Object> settings = settings(document, table);
+
+    // the n-th aggregate of a column goes to the n-th footer row
+    List<Map<Integer, String>> footerRows = new ArrayList<>();
+    for (Aggregate aggregate : footer) {
+      int position = positions.get(aggregate.column());
+      if (position < 0) {
+        logger.log(this, () -> "Unknown column: " + aggregate.column());
+        continue;
+      }
+      String result = calculate(aggregate.operator(), lists.get(position), settings);
+      int row = 0;
+      while (row < footerRows.size() && footerRows.get(row).containsKey(position)) {
+        row++;
+      }
+      if (row == footerRows.size()) {
+        footerRows.add(new HashMap<>());
+      }
+      footerRows.get(row).put(position, result);
+    }
+    for (Map<Integer, String> values : footerRows) {
+      Row row = createTableRow(table);
+      for (int i = 0; i < columns.size(); i++) {
+        row.getCells().add(createTableCell(columns.get(i), values.getOrDefault(i, "")));
+      }
+      table.getFooter().add(row);
+    }
+
+    for (Aggregate aggregate : named) {
+      int position = positions.get(aggregate.column());
+      if (position < 0) {
+        logger.log(this, () -> "Unknown column: " + aggregate.column());
+      }
+      String result = position < 0
+                      ? InvalidValue.NOT_A_NUMBER
+                      : calculate(aggregate.operator(), lists.get(position), settings);
+      document.setAttribute(aggregate.name(), result, true);
+    }
+  }
+
+  private String calculate(String operator, NumberList list, Map<String, Object> settings) {
+    Map<String, Object> attributes = new HashMap<>(settings);
+    attributes.put(Macro.Key.LIST, list);
+    return calcMacro.calculate(operator, attributes);
+  }
+
+  /**
+   * Parses the aggregates separated by {@value #AGGREGATE_SEPARATOR}, as {@code operator:column},
+   * or {@code name=operator:column} if they're {@code named}. Invalid ones are ignored.
+   */
+  List<Aggregate> aggregates(Object value, boolean named) {
+    if (value == null) {
+      return List.of();
+    }
+    List<Aggregate> aggregates = new ArrayList<>();
+    for (String item : String.valueOf(value).split(AGGREGATE_SEPARATOR)) {
+      String aggregate = item.strip();
+      if (aggregate.isEmpty()) {
+        continue;
+      }
+      String name = null;
+      if (named) {
+        int nameEnd = aggregate.indexOf(NAME_SEPARATOR);
+        name = nameEnd > 0 ? aggregate.substring(0, nameEnd).strip() : "";
+        aggregate = aggregate.substring(nameEnd + 1).strip();
+      }
+      int operatorEnd = aggregate.indexOf(COLUMN_SEPARATOR);
+      if (operatorEnd <= 0 || (named && name.isEmpty())) {
+        logger.log(this, () -> "Invalid aggregate: " + item);
+        continue;
+      }
+      aggregates.add(new Aggregate(name, aggregate.substring(0, operatorEnd).strip(),
+                                   aggregate.substring(operatorEnd + 1).strip()));
+    }
+    return aggregates;
+  }
+
+  /**
+   * @return The position (from {@code 0}) of the column with the given name, or, if there's none,
+   *     at the given position (from {@code 1}), or {@code -1} if there's no such column.
+   */
+  static int position(String column, Map<String, Integer> headerNames, int columns) {
+    Integer position = headerNames.get(column);
+    if (position != null) {
+      return position;
+    }
+    long number = Parsing.toInt(column);
+    return number > 0 && number <= columns ? (int) number - 1 : -1;
+  }
+
+  /**
+   * @return The positions (from {@code 0}) of the columns, by the name in the first header row.
+   */
+  private static Map<String, Integer> headerNames(Table table) {
+    Map<String, Integer> names = new HashMap<>();
+    List<Row> header = table.getHeader();
+    if (!header.isEmpty()) {
+      forEachCell(header.subList(0, 1), table.getColumns().size(),
+                  (cell, position) -> names.putIfAbsent(cell.getText().strip(), position));
+    }
+    return names;
+  }
+
+  /**
+   * Walks the cells of the rows, with the position (from {@code 0}) of their first column, given by
+   * the spans of the previous cells, as the column set by Asciidoctor in the cells doesn't take them
+   * into account.
+   */
+  static void forEachCell(List<Row> rows, int columns, ObjIntConsumer<Cell> cells) {
+    // amount of rows, from the current one, spanned by a cell above, by position
+    int[] spanned = new int[columns];
+    for (Row row : rows) {
+      int position = 0;
+      for (Cell cell : row.getCells()) {
+        while (position < columns && spanned[position] > 0) {
+          position++;
+        }
+        if (position == columns) {
+          break;
+        }
+        cells.accept(cell, position);
+        int end = Math.min(columns, position + Math.max(1, cell.getColspan()));
+        Arrays.fill(spanned, position, end, Math.max(1, cell.getRowspan()));
+        position = end;
+      }
+      for (int i = 0; i < columns; i++) {
+        if (spanned[i] > 0) {
+          spanned[i]--;
+        }
+      }
+    }
+  }
+
+  /**
+   * Settings of the macro, given as attributes of the table (prefixed with
+   * {@value Macro.Key#TABLE_SETTING_PREFIX}), or of the document, as for the macro.
+   */
+  private static Map<String, Object> settings(Document document, Table table) {
+    Map<String, Object> settings = new HashMap<>();
+    for (String key : SETTINGS) {
+      Object value = table.getAttribute(Macro.Key.TABLE_SETTING_PREFIX + key);
+      if (value != null) {
+        settings.put(key, value);
+      }
+    }
+    return CalcMacro.withDocumentSettings(document, settings);
+  }
+}
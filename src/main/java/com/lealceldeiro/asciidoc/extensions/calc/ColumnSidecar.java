@@ -0,0 +1,760 @@
+package com.lealceldeiro.asciidoc.extensions.calc;
+
+import com.lealceldeiro.asciidoc.extensions.Macro;
+import com.lealceldeiro.asciidoc.extensions.Parsing;
+import com.lealceldeiro.asciidoc.extensions.Util;
+import com.lealceldeiro.asciidoc.extensions.calclogger.ExtensionLogger;
+import com.lealceldeiro.asciidoc.extensions.calclogger.ExtensionLoggerFactory;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+import java.util.function.ObjIntConsumer;
+import java.util.zip.CRC32C;
+
+/**
+ * Optional binary, columnar, cache of the numbers of a {@link CsvFile}, so its columns are scanned
+ * as {@code long} values in mapped memory, instead of parsing the file again, even in later
+ * builds. Sidecars are stored in the directory given by the system property
+ * {@code asciidoc.extensions.calc_file_sidecar_dir} (never by the document, so it can't write
+ * outside of the directories chosen by whoever runs the build), or, if not set, in
+ * {@value #DIRECTORY} within the
+ * {@link Util#buildDirectory(Path) build directory} of the project of the document (or
+ * {@value #DEFAULT_DIRECTORY}, relative to the working directory, if there's none), named after
+ * the CSV file and a hash of its path (i.e.: {@code sales.csv-0123456789abcdef.calccol}).
+ *
+ * <p>The file starts with a header ({@link #MAGIC}, {@link #FORMAT_VERSION}, and the size,
+ * modification time, and CRC32C checksum of the CSV file) followed by a section per column: its
+ * key (header flag and column), the scale of its numbers, the amount of values, the amount of
+ * them which aren't numbers, and the CRC32C checksum of the stored values, followed by the
+ * unscaled value of every number, with the same scale (or {@link #INVALID}, for values which
+ * aren't numbers). Columns whose numbers don't fit such representation (i.e.: with more than
+ * {@link FixedPoint#MAX_SCALE} decimals) are stored without values, with the scale
+ * {@link #NOT_REPRESENTABLE}, so they're always read from the CSV file.
+ *
+ * <p>The sidecar is discarded when the size of the CSV file changes, or when its modification
+ * time changes and so does its checksum, and when the checksum of a column doesn't match its
+ * values. New columns are appended to the sidecar, under a lock, so the checksum of the CSV file
+ * is only calculated when the sidecar is created, and readers don't see a column until it's
+ * complete. Otherwise, sidecars are never modified in place (except for the modification time of
+ * the CSV file, under the same lock): a new one replaces them.
+ */
+final class ColumnSidecar {
+  static final String EXTENSION = ".calccol";
+  static final String DIRECTORY = "asciidoc-extensions/sidecars";
+  /**
+   * Used when the document isn't within a Maven or Gradle project, relative to the working
+   * directory.
+   */
+  static final String DEFAULT_DIRECTORY = "target/" + DIRECTORY;
+  static final String LOCK_SUFFIX = ".lock";
+  static final String ENABLED_VALUE = "on";
+  static final int FORMAT_VERSION = 2;
+  static final int NOT_REPRESENTABLE = -1;
+  static final long INVALID = Long.MIN_VALUE;
+
+  private static final ExtensionLogger logger = ExtensionLoggerFactory.getInstance();
+  private static final byte[] MAGIC = "CALCCOL".getBytes(StandardCharsets.US_ASCII);
+  private static final int HEADER_SIZE = MAGIC.length + Integer.BYTES + 3 * Long.BYTES;
+  private static final int MODIFICATION_TIME_OFFSET = MAGIC.length + Integer.BYTES + Long.BYTES;
+  private static final int CHECKSUM_OFFSET = MODIFICATION_TIME_OFFSET + Long.BYTES;
+  /**
+   * Scale of a section whose values are being written: it's only complete once the actual scale
+   * replaces it.
+   */
+  private static final int PENDING = -2;
+  private static final int PATH_HASH_LENGTH = 8;
+  private static final int BUFFER_SIZE = 64 * 1024;
+  private static final long[] POWERS_OF_TEN = new long[FixedPoint.MAX_SCALE + 1];
+
+  static {
+    POWERS_OF_TEN[0] = 1;
+    for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+      POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+    }
+  }
+
+  private ColumnSidecar() {
+  }
+
+  static boolean isEnabled(Object sidecarAttribute) {
+    return ENABLED_VALUE.equalsIgnoreCase(Util.setting(Macro.Key.FILE_SIDECAR, sidecarAttribute,
+                                                       "off"));
+  }
+
+  /**
+   * @param file CSV file.
+   * @param baseDirectory Base directory of the document.
+   */
+  static Path path(Path file, Path baseDirectory) {
+    String setting = Util.setting(Macro.Key.FILE_SIDECAR_DIRECTORY, null, null);
+    Path directory = setting != null
+                     ? Path.of(setting)
+                     : Util.buildDirectory(baseDirectory)
+                           .map(buildDirectory -> buildDirectory.resolve(DIRECTORY))
+                           .orElseGet(() -> Path.of(DEFAULT_DIRECTORY));
+    Path csv = file.toAbsolutePath().normalize();
+    return directory.resolve(csv.getFileName() + "-" + hash(csv.toString()) + EXTENSION)
+                    .toAbsolutePath().normalize();
+  }
+
+  private static String hash(String value) {
+    try {
+      MessageDigest digest = MessageDigest.getInstance("SHA-256");
+      return HexFormat.of().formatHex(digest.digest(value.getBytes(StandardCharsets.UTF_8)), 0,
+                                      PATH_HASH_LENGTH);
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 not available", e);
+    }
+  }
+
+  /**
+   * Numbers of a column stored in a sidecar, all of them with the same scale.
+   *
+   * @param windows Mapped values, which stay valid even if the sidecar is replaced.
+   */
+  record Column(int scale, long count, long invalid, List<LongBuffer> windows) {
+    void forEach(LongConsumer values) {
+      forEachChunk((chunk, length) -> {
+        for (int i = 0; i < length; i++) {
+          values.accept(chunk[i]);
+        }
+      });
+    }
+
+    /**
+     * Copies the values, in order, into a reused array, given with the amount of values copied.
+     */
+    void forEachChunk(ObjIntConsumer<long[]> chunks) {
+      long[] chunk = new long[BUFFER_SIZE / Long.BYTES];
+      for (LongBuffer window : windows) {
+        LongBuffer buffer = window.duplicate();
+        while (buffer.hasRemaining()) {
+          int length = Math.min(chunk.length, buffer.remaining());
+          buffer.get(chunk, 0, length);
+          chunks.accept(chunk, length);
+        }
+      }
+    }
+
+    /**
+     * Sequential scan calculating the {@link Aggregates.Summary} of the column with
+     * {@code long} arithmetic, by chunks aggregated by the {@link LongKernel}: sums are
+     * accumulated in 128 bits, and only the final results are converted to {@link BigDecimal}.
+     */
+    Aggregates.Summary summary() {
+      Accumulator accumulator = new Accumulator();
+      forEachChunk(accumulator::accept);
+      return accumulator.summary(scale, invalid);
+    }
+
+    /**
+     * @param invalid Where the amount of values which aren't numbers is added.
+     */
+    CalcMacro.Numbers numbers(int[] invalid) throws IOException {
+      long size = count - this.invalid;
+      if (size > Integer.MAX_VALUE - 8) {
+        throw new IOException("Too many numbers: " + size);
+      }
+      long[] unscaled = new long[(int) size];
+      int[] index = new int[1];
+      forEach(value -> {
+        if (value != INVALID) {
+          unscaled[index[0]++] = value;
+        }
+      });
+      int[] scales = new int[unscaled.length];
+      Arrays.fill(scales, scale);
+      invalid[0] += (int) Math.min(Integer.MAX_VALUE, this.invalid);
+      return new CalcMacro.Numbers(new BigDecimal[unscaled.length], unscaled, scales,
+                                   unscaled.length);
+    }
+  }
+
+  /**
+   * Returns the column from the sidecar of the file, adding it to the sidecar (or creating it) the
+   * first time.
+   *
+   * @return The column, or {@code null} if the file has no sidecar, the column can't be stored in
+   *     it, or it can't be read or written, in which case the column must be read from the CSV
+   *     file.
+   *
+   * @throws IllegalArgumentException If there's no such column.
+   */
+  static Column column(CsvFile file, String column, boolean header) {
+    Path sidecar = file.sidecar();
+    if (sidecar == null) {
+      return null;
+    }
+    String key = (header ? "header:" : "position:") + column.strip();
+    try {
+      Column found;
+      try {
+        found = find(sidecar, file, key);
+      } catch (IOException e) {
+        // it is replaced by add, while locked, as other processes may be writing it
+        found = null;
+      }
+      if (found == null) {
+        add(sidecar, file, key, column, header);
+        found = find(sidecar, file, key);
+      }
+      return found == null || found.scale() == NOT_REPRESENTABLE ? null : found;
+    } catch (IOException e) {
+      logger.log(null, () -> "Column sidecar " + sidecar + " not available: " + e);
+      return null;
+    }
+  }
+
+  /**
+   * Section of a column, whose values start at {@code values}.
+   */
+  private record Section(int scale, long count, long invalid, long checksum, long values,
+                         long valuesSize) {
+  }
+
+  private static Column find(Path sidecar, CsvFile file, String key) throws IOException {
+    if (!Files.isRegularFile(sidecar)) {
+      return null;
+    }
+    try (FileChannel channel = FileChannel.open(sidecar, StandardOpenOption.READ)) {
+      if (!isValid(channel, sidecar, file, false)) {
+        return null;
+      }
+      Section section = section(channel, key, new long[1]);
+      return section == null ? null : read(channel, section, key);
+    }
+  }
+
+  /**
+   * @throws IOException If the checksum of the values doesn't match.
+   */
+  private static Column read(FileChannel channel, Section section, String key)
+      throws IOException {
+    List<ByteBuffer> windows = map(channel, section.values(), section.valuesSize());
+    CRC32C checksum = new CRC32C();
+    windows.forEach(window -> checksum.update(window.duplicate()));
+    if (checksum.getValue() != section.checksum()) {
+      throw new IOException("Checksum of column " + key + " doesn't match");
+    }
+    return new Column(section.scale(), section.count(), section.invalid(),
+                      windows.stream().map(ByteBuffer::asLongBuffer).toList());
+  }
+
+  /**
+   * Looks for the section of the key among the complete ones: a trailing section which is still
+   * being written by another process (or was left incomplete by one which stopped) isn't one, as
+   * sections are only appended while the sidecar is locked.
+   *
+   * @param end Where the end of the last complete section is set, if there's no such section.
+   *
+   * @return The section of the key, or {@code null} if there's none.
+   *
+   * @throws IOException If a complete section is corrupted.
+   */
+  private static Section section(FileChannel channel, String key, long[] end)
+      throws IOException {
+    long position = HEADER_SIZE;
+    long size = channel.size();
+    while (position + Integer.BYTES <= size) {
+      int length = readFully(channel, position, Integer.BYTES).getInt();
+      long headerSize = Integer.BYTES + (long) length + Integer.BYTES + 3 * Long.BYTES;
+      if (length < 0 || position + headerSize > size) {
+        break;
+      }
+      ByteBuffer header = readFully(channel, position + Integer.BYTES,
+                                    (int) headerSize - Integer.BYTES);
+      byte[] sectionKey = new byte[length];
+      header.get(sectionKey);
+      int scale = header.getInt();
+      long count = header.getLong();
+      long invalid = header.getLong();
+      long checksum = header.getLong();
+      if (scale == PENDING) {
+        break;
+      }
+      long values = position + headerSize;
+      long valuesSize = scale == NOT_REPRESENTABLE ? 0 : count * Long.BYTES;
+      if (count < 0 || values + valuesSize > size) {
+        throw new IOException("Corrupted sidecar");
+      }
+      if (key.equals(new String(sectionKey, StandardCharsets.UTF_8))) {
+        return new Section(scale, count, invalid, checksum, values, valuesSize);
+      }
+      position = values + valuesSize;
+    }
+    end[0] = position;
+    return null;
+  }
+
+  /**
+   * Whether the sidecar belongs to the current version of the file. If only the modification
+   * time of the file changed, but not its content, the sidecar is updated with the new one.
+   *
+   * @param locked Whether the sidecar is locked, and {@code channel} open to write it.
+   */
+  private static boolean isValid(FileChannel channel, Path sidecar, CsvFile file, boolean locked)
+      throws IOException {
+    if (channel.size() < HEADER_SIZE) {
+      return false;
+    }
+    ByteBuffer header = readFully(channel, 0, HEADER_SIZE);
+    byte[] magic = new byte[MAGIC.length];
+    header.get(magic);
+    if (!Arrays.equals(MAGIC, magic) || header.getInt() != FORMAT_VERSION
+        || header.getLong() != file.size()) {
+      return false;
+    }
+    long lastModified = header.getLong();
+    long checksum = header.getLong();
+    if (lastModified == file.lastModified()) {
+      return true;
+    }
+    if (checksum != checksum(file)) {
+      return false;
+    }
+    try {
+      if (locked) {
+        writeModificationTime(channel, file);
+      } else {
+        locked(sidecar, () -> {
+          try (FileChannel out = FileChannel.open(sidecar, StandardOpenOption.READ,
+                                                  StandardOpenOption.WRITE)) {
+            // unless it was replaced meanwhile
+            if (out.size() >= HEADER_SIZE
+                && readFully(out, CHECKSUM_OFFSET, Long.BYTES).getLong() == checksum) {
+              writeModificationTime(out, file);
+            }
+          }
+        });
+      }
+    } catch (IOException e) {
+      // the checksum is calculated again next time
+      logger.log(null, () -> "Column sidecar " + sidecar + " not updated: " + e);
+    }
+    return true;
+  }
+
+  private static void writeModificationTime(FileChannel out, CsvFile file) throws IOException {
+    out.write(ByteBuffer.allocate(Long.BYTES).putLong(0, file.lastModified()),
+              MODIFICATION_TIME_OFFSET);
+  }
+
+  /**
+   * Appends the section of the column to the sidecar, or, if it doesn't belong to the current
+   * version of the file or it's corrupted, replaces it with a new one with only that section.
+   */
+  private static void add(Path sidecar, CsvFile file, String key, String column, boolean header)
+      throws IOException {
+    locked(sidecar, () -> {
+      if (Files.isRegularFile(sidecar)) {
+        try (FileChannel out = FileChannel.open(sidecar, StandardOpenOption.READ,
+                                                StandardOpenOption.WRITE)) {
+          if (isValid(out, sidecar, file, true)
+              && append(out, sidecar, file, key, column, header)) {
+            return;
+          }
+        }
+      }
+      create(sidecar, file, key, column, header);
+    });
+  }
+
+  /**
+   * Appends the section of the column, unless other processes added it since it was looked for.
+   *
+   * @return Whether the sidecar has the section, or {@code false} if it's corrupted.
+   */
+  private static boolean append(FileChannel out, Path sidecar, CsvFile file, String key,
+                                String column, boolean header) throws IOException {
+    long[] end = new long[1];
+    try {
+      Section section = section(out, key, end);
+      if (section != null) {
+        read(out, section, key);
+        return true;
+      }
+    } catch (IOException e) {
+      logger.log(null, () -> "Column sidecar " + sidecar + " corrupted, replaced: " + e);
+      return false;
+    }
+    // a trailing incomplete section is left by a process which stopped while writing it
+    out.truncate(end[0]);
+    out.position(end[0]);
+    writeSection(file, key, column, header, out);
+    return true;
+  }
+
+  private interface Write {
+    void run() throws IOException;
+  }
+
+  /**
+   * Writes the sidecar while it's locked (by a {@value #LOCK_SUFFIX} file, as it may be replaced),
+   * so processes building the same documents don't write it at the same time.
+   */
+  private static synchronized void locked(Path sidecar, Write write) throws IOException {
+    Files.createDirectories(sidecar.getParent());
+    Path lock = sidecar.resolveSibling(sidecar.getFileName() + LOCK_SUFFIX);
+    try (FileChannel lockChannel = FileChannel.open(lock, StandardOpenOption.CREATE,
+                                                    StandardOpenOption.WRITE);
+         FileLock ignored = lockChannel.lock()) {
+      write.run();
+    }
+  }
+
+  private static void create(Path sidecar, CsvFile file, String key, String column,
+                             boolean header) throws IOException {
+    Path copy = Files.createTempFile(sidecar.getParent(), sidecar.getFileName().toString(),
+                                     ".tmp");
+    try {
+      try (FileChannel out = FileChannel.open(copy, StandardOpenOption.WRITE)) {
+        out.write(ByteBuffer.allocate(HEADER_SIZE).put(MAGIC).putInt(FORMAT_VERSION)
+                            .putLong(file.size()).putLong(file.lastModified())
+                            .putLong(checksum(file)).flip());
+        writeSection(file, key, column, header, out);
+      }
+      try {
+        Files.move(copy, sidecar, StandardCopyOption.REPLACE_EXISTING,
+                   StandardCopyOption.ATOMIC_MOVE);
+      } catch (AtomicMoveNotSupportedException e) {
+        Files.move(copy, sidecar, StandardCopyOption.REPLACE_EXISTING);
+      }
+    } finally {
+      Files.deleteIfExists(copy);
+    }
+  }
+
+  /**
+   * Writes the section of the column at the position of {@code out}.
+   */
+  private static void writeSection(CsvFile file, String key, String column, boolean header,
+                                   FileChannel out) throws IOException {
+    Path sidecar = file.sidecar();
+    Path records = Files.createTempFile(sidecar.getParent(), sidecar.getFileName().toString(),
+                                        ".records");
+    try {
+      RecordWriter writer = new RecordWriter(records);
+      try (writer) {
+        file.readColumn(column, header, writer);
+      } catch (UncheckedIOException e) {
+        throw e.getCause();
+      }
+      writer.writeSection(key, out);
+    } finally {
+      Files.deleteIfExists(records);
+    }
+  }
+
+  /**
+   * Writes every value of the column as its unscaled value and scale, to find the scale they all
+   * fit in, before writing the section.
+   */
+  private static final class RecordWriter implements Consumer<String>, AutoCloseable {
+    private static final int RECORD_SIZE = Long.BYTES + 1;
+
+    private final Path path;
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE * RECORD_SIZE);
+    private final long[] unscaled = new long[1];
+    private long count;
+    private long invalid;
+    private int scale;
+    private boolean representable = true;
+
+    RecordWriter(Path path) throws IOException {
+      this.path = path;
+      this.channel = FileChannel.open(path, StandardOpenOption.WRITE);
+    }
+
+    @Override
+    public void accept(String value) {
+      count++;
+      int valueScale = FixedPoint.parse(value, unscaled, 0);
+      if (valueScale == FixedPoint.NOT_FIXED_POINT) {
+        BigDecimal number = Parsing.toBigDecimal(value);
+        if (number == null) {
+          invalid++;
+          write(INVALID, 0);
+          return;
+        }
+        valueScale = fit(number);
+        if (valueScale == FixedPoint.NOT_FIXED_POINT) {
+          representable = false;
+          return;
+        }
+      }
+      scale = Math.max(scale, valueScale);
+      write(unscaled[0], valueScale);
+    }
+
+    /**
+     * Numbers with an exponent (i.e.: {@code 1E+3}), or trailing zeros beyond
+     * {@link FixedPoint#MAX_SCALE} decimals, may fit too.
+     */
+    private int fit(BigDecimal number) {
+      BigDecimal fitted = number.scale() < 0 ? number.setScale(0) : number.stripTrailingZeros();
+      if (fitted.scale() < 0) {
+        fitted = fitted.setScale(0);
+      }
+      if (fitted.scale() > FixedPoint.MAX_SCALE || fitted.unscaledValue().bitLength() > 63
+          || fitted.unscaledValue().longValue() == INVALID) {
+        return FixedPoint.NOT_FIXED_POINT;
+      }
+      unscaled[0] = fitted.unscaledValue().longValue();
+      return fitted.scale();
+    }
+
+    private void write(long value, int valueScale) {
+      if (!representable) {
+        return;
+      }
+      if (buffer.remaining() < RECORD_SIZE) {
+        flush();
+      }
+      buffer.putLong(value).put((byte) valueScale);
+    }
+
+    private void flush() {
+      try {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+          channel.write(buffer);
+        }
+        buffer.clear();
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+
+    @Override
+    public void close() throws IOException {
+      try {
+        flush();
+      } catch (UncheckedIOException e) {
+        throw e.getCause();
+      } finally {
+        channel.close();
+      }
+    }
+
+    /**
+     * Writes the section of the column, rescaling every number to the same scale. Its scale is
+     * {@link #PENDING} until every value is written, so an incomplete section is detected.
+     */
+    void writeSection(String key, FileChannel out) throws IOException {
+      byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+      ByteBuffer sectionHeader = ByteBuffer.allocate(2 * Integer.BYTES + keyBytes.length
+                                                     + 3 * Long.BYTES)
+                                           .putInt(keyBytes.length).put(keyBytes)
+                                           .putInt(PENDING).putLong(count).putLong(invalid)
+                                           .putLong(0).flip();
+      long sectionStart = out.position();
+      long scalePosition = sectionStart + Integer.BYTES + keyBytes.length;
+      writeFully(sectionHeader, out);
+      if (!representable) {
+        complete(out, scalePosition, NOT_REPRESENTABLE, 0);
+        return;
+      }
+
+      CRC32C checksum = new CRC32C();
+      ByteBuffer values = ByteBuffer.allocateDirect(BUFFER_SIZE * Long.BYTES);
+      long recordsWindow = CsvFile.MAP_WINDOW / RECORD_SIZE * RECORD_SIZE;
+      try (FileChannel in = FileChannel.open(path, StandardOpenOption.READ)) {
+        long size = in.size();
+        for (long position = 0; position < size; position += recordsWindow) {
+          MappedByteBuffer records = in.map(FileChannel.MapMode.READ_ONLY, position,
+                                            Math.min(recordsWindow, size - position));
+          while (records.hasRemaining()) {
+            long value = records.getLong();
+            int valueScale = records.get();
+            long rescaled = value == INVALID ? INVALID : rescale(value, valueScale);
+            if (rescaled == INVALID && value != INVALID) {
+              // doesn't fit: the section is left without values
+              out.truncate(sectionStart + sectionHeader.capacity());
+              complete(out, scalePosition, NOT_REPRESENTABLE, 0);
+              return;
+            }
+            if (!values.hasRemaining()) {
+              writeValues(values.flip(), checksum, out);
+            }
+            values.putLong(rescaled);
+          }
+        }
+      }
+      writeValues(values.flip(), checksum, out);
+      complete(out, scalePosition, scale, checksum.getValue());
+    }
+
+    private static void complete(FileChannel out, long scalePosition, int scale, long checksum)
+        throws IOException {
+      out.write(ByteBuffer.allocate(Integer.BYTES).putInt(0, scale), scalePosition);
+      out.write(ByteBuffer.allocate(Long.BYTES).putLong(0, checksum),
+                scalePosition + Integer.BYTES + 2 * Long.BYTES);
+    }
+
+    private long rescale(long value, int valueScale) {
+      long factor = POWERS_OF_TEN[scale - valueScale];
+      long high = Math.multiplyHigh(value, factor);
+      long low = value * factor;
+      boolean fits = (high == 0 && low >= 0) || (high == -1 && low < 0);
+      return fits ? low : INVALID;
+    }
+
+    private static void writeValues(ByteBuffer buffer, CRC32C checksum, FileChannel out)
+        throws IOException {
+      checksum.update(buffer.duplicate());
+      writeFully(buffer, out);
+      buffer.clear();
+    }
+  }
+
+  /**
+   * Aggregates chunks of {@code long} values with the same scale: the sum, and the sum of squares,
+   * in 128 bits, spilling the latter into a {@link BigInteger} before it overflows.
+   */
+  private static final class Accumulator {
+    private static final BigInteger UNSIGNED_MASK = BigInteger.ONE.shiftLeft(Long.SIZE)
+                                                                  .subtract(BigInteger.ONE);
+
+    private final LongKernel.Partial partial = new LongKernel.Partial();
+    private long count;
+    private long first;
+    private long min = Long.MAX_VALUE;
+    private long max = Long.MIN_VALUE;
+    private long sumHigh;
+    private long sumLow;
+    private long squaresHigh;
+    private long squaresLow;
+    private BigInteger squaresSpilled = BigInteger.ZERO;
+
+    void accept(long[] values, int length) {
+      LongKernel.INSTANCE.aggregate(values, length, partial);
+      if (partial.count == 0) {
+        return;
+      }
+      if (count == 0) {
+        int i = 0;
+        while (values[i] == INVALID) {
+          i++;
+        }
+        first = values[i];
+      }
+      count += partial.count;
+      min = Math.min(min, partial.min);
+      max = Math.max(max, partial.max);
+
+      // sumHigh * 2^32 + sumLow, where sumLow isn't negative
+      addToSum(partial.sumHigh >> 32, partial.sumHigh << 32);
+      addToSum(0, partial.sumLow);
+      if (partial.squaresOverflow) {
+        for (int i = 0; i < length; i++) {
+          if (values[i] != INVALID) {
+            addToSquares(Math.multiplyHigh(values[i], values[i]), values[i] * values[i]);
+          }
+        }
+      } else {
+        // neither of them is negative
+        addToSquares(partial.squaresHigh >>> 32, partial.squaresHigh << 32);
+        addToSquares(0, partial.squaresLow);
+      }
+    }
+
+    private void addToSum(long high, long low) {
+      long sum = sumLow + low;
+      sumHigh += high + (Long.compareUnsigned(sum, low) < 0 ? 1 : 0);
+      sumLow = sum;
+    }
+
+    private void addToSquares(long high, long low) {
+      long sum = squaresLow + low;
+      squaresHigh += high + (Long.compareUnsigned(sum, low) < 0 ? 1 : 0);
+      squaresLow = sum;
+      if (squaresHigh > Long.MAX_VALUE / 2) {
+        squaresSpilled = squaresSpilled.add(toBigInteger(squaresHigh, squaresLow));
+        squaresHigh = 0;
+        squaresLow = 0;
+      }
+    }
+
+    Aggregates.Summary summary(int scale, long invalid) {
+      int invalidCount = (int) Math.min(Integer.MAX_VALUE, invalid);
+      if (count == 0) {
+        return Aggregates.Summary.of(0, invalidCount, null, null, null, BigDecimal.ZERO,
+                                     BigDecimal.ZERO);
+      }
+      BigInteger squares = squaresSpilled.add(toBigInteger(squaresHigh, squaresLow));
+      return Aggregates.Summary.of(count, invalidCount, BigDecimal.valueOf(first, scale),
+                                   BigDecimal.valueOf(min, scale), BigDecimal.valueOf(max, scale),
+                                   new BigDecimal(toBigInteger(sumHigh, sumLow), scale),
+                                   new BigDecimal(squares, 2 * scale));
+    }
+
+    private static BigInteger toBigInteger(long high, long low) {
+      return BigInteger.valueOf(high).shiftLeft(Long.SIZE)
+                       .add(BigInteger.valueOf(low).and(UNSIGNED_MASK));
+    }
+  }
+
+  private static List<ByteBuffer> map(FileChannel channel, long position, long size)
+      throws IOException {
+    List<ByteBuffer> windows = new ArrayList<>();
+    long windowSize = CsvFile.MAP_WINDOW / Long.BYTES * Long.BYTES;
+    for (long offset = 0; offset < size; offset += windowSize) {
+      windows.add(channel.map(FileChannel.MapMode.READ_ONLY, position + offset,
+                              Math.min(windowSize, size - offset)));
+    }
+    return windows;
+  }
+
+  private static void writeFully(ByteBuffer buffer, FileChannel out) throws IOException {
+    while (buffer.hasRemaining()) {
+      out.write(buffer);
+    }
+  }
+
+  private static ByteBuffer readFully(FileChannel channel, long position, int size)
+      throws IOException {
+    if (size < 0 || position + size > channel.size()) {
+      throw new IOException("Corrupted sidecar");
+    }
+    ByteBuffer buffer = ByteBuffer.allocate(size);
+    while (buffer.hasRemaining()) {
+      if (channel.read(buffer, position + buffer.position()) < 0) {
+        throw new IOException("Corrupted sidecar");
+      }
+    }
+    return buffer.flip();
+  }
+
+  private static long checksum(CsvFile file) throws IOException {
+    CRC32C checksum = new CRC32C();
+    try (FileChannel channel = FileChannel.open(file.path(), StandardOpenOption.READ)) {
+      long size = channel.size();
+      for (long position = 0; position < size; position += CsvFile.MAP_WINDOW) {
+        checksum.update(channel.map(FileChannel.MapMode.READ_ONLY, position,
+                                    Math.min(CsvFile.MAP_WINDOW, size - position)));
+      }
+    }
+    return checksum.getValue();
+  }
+}
@@ -0,0 +1,113 @@
+package com.lealceldeiro.asciidoc.extensions.calc;
+
+import com.lealceldeiro.asciidoc.extensions.Operator;
+import java.math.BigDecimal;
+import java.util.Optional;
+
+/**
+ * Sketches of the numbers of a {@link CsvFile} column, for the approximate operators, built in a
+ * single pass without keeping the numbers: a {@link TDigest} for the percentiles, and a
+ * {@link HyperLogLog} for the amount of distinct numbers.
+ *
+ * <p>Their accuracy is given by the {@code error}: the relative standard error of the amount of
+ * distinct numbers, and (about) the maximum error of the percentiles, in rank, relative to the
+ * amount of numbers (i.e.: with {@code 0.01}, the {@code 95}th percentile is between the
+ * {@code 94}th and the {@code 96}th ones). Sketches with the same error are merged, i.e.: for
+ * several files, in their same (bounded) memory.
+ */
+final class ColumnSketch {
+  static final double DEFAULT_ERROR = 0.01;
+  /**
+   * Multiplied by the inverse of the error, to get the {@link TDigest} compression. Its rank error
+   * is mostly much lower than {@code 1 / compression}, except for skewed distributions.
+   */
+  static final double COMPRESSION_FACTOR = 2;
+
+  private final double error;
+  private final TDigest digest;
+  private final HyperLogLog distinct;
+  private int invalid;
+
+  private ColumnSketch(double error, TDigest digest, HyperLogLog distinct, int invalid) {
+    this.error = error;
+    this.digest = digest;
+    this.distinct = distinct;
+    this.invalid = invalid;
+  }
+
+  /**
+   * @param error From {@code 0} to {@code 1}, both excluded.
+   */
+  ColumnSketch(double error) {
+    this(error, new TDigest(Math.ceil(COMPRESSION_FACTOR / error)),
+         new HyperLogLog(HyperLogLog.precision(error)), 0);
+  }
+
+  static boolean supports(String operator) {
+    return switch (operator) {
+      case Operator.APPROX_MEDIAN, Operator.APPROX_PERCENTILE, Operator.P95, Operator.P99,
+           Operator.APPROX_DISTINCT -> true;
+      default -> false;
+    };
+  }
+
+  void add(BigDecimal number) {
+    digest.add(number.doubleValue());
+    distinct.add(number);
+  }
+
+  void addInvalid() {
+    invalid++;
+  }
+
+  /**
+   * Prepares the sketch to be shared: it isn't modified anymore.
+   */
+  ColumnSketch done() {
+    digest.compress();
+    return this;
+  }
+
+  /**
+   * @return A new sketch of the numbers of both sketches, which must have the same error.
+   */
+  ColumnSketch merge(ColumnSketch other) {
+    if (error != other.error) {
+      throw new IllegalArgumentException("Different errors: " + error + ", " + other.error);
+    }
+    ColumnSketch merged = new ColumnSketch(error, digest.copy(), distinct.copy(),
+                                           (int) Math.min(Integer.MAX_VALUE,
+                                                          (long) invalid + other.invalid));
+    merged.digest.merge(other.digest);
+    merged.distinct.merge(other.distinct);
+    return merged;
+  }
+
+  long count() {
+    return digest.count();
+  }
+
+  /**
+   * @return The amount of values which weren't numbers.
+   */
+  int invalid() {
+    return invalid;
+  }
+
+  long distinct() {
+    return distinct.estimate();
+  }
+
+  /**
+   * @param percentile From {@code 0} to {@code 100}.
+   *
+   * @return The approximate percentile, or nothing if there are no numbers.
+   */
+  Optional<BigDecimal> percentile(BigDecimal percentile) {
+    if (count() == 0) {
+      return Optional.empty();
+    }
+    double quantile = digest.quantile(percentile.movePointLeft(2).doubleValue());
+    return Double.isFinite(quantile) ? Optional.of(BigDecimal.valueOf(quantile)) : Optional.empty();
+  }
+}
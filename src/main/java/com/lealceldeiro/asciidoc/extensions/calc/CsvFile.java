@@ -0,0 +1,349 @@
+package com.lealceldeiro.asciidoc.extensions.calc;
+
+import com.lealceldeiro.asciidoc.extensions.LruCache;
+import com.lealceldeiro.asciidoc.extensions.Macro;
+import com.lealceldeiro.asciidoc.extensions.Parsing;
+import com.lealceldeiro.asciidoc.extensions.Util;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+import org.asciidoctor.ast.Document;
+
+/**
+ * Local CSV file given by the {@value Macro.Key#FILE} attribute of {@code calc}, whose
+ * {@value Macro.Key#COLUMN} is aggregated.
+ *
+ * <p>Files are read in a single pass, through memory mapped windows of {@link #MAP_WINDOW} bytes,
+ * so they're never loaded in the heap. The {@link Aggregates.Summary} of every column is cached by
+ * the path, size and modification time of the file, so it's read only once, unless it changes, and
+ * so is its {@link ColumnSketch}, for the approximate operators.
+ *
+ * <p>With the {@value Macro.Key#FILE_SIDECAR} attribute, the numbers of the columns are stored in
+ * a {@link ColumnSidecar} (at the path given by {@link #sidecar()}, or {@code null} if it isn't
+ * enabled) the first time they're read, and scanned from it later, even in other builds, while
+ * the file doesn't change.
+ *
+ * <p>Values are separated by commas, and may be quoted ({@code "1,5"}), with quotes escaped by
+ * doubling them ({@code ""}), as in RFC 4180. Blank lines are ignored.
+ */
+record CsvFile(Path path, long size, long lastModified, Path sidecar) {
+  static final int DEFAULT_CACHE_SIZE = 32;
+  static final long MAP_WINDOW = 64L * 1024 * 1024;
+  static final String SAFE_MODE_LEVEL = "safe-mode-level";
+  /**
+   * Safe mode levels (as Asciidoctor): from {@code safe}, files outside the base directory can't
+   * be read, and no file can be read from {@code secure}.
+   */
+  static final int SAFE = 1;
+  static final int SECURE = 20;
+
+  private static final int CHUNK = 64 * 1024;
+  private static final LruCache<SummaryKey, Aggregates.Summary> summaries
+      = new LruCache<>(Util.intSetting(Macro.Key.FILE_CACHE_SIZE, null, DEFAULT_CACHE_SIZE));
+
+  private static final LruCache<SketchKey, ColumnSketch> sketches
+      = new LruCache<>(Util.intSetting(Macro.Key.FILE_CACHE_SIZE, null, DEFAULT_CACHE_SIZE));
+
+  private record SummaryKey(CsvFile file, String column, boolean header) {
+  }
+
+  private record SketchKey(CsvFile file, String column, boolean header, double error) {
+  }
+
+  /**
+   * Resolves the file relative to the base directory of the document (or, if not set, the
+   * directory of the document), following the same rules as Asciidoctor for included files.
+   *
+   * @return The file, or {@code null} if it can't be read from the document: it doesn't exist, or
+   *     it isn't allowed by its safe mode.
+   */
+  static CsvFile resolve(Document document, Object file) {
+    Object level = document.getAttribute(SAFE_MODE_LEVEL);
+    long safeModeLevel = level == null ? SECURE : Parsing.toInt(String.valueOf(level));
+    if (safeModeLevel == Parsing.NOT_AN_INT || safeModeLevel >= SECURE) {
+      return null;
+    }
+    try {
+      Path base = Util.baseDirectory(document);
+      Path path = base.resolve(String.valueOf(file).strip()).normalize();
+      if (safeModeLevel >= SAFE && !path.toRealPath().startsWith(base.toRealPath())) {
+        return null;
+      }
+      BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+      if (!attributes.isRegularFile()) {
+        return null;
+      }
+      Path sidecar = ColumnSidecar.isEnabled(document.getAttribute(Macro.Key.FILE_SIDECAR))
+                     ? ColumnSidecar.path(path, base)
+                     : null;
+      return new CsvFile(path, attributes.size(), attributes.lastModifiedTime().toMillis(),
+                         sidecar);
+    } catch (IOException | RuntimeException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Aggregates of the numbers of a column, calculated once, and shared while the file doesn't
+   * change.
+   */
+  Aggregates.Summary summary(String column, boolean header) throws IOException {
+    SummaryKey key = new SummaryKey(this, column, header);
+    Aggregates.Summary summary = summaries.get(key);
+    if (summary == null) {
+      ColumnSidecar.Column stored = ColumnSidecar.column(this, column, header);
+      if (stored != null) {
+        summary = stored.summary();
+      } else {
+        Aggregates.Summary newSummary = new Aggregates.Summary();
+        readNumbers(column, header, newSummary::add, newSummary::addInvalid);
+        summary = newSummary;
+      }
+      summaries.put(key, summary);
+    }
+    return summary;
+  }
+
+  /**
+   * Sketch of the numbers of a column, with the given error, built once, and shared while the file
+   * doesn't change.
+   */
+  ColumnSketch sketch(String column, boolean header, double error) throws IOException {
+    SketchKey key = new SketchKey(this, column, header, error);
+    ColumnSketch sketch = sketches.get(key);
+    if (sketch == null) {
+      ColumnSketch newSketch = new ColumnSketch(error);
+      ColumnSidecar.Column stored = ColumnSidecar.column(this, column, header);
+      if (stored != null) {
+        stored.forEach(value -> {
+          if (value == ColumnSidecar.INVALID) {
+            newSketch.addInvalid();
+          } else {
+            newSketch.add(BigDecimal.valueOf(value, stored.scale()));
+          }
+        });
+      } else {
+        readNumbers(column, header, newSketch::add, newSketch::addInvalid);
+      }
+      sketch = newSketch.done();
+      sketches.put(key, sketch);
+    }
+    return sketch;
+  }
+
+  /**
+   * Numbers of a column, for the operations which need all of them. Values which aren't numbers
+   * are counted in {@code invalid[0]}.
+   */
+  CalcMacro.Numbers numbers(String column, boolean header, int[] invalid) throws IOException {
+    ColumnSidecar.Column stored = ColumnSidecar.column(this, column, header);
+    if (stored != null) {
+      return stored.numbers(invalid);
+    }
+    List<BigDecimal> numbers = new ArrayList<>();
+    readNumbers(column, header, numbers::add, () -> invalid[0]++);
+    return new CalcMacro.Numbers(numbers.toArray(BigDecimal[]::new), numbers.size());
+  }
+
+  private void readNumbers(String column, boolean header, Consumer<BigDecimal> numbers,
+                           Runnable invalid) throws IOException {
+    long[] unscaled = new long[1];
+    readColumn(column, header, value -> {
+      int scale = FixedPoint.parse(value, unscaled, 0);
+      BigDecimal number = scale == FixedPoint.NOT_FIXED_POINT
+                          ? Parsing.toBigDecimal(value)
+                          : BigDecimal.valueOf(unscaled[0], scale);
+      if (number == null) {
+        invalid.run();
+      } else {
+        numbers.accept(number);
+      }
+    });
+  }
+
+  /**
+   * Streams the (stripped) values of a column, in order. Rows without the column have an empty
+   * value.
+   *
+   * @param column Name of the column, if there's a header, or its position (from {@code 1}).
+   *
+   * @throws IllegalArgumentException If there's no such column.
+   */
+  void readColumn(String column, boolean header, Consumer<String> values) throws IOException {
+    Parser parser = new Parser(column, header, values);
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      long fileSize = channel.size();
+      byte[] chunk = new byte[CHUNK];
+      for (long position = 0; position < fileSize; position += MAP_WINDOW) {
+        MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position,
+                                              Math.min(MAP_WINDOW, fileSize - position));
+        while (window.hasRemaining()) {
+          int length = Math.min(chunk.length, window.remaining());
+          window.get(chunk, 0, length);
+          parser.parse(chunk, length);
+        }
+      }
+    }
+    parser.end();
+  }
+
+  /**
+   * Identifies the file, and its version, in the memoized invocations of the macros.
+   */
+  @Override
+  public String toString() {
+    return "file:" + path + ":" + size + ":" + lastModified;
+  }
+
+  /**
+   * Parser of the bytes of the file, which may be split anywhere.
+   */
+  private static final class Parser {
+    private static final byte[] BYTE_ORDER_MARK = {(byte) 0xEF, (byte) 0xBB, (byte) 0xBF};
+
+    private final String column;
+    private final Consumer<String> values;
+    private final List<String> headerNames = new ArrayList<>();
+    private boolean headerRow;
+    private int target;
+
+    private long offset;
+    private int field;
+    private boolean found;
+    private boolean blankRow = true;
+    private boolean quoted;
+    private boolean quoteClosed;
+    private byte[] value = new byte[64];
+    private int length;
+
+    Parser(String column, boolean header, Consumer<String> values) {
+      this.column = column.strip();
+      this.values = values;
+      this.headerRow = header;
+      this.target = header ? -1 : position(this.column);
+      if (!header && target < 0) {
+        throw new IllegalArgumentException("Invalid column: " + column);
+      }
+    }
+
+    void parse(byte[] bytes, int size) {
+      for (int i = 0; i < size; i++, offset++) {
+        byte b = bytes[i];
+        if (offset < BYTE_ORDER_MARK.length && b == BYTE_ORDER_MARK[(int) offset]) {
+          continue;
+        }
+        if (quoted) {
+          if (b == '"') {
+            quoted = false;
+            quoteClosed = true;
+          } else {
+            append(b);
+          }
+          continue;
+        }
+        if (b == '"') {
+          if (quoteClosed) {
+            // escaped quote
+            append(b);
+          }
+          quoted = true;
+          quoteClosed = false;
+          blankRow = false;
+          continue;
+        }
+        quoteClosed = false;
+        switch (b) {
+          case ',' -> {
+            blankRow = false;
+            endField();
+          }
+          case '\n' -> endRow();
+          case '\r' -> {
+            // part of the line separator
+          }
+          default -> {
+            if (b != ' ' && b != '\t') {
+              blankRow = false;
+            }
+            append(b);
+          }
+        }
+      }
+    }
+
+    void end() {
+      endRow();
+      if (headerRow) {
+        resolveHeader();
+      }
+    }
+
+    private void append(byte b) {
+      if (headerRow || field == target) {
+        if (length == value.length) {
+          value = Arrays.copyOf(value, length * 2);
+        }
+        value[length++] = b;
+      }
+    }
+
+    private void endField() {
+      if (headerRow) {
+        headerNames.add(currentValue());
+      } else if (field == target) {
+        values.accept(currentValue());
+        found = true;
+      }
+      length = 0;
+      field++;
+    }
+
+    private void endRow() {
+      if (blankRow) {
+        length = 0;
+      } else {
+        endField();
+        if (headerRow) {
+          resolveHeader();
+        } else if (!found) {
+          values.accept("");
+        }
+      }
+      field = 0;
+      found = false;
+      blankRow = true;
+      quoted = false;
+      quoteClosed = false;
+    }
+
+    private void resolveHeader() {
+      headerRow = false;
+      target = headerNames.indexOf(column);
+      if (target < 0) {
+        target = position(column);
+      }
+      if (target < 0 || target >= headerNames.size()) {
+        throw new IllegalArgumentException("Unknown column: " + column);
+      }
+    }
+
+    private String currentValue() {
+      return new String(value, 0, length, StandardCharsets.UTF_8).strip();
+    }
+
+    private static int position(String column) {
+      long position = Parsing.toInt(column);
+      return position > 0 && position <= Integer.MAX_VALUE ? (int) position - 1 : -1;
+    }
+  }
+}
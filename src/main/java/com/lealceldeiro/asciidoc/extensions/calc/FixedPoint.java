@@ -0,0 +1,182 @@
+package com.lealceldeiro.asciidoc.extensions.calc;
+
+import com.lealceldeiro.asciidoc.extensions.Operator;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Arithmetic on numbers represented as a {@code long} unscaled value and a scale (the same as
+ * {@link BigDecimal}, i.e.: {@code 12.50} is {@code 1250} with scale {@code 2}), which covers the
+ * most common operands (i.e.: prices) without allocating any {@link BigDecimal}.
+ *
+ * <p>Every operation is exact, and detects overflows, so the results are the same as with
+ * {@link BigDecimal}, which is used instead when the numbers don't fit.
+ */
+final class FixedPoint {
+  static final int MAX_SCALE = 18;
+  static final int NOT_FIXED_POINT = -1;
+  /**
+   * Maximum amount of digits of a {@code long}.
+   */
+  static final int MAX_DIGITS = 19;
+
+  /**
+   * Result of an operation which doesn't fit a {@code long}. It's never a valid unscaled value (not
+   * even parsed), so it can always be negated.
+   */
+  private static final long OVERFLOW = Long.MIN_VALUE;
+
+  private static final long[] POWERS_OF_TEN = new long[MAX_SCALE + 1];
+
+  static {
+    POWERS_OF_TEN[0] = 1;
+    for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+      POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+    }
+  }
+
+  private FixedPoint() {
+  }
+
+  /**
+   * Parses a number without exponent and with up to {@link #MAX_SCALE} decimals, storing its
+   * unscaled value in {@code unscaled[index]}.
+   *
+   * @return The scale of the number, or {@link #NOT_FIXED_POINT} if it's not a number, or it
+   *     doesn't fit.
+   */
+  static int parse(String value, long[] unscaled, int index) {
+    int length = value.length();
+    int position = 0;
+    boolean negative = false;
+    if (length > 0 && (value.charAt(0) == '-' || value.charAt(0) == '+')) {
+      negative = value.charAt(0) == '-';
+      position++;
+    }
+
+    // accumulates negatively, as Long.parseLong
+    long result = 0;
+    int digits = 0;
+    int decimalPoint = -1;
+    for (; position < length; position++) {
+      char c = value.charAt(position);
+      if (c == '.' && decimalPoint < 0) {
+        decimalPoint = position;
+        continue;
+      }
+      int digit = c >= '0' && c <= '9' ? c - '0' : Character.digit(c, 10);
+      if (digit < 0 || result < (Long.MIN_VALUE + digit) / 10) {
+        return NOT_FIXED_POINT;
+      }
+      result = result * 10 - digit;
+      digits++;
+    }
+
+    int scale = decimalPoint < 0 ? 0 : length - decimalPoint - 1;
+    if (digits == 0 || scale > MAX_SCALE || result == OVERFLOW) {
+      return NOT_FIXED_POINT;
+    }
+    unscaled[index] = negative ? result : -result;
+    return scale;
+  }
+
+  /**
+   * Calculates the sum, subtraction, or multiplication of the numbers, rounded to
+   * {@code resultScale} decimals.
+   *
+   * @return The result, formatted as {@link BigDecimal#toPlainString()}, or {@code null} if it
+   *     doesn't fit, in which case it must be calculated with {@link BigDecimal}.
+   */
+  static String calculate(String operator, long[] unscaled, int[] scales, int size,
+                          int resultScale, RoundingMode roundingMode) {
+    if (size == 0) {
+      return null;
+    }
+    long result = unscaled[0];
+    int scale = scales[0];
+    for (int i = 1; i < size; i++) {
+      long next;
+      switch (operator) {
+        case Operator.SUM, Operator.SUB -> {
+          int commonScale = Math.max(scale, scales[i]);
+          long left = rescale(result, scale, commonScale);
+          long right = rescale(unscaled[i], scales[i], commonScale);
+          if (left == OVERFLOW || right == OVERFLOW) {
+            return null;
+          }
+          next = Operator.SUM.equals(operator) ? add(left, right) : add(left, negate(right));
+          scale = commonScale;
+        }
+        case Operator.MULTIPLY -> {
+          next = multiply(result, unscaled[i]);
+          scale += scales[i];
+        }
+        default -> {
+          return null;
+        }
+      }
+      if (next == OVERFLOW || scale > MAX_SCALE) {
+        return null;
+      }
+      result = next;
+    }
+    return format(result, scale, resultScale, roundingMode);
+  }
+
+  // Overflows are detected as in Math.addExact and Math.multiplyExact, but without throwing an
+  // exception, as they're expected (i.e.: the product of many prices), and falling back to
+  // BigDecimal must be cheap
+
+  private static long add(long left, long right) {
+    long result = left + right;
+    return ((left ^ result) & (right ^ result)) < 0 ? OVERFLOW : result;
+  }
+
+  private static long negate(long value) {
+    return value == OVERFLOW ? OVERFLOW : -value;
+  }
+
+  private static long multiply(long left, long right) {
+    long high = Math.multiplyHigh(left, right);
+    long low = left * right;
+    if ((high == 0 && low >= 0) || (high == -1 && low < 0)) {
+      return low;
+    }
+    return OVERFLOW;
+  }
+
+  private static long rescale(long unscaled, int scale, int newScale) {
+    return scale == newScale ? unscaled : multiply(unscaled, POWERS_OF_TEN[newScale - scale]);
+  }
+
+  private static String format(long unscaled, int scale, int resultScale,
+                               RoundingMode roundingMode) {
+    long value = scale <= resultScale && resultScale <= MAX_SCALE
+                 ? rescale(unscaled, scale, resultScale)
+                 : OVERFLOW;
+    if (value == OVERFLOW) {
+      // rounding (or a bigger scale) is needed: done by BigDecimal, so every rounding mode behaves
+      // exactly the same
+      return BigDecimal.valueOf(unscaled, scale).setScale(resultScale, roundingMode)
+                       .toPlainString();
+    }
+
+    StringBuilder formatted = new StringBuilder(MAX_DIGITS + 3);
+    if (value < 0) {
+      formatted.append('-');
+    }
+    String digits = Long.toString(Math.abs(value));
+    int integerDigits = digits.length() - resultScale;
+    if (integerDigits <= 0) {
+      formatted.append('0');
+    } else {
+      formatted.append(digits, 0, integerDigits);
+    }
+    if (resultScale > 0) {
+      formatted.append('.');
+      formatted.repeat('0', Math.max(0, -integerDigits));
+      formatted.append(digits, Math.max(0, integerDigits), digits.length());
+    }
+    return formatted.toString();
+  }
+}
@@ -0,0 +1,117 @@
+package com.lealceldeiro.asciidoc.extensions.calc;
+
+import com.lealceldeiro.asciidoc.extensions.calclogger.ExtensionLogger;
+import com.lealceldeiro.asciidoc.extensions.calclogger.ExtensionLoggerFactory;
+
+/**
+ * Aggregates chunks of {@code long} values (i.e.: the unscaled numbers of a {@link ColumnSidecar}
+ * column), skipping {@link ColumnSidecar#INVALID} ones, into a {@link Partial}.
+ *
+ * <p>Sums are split into the sums of the high ({@code value >> 32}) and low
+ * ({@code value & 0xFFFFFFFF}) halves of the values, which can't overflow for up to
+ * {@link #MAX_LENGTH} values, so they're exact without {@code 128} bits arithmetic, and the same
+ * loop can be vectorized. Squares are summed the same way while they fit in a {@code long}: values
+ * up to {@link #SQUARE_LIMIT}, in absolute value.
+ *
+ * <p>This is the scalar implementation. When the {@code jdk.incubator.vector} module is available
+ * (i.e.: with {@code --add-modules jdk.incubator.vector}), {@link #INSTANCE} is a
+ * {@code VectorLongKernel}, aggregating several values at once with SIMD instructions.
+ */
+class LongKernel {
+  static final int MAX_LENGTH = 1 << 20;
+  static final long SQUARE_LIMIT = 3_037_000_499L;
+  static final long LOW_HALF = 0xFFFFFFFFL;
+
+  private static final ExtensionLogger logger = ExtensionLoggerFactory.getInstance();
+  private static final String VECTOR_MODULE = "jdk.incubator.vector";
+
+  static final LongKernel INSTANCE = load();
+
+  /**
+   * Aggregates of a chunk of values, where the sum of the values is
+   * {@code sumHigh * 2^32 + sumLow}, and, unless {@code squaresOverflow}, the sum of their squares
+   * is {@code squaresHigh * 2^32 + squaresLow}.
+   */
+  static final class Partial {
+    long count;
+    long min;
+    long max;
+    long sumHigh;
+    long sumLow;
+    long squaresHigh;
+    long squaresLow;
+    boolean squaresOverflow;
+
+    void set(long count, long min, long max, long sumHigh, long sumLow, long squaresHigh,
+             long squaresLow) {
+      this.count = count;
+      this.min = min;
+      this.max = max;
+      this.sumHigh = sumHigh;
+      this.sumLow = sumLow;
+      this.squaresHigh = squaresHigh;
+      this.squaresLow = squaresLow;
+      // INVALID is the only value whose absolute value overflows
+      this.squaresOverflow = count > 0 && Math.max(Math.abs(min), Math.abs(max)) > SQUARE_LIMIT;
+    }
+  }
+
+  /**
+   * @param length Amount of values to aggregate, from the start of the array, up to
+   *               {@link #MAX_LENGTH}.
+   */
+  void aggregate(long[] values, int length, Partial partial) {
+    checkLength(length);
+    aggregate(values, 0, length, partial);
+  }
+
+  /**
+   * Scalar loop from {@code from}, also used for the values left after the last vector.
+   */
+  static void aggregate(long[] values, int from, int length, Partial partial) {
+    long count = 0;
+    long min = Long.MAX_VALUE;
+    long max = Long.MIN_VALUE;
+    long sumHigh = 0;
+    long sumLow = 0;
+    long squaresHigh = 0;
+    long squaresLow = 0;
+    for (int i = from; i < length; i++) {
+      long value = values[i];
+      if (value == ColumnSidecar.INVALID) {
+        continue;
+      }
+      count++;
+      min = Math.min(min, value);
+      max = Math.max(max, value);
+      sumHigh += value >> 32;
+      sumLow += value & LOW_HALF;
+      long square = value * value;
+      squaresHigh += square >>> 32;
+      squaresLow += square & LOW_HALF;
+    }
+    partial.set(count, min, max, sumHigh, sumLow, squaresHigh, squaresLow);
+  }
+
+  static void checkLength(int length) {
+    if (length < 0 || length > MAX_LENGTH) {
+      throw new IllegalArgumentException("Invalid length: " + length);
+    }
+  }
+
+  /**
+   * The vectorized kernel is loaded by name, so this class doesn't link against the incubator
+   * module when it isn't available.
+   */
+  private static LongKernel load() {
+    if (ModuleLayer.boot().findModule(VECTOR_MODULE).isPresent()) {
+      try {
+        return (LongKernel) Class.forName(LongKernel.class.getPackageName() + ".VectorLongKernel")
+                                 .getDeclaredConstructor().newInstance();
+      } catch (ReflectiveOperationException | LinkageError e) {
+        logger.log(null, () -> "Vectorized aggregation not available: " + e);
+      }
+    }
+    return new LongKernel();
+  }
+}
@@ -0,0 +1,146 @@
+package com.lealceldeiro.asciidoc.extensions.calc;
+
+import com.lealceldeiro.asciidoc.extensions.LruCache;
+import com.lealceldeiro.asciidoc.extensions.Macro;
+import com.lealceldeiro.asciidoc.extensions.Parsing;
+import com.lealceldeiro.asciidoc.extensions.Util;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * Numbers of a list-valued document attribute (i.e.: {@code :prices: 1.50, 2, 3.25}), referenced
+ * by name with the {@value Macro.Key#LIST} attribute of {@code calc}.
+ *
+ * <p>Lists are parsed once, and cached by their value, so every macro of a document (and of any
+ * other document with the same list) shares them. Their numbers must never be modified.
+ */
+final class NumberList {
+  static final int DEFAULT_CACHE_SIZE = 32;
+  static final char SEPARATOR = ',';
+
+  private static final LruCache<String, NumberList> lists
+      = new LruCache<>(Util.intSetting(Macro.Key.LIST_CACHE_SIZE, null, DEFAULT_CACHE_SIZE));
+
+  private final CalcMacro.Numbers numbers;
+  private final int invalid;
+  private final String digest;
+
+  private NumberList(CalcMacro.Numbers numbers, int invalid, String digest) {
+    this.numbers = numbers;
+    this.invalid = invalid;
+    this.digest = digest;
+  }
+
+  static NumberList of(String value) {
+    return lists.computeIfAbsent(value, NumberList::parse);
+  }
+
+  /**
+   * Parses the numbers separated by {@value #SEPARATOR}. Blank items (i.e.: after a trailing
+   * separator) are ignored.
+   */
+  static NumberList parse(String value) {
+    int capacity = 1;
+    for (int i = 0; i < value.length(); i++) {
+      if (value.charAt(i) == SEPARATOR) {
+        capacity++;
+      }
+    }
+    Parser parser = new Parser(capacity);
+    int start = 0;
+    while (start <= value.length()) {
+      int end = value.indexOf(SEPARATOR, start);
+      if (end < 0) {
+        end = value.length();
+      }
+      parser.add(value.substring(start, end));
+      start = end + 1;
+    }
+    return parser.list(digest(value));
+  }
+
+  /**
+   * Parses the numbers of the given items (i.e.: the cells of a table column), which may contain
+   * {@value #SEPARATOR} themselves, as any other item which isn't a number. Blank items are
+   * ignored. These lists aren't cached.
+   */
+  static NumberList parse(List<String> items) {
+    Parser parser = new Parser(items.size());
+    items.forEach(parser::add);
+    // each item is terminated, so items with separators don't collide with other lists
+    return parser.list(digest(String.join("\0", items) + "\0"));
+  }
+
+  /**
+   * @return The valid numbers, already converted to {@link BigDecimal}, so they're never modified
+   *     by {@link CalcMacro.Numbers#values()}.
+   */
+  CalcMacro.Numbers numbers() {
+    return numbers;
+  }
+
+  /**
+   * @return The amount of items which aren't numbers.
+   */
+  int invalid() {
+    return invalid;
+  }
+
+  /**
+   * Identifies the list in the memoized invocations of the macros, instead of its whole value.
+   */
+  @Override
+  public String toString() {
+    return "list:sha256:" + digest;
+  }
+
+  private static final class Parser {
+    private final BigDecimal[] values;
+    private final long[] unscaled;
+    private final int[] scales;
+    private int size;
+    private int invalid;
+
+    Parser(int capacity) {
+      values = new BigDecimal[capacity];
+      unscaled = new long[capacity];
+      scales = new int[capacity];
+    }
+
+    void add(String value) {
+      String item = value.strip();
+      if (item.isEmpty()) {
+        return;
+      }
+
+      int scale = FixedPoint.parse(item, unscaled, size);
+      BigDecimal number = scale == FixedPoint.NOT_FIXED_POINT
+                          ? Parsing.toBigDecimal(item)
+                          : BigDecimal.valueOf(unscaled[size], scale);
+      if (number == null) {
+        invalid++;
+        return;
+      }
+      values[size] = number;
+      scales[size] = scale;
+      size++;
+    }
+
+    NumberList list(String digest) {
+      return new NumberList(new CalcMacro.Numbers(values, unscaled, scales, size), invalid, digest);
+    }
+  }
+
+  private static String digest(String value) {
+    try {
+      MessageDigest digest = MessageDigest.getInstance("SHA-256");
+      return HexFormat.of().formatHex(digest.digest(value.getBytes(StandardCharsets.UTF_8)));
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 not available", e);
+    }
+  }
+}
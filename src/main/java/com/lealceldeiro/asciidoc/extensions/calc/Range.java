@@ -0,0 +1,140 @@
+package com.lealceldeiro.asciidoc.extensions.calc;
+
+import com.lealceldeiro.asciidoc.extensions.Operator;
+import com.lealceldeiro.asciidoc.extensions.Parsing;
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.Optional;
+
+/**
+ * Arithmetic sequence given by the {@code range} ({@code first..last}) and {@code step} attributes
+ * of {@code calc}, i.e.: {@code range="1..100000"}. Its numbers are never materialized: aggregates
+ * are calculated in closed form, and products and divisions by streaming the numbers, up to
+ * {@link #MAX_STREAMED} of them (and products up to {@link CalcMacro#MAX_RESULT_DIGITS} digits).
+ */
+record Range(BigDecimal first, BigDecimal step, BigDecimal count) {
+  static final String SEPARATOR = "..";
+  static final int MAX_STREAMED = 1_000_000;
+  /**
+   * Maximum amount of digits, and of decimals (or trailing zeros, i.e.: {@code 1e6}), of the
+   * bounds and the step, as the cost of their arithmetic grows with them.
+   */
+  static final int MAX_DIGITS = 1000;
+  static final BigDecimal MAX_COUNT = BigDecimal.valueOf(Long.MAX_VALUE);
+
+  private static final BigDecimal TWELVE = BigDecimal.valueOf(12);
+
+  /**
+   * @param step Distance between consecutive numbers, {@code 1} (or {@code -1} if the last number
+   *             is lower than the first one) if it's {@code null}.
+   *
+   * @return The range, or {@code null} if it isn't valid: not {@code first..last}, a step of
+   *     {@code 0}, a step going away from the last number, bounds or step with more than
+   *     {@link #MAX_DIGITS} digits or decimals, or more than {@link #MAX_COUNT} numbers.
+   */
+  static Range parse(Object range, Object step) {
+    String value = String.valueOf(range);
+    int separator = value.indexOf(SEPARATOR);
+    if (separator < 0) {
+      return null;
+    }
+    BigDecimal first = Parsing.toBigDecimal(value.substring(0, separator).strip());
+    BigDecimal last = Parsing.toBigDecimal(value.substring(separator + SEPARATOR.length()).strip());
+    if (!isBounded(first) || !isBounded(last)) {
+      return null;
+    }
+    BigDecimal distance = last.subtract(first);
+    BigDecimal stepValue = step == null
+                           ? BigDecimal.valueOf(distance.signum() < 0 ? -1 : 1)
+                           : Parsing.toBigDecimal(String.valueOf(step).strip());
+    if (!isBounded(stepValue) || stepValue.signum() == 0
+        || distance.signum() * stepValue.signum() < 0) {
+      return null;
+    }
+    BigDecimal count;
+    try {
+      count = distance.divideToIntegralValue(stepValue).add(BigDecimal.ONE);
+    } catch (ArithmeticException e) {
+      return null;
+    }
+    return count.compareTo(MAX_COUNT) <= 0
+           ? new Range(first, stepValue, count.stripTrailingZeros())
+           : null;
+  }
+
+  private static boolean isBounded(BigDecimal value) {
+    return value != null && value.precision() <= MAX_DIGITS
+           && Math.abs((long) value.scale()) <= MAX_DIGITS;
+  }
+
+  BigDecimal last() {
+    return first.add(step.multiply(count.subtract(BigDecimal.ONE)));
+  }
+
+  /**
+   * @param percentile Percentile (from {@code 0} to {@code 100}) for {@link Operator#MEDIAN} and
+   *                   {@link Operator#PERCENTILE}.
+   *
+   * @return The result, or nothing if it isn't mathematically possible, or there are too many
+   *     numbers to stream.
+   */
+  Optional<BigDecimal> calculate(String operator, BigDecimal percentile, MathContext mathContext) {
+    MathContext divisionContext = mathContext.getPrecision() == 0
+                                  ? MathContext.DECIMAL128
+                                  : mathContext;
+    try {
+      BigDecimal last = last();
+      BigDecimal min = step.signum() > 0 ? first : last;
+      BigDecimal result = switch (operator) {
+        case Operator.SUM -> sum();
+        case Operator.SUB -> first.add(first).subtract(sum());
+        case Operator.MULTIPLY, Operator.DIVIDE -> stream(operator, mathContext);
+        case Operator.AVG -> first.add(last).multiply(BigDecimal.valueOf(5, 1));
+        case Operator.MIN -> min;
+        case Operator.MAX -> step.signum() > 0 ? last : first;
+        // step² (n² - 1) / 12
+        case Operator.VARIANCE -> variance(divisionContext);
+        case Operator.STDDEV -> variance(divisionContext).sqrt(divisionContext);
+        // the numbers are evenly spaced, so interpolating between the closest ones is the same as
+        // moving p% of the distance from the lowest one to the highest one
+        default -> min.add(step.abs().multiply(count.subtract(BigDecimal.ONE))
+                               .multiply(percentile).movePointLeft(2));
+      };
+      return Optional.ofNullable(result).map(value -> value.round(mathContext));
+    } catch (ArithmeticException e) {
+      return Optional.empty();
+    }
+  }
+
+  /**
+   * {@code n * first + step * n (n - 1) / 2}.
+   */
+  private BigDecimal sum() {
+    BigDecimal pairs = count.multiply(count.subtract(BigDecimal.ONE)).multiply(
+        BigDecimal.valueOf(5, 1));
+    return count.multiply(first).add(step.multiply(pairs));
+  }
+
+  private BigDecimal variance(MathContext divisionContext) {
+    return step.multiply(step)
+               .multiply(count.multiply(count).subtract(BigDecimal.ONE))
+               .divide(TWELVE, divisionContext);
+  }
+
+  private BigDecimal stream(String operator, MathContext mathContext) {
+    if (count.compareTo(BigDecimal.valueOf(MAX_STREAMED)) > 0) {
+      return null;
+    }
+    boolean multiply = Operator.MULTIPLY.equals(operator);
+    BigDecimal result = first;
+    BigDecimal number = first;
+    for (int i = 1; i < count.intValue(); i++) {
+      number = number.add(step);
+      // every step is bounded, so a product growing too much stops as soon as it's too big
+      result = multiply
+               ? CalcMacro.multiply(result, number, mathContext)
+               : CalcMacro.divide(result, number, mathContext);
+    }
+    return result;
+  }
+}
@@ -0,0 +1,218 @@
+package com.lealceldeiro.asciidoc.extensions.calc;
+
+import java.util.Arrays;
+
+/**
+ * Mergeable sketch of a distribution, approximating its percentiles in bounded memory: the merging
+ * t-digest, by Ted Dunning, with the {@code k1} scale function.
+ *
+ * <p>Numbers are grouped in centroids (their mean and weight), which are smaller at the extremes of
+ * the distribution, so the tails, where percentiles are usually more interesting (i.e.: the
+ * {@code 99}th one), are more accurate. With a {@code compression} of {@code δ}, there are about
+ * {@code δ} centroids at most, and the error of percentiles, in rank, is about {@code 1 / δ} of the
+ * amount of numbers, and much lower in the tails. When there are less than {@code δ / π} numbers,
+ * every centroid is a single number, so percentiles are exact.
+ *
+ * <p>Numbers are buffered, and merged into the centroids when the buffer is full, so adding a
+ * number takes constant time (amortized).
+ */
+final class TDigest {
+  private static final int BUFFER_FACTOR = 5;
+
+  private final double compression;
+  private double[] means;
+  private double[] weights;
+  private int centroids;
+  private final double[] buffer;
+  private int buffered;
+  private double totalWeight;
+  private double min = Double.POSITIVE_INFINITY;
+  private double max = Double.NEGATIVE_INFINITY;
+
+  TDigest(double compression) {
+    if (!(compression >= 1)) {
+      throw new IllegalArgumentException("Invalid compression: " + compression);
+    }
+    this.compression = compression;
+    int capacity = (int) Math.ceil(compression) + 1;
+    means = new double[capacity];
+    weights = new double[capacity];
+    buffer = new double[BUFFER_FACTOR * capacity];
+  }
+
+  void add(double number) {
+    if (Double.isNaN(number)) {
+      throw new IllegalArgumentException("Not a number");
+    }
+    if (buffered == buffer.length) {
+      compress();
+    }
+    buffer[buffered++] = number;
+    min = Math.min(min, number);
+    max = Math.max(max, number);
+  }
+
+  /**
+   * Adds every number of the other digest (with its same accuracy), which isn't modified.
+   */
+  void merge(TDigest other) {
+    other.compress();
+    compress();
+    if (other.centroids == 0) {
+      return;
+    }
+    int total = centroids + other.centroids;
+    double[] mergedMeans = new double[total];
+    double[] mergedWeights = new double[total];
+    int i = 0;
+    int j = 0;
+    for (int k = 0; k < total; k++) {
+      if (j == other.centroids || (i < centroids && means[i] <= other.means[j])) {
+        mergedMeans[k] = means[i];
+        mergedWeights[k] = weights[i++];
+      } else {
+        mergedMeans[k] = other.means[j];
+        mergedWeights[k] = other.weights[j++];
+      }
+    }
+    totalWeight += other.totalWeight;
+    min = Math.min(min, other.min);
+    max = Math.max(max, other.max);
+    collapse(mergedMeans, mergedWeights, total);
+  }
+
+  TDigest copy() {
+    compress();
+    TDigest copy = new TDigest(compression);
+    copy.means = Arrays.copyOf(means, means.length);
+    copy.weights = Arrays.copyOf(weights, weights.length);
+    copy.centroids = centroids;
+    copy.totalWeight = totalWeight;
+    copy.min = min;
+    copy.max = max;
+    return copy;
+  }
+
+  /**
+   * @return The amount of numbers added.
+   */
+  long count() {
+    return (long) totalWeight + buffered;
+  }
+
+  int centroids() {
+    compress();
+    return centroids;
+  }
+
+  /**
+   * Percentile {@code q} (from {@code 0} to {@code 1}), interpolating linearly between the closest
+   * centroids, as the {@code PERCENTILE.INC} function of spreadsheets does between the closest
+   * numbers: the centroid of {@code w} numbers, after {@code c} smaller ones, is at the rank
+   * {@code c + (w - 1) / 2}.
+   *
+   * @return The percentile, or {@code NaN} if there are no numbers.
+   */
+  double quantile(double q) {
+    compress();
+    if (centroids == 0) {
+      return Double.NaN;
+    }
+    double rank = q * (totalWeight - 1);
+    double center = (weights[0] - 1) / 2;
+    if (rank <= center) {
+      return center == 0 ? means[0] : interpolate(min, 0, means[0], center, rank);
+    }
+    double before = 0;
+    for (int i = 0; i < centroids - 1; i++) {
+      before += weights[i];
+      double nextCenter = before + (weights[i + 1] - 1) / 2;
+      if (rank <= nextCenter) {
+        return interpolate(means[i], center, means[i + 1], nextCenter, rank);
+      }
+      center = nextCenter;
+    }
+    double last = totalWeight - 1;
+    return last == center
+           ? means[centroids - 1]
+           : interpolate(means[centroids - 1], center, max, last, rank);
+  }
+
+  private double interpolate(double left, double leftRank, double right, double rightRank,
+                             double rank) {
+    double value = left + (right - left) * ((rank - leftRank) / (rightRank - leftRank));
+    // rounding may leave it slightly outside the numbers
+    return Math.max(min, Math.min(max, value));
+  }
+
+  /**
+   * Merges the buffered numbers into the centroids. Digests aren't modified by any other method,
+   * but {@link #add(double)} and {@link #merge(TDigest)}, once compressed, so they can be shared.
+   */
+  void compress() {
+    if (buffered == 0) {
+      return;
+    }
+    Arrays.sort(buffer, 0, buffered);
+    int total = centroids + buffered;
+    double[] mergedMeans = new double[total];
+    double[] mergedWeights = new double[total];
+    int i = 0;
+    int j = 0;
+    for (int k = 0; k < total; k++) {
+      if (j == buffered || (i < centroids && means[i] <= buffer[j])) {
+        mergedMeans[k] = means[i];
+        mergedWeights[k] = weights[i++];
+      } else {
+        mergedMeans[k] = buffer[j++];
+        mergedWeights[k] = 1;
+      }
+    }
+    totalWeight += buffered;
+    buffered = 0;
+    collapse(mergedMeans, mergedWeights, total);
+  }
+
+  /**
+   * Merges consecutive (sorted) centroids, as long as the merged one doesn't span more than
+   * {@code 1} in the scale {@code k(q) = δ / (2π) * asin(2q - 1)}.
+   */
+  private void collapse(double[] sortedMeans, double[] sortedWeights, int size) {
+    centroids = 0;
+    double weightSoFar = 0;
+    double mean = sortedMeans[0];
+    double weight = sortedWeights[0];
+    double limit = totalWeight * limit(0);
+    for (int i = 1; i < size; i++) {
+      if (weightSoFar + weight + sortedWeights[i] <= limit) {
+        weight += sortedWeights[i];
+        mean += (sortedMeans[i] - mean) * sortedWeights[i] / weight;
+      } else {
+        emit(mean, weight);
+        weightSoFar += weight;
+        limit = totalWeight * limit(weightSoFar / totalWeight);
+        mean = sortedMeans[i];
+        weight = sortedWeights[i];
+      }
+    }
+    emit(mean, weight);
+  }
+
+  private void emit(double mean, double weight) {
+    if (centroids == means.length) {
+      means = Arrays.copyOf(means, centroids * 2);
+      weights = Arrays.copyOf(weights, centroids * 2);
+    }
+    means[centroids] = mean;
+    weights[centroids++] = weight;
+  }
+
+  /**
+   * @return The quantile up to which a centroid starting at {@code q} may grow: {@code 1} further
+   *     in the {@code k} scale.
+   */
+  private double limit(double q) {
+    double k = compression / (2 * Math.PI) * Math.asin(2 * q - 1) + 1;
+    return k >= compression / 4 ? 1 : (Math.sin(k * 2 * Math.PI / compression) + 1) / 2;
+  }
+}
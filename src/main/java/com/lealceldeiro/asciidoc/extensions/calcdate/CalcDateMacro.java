@@ -2,8 +2,11 @@ package com.lealceldeiro.asciidoc.extensions.calcdate;
 
 import com.lealceldeiro.asciidoc.extensions.Calc;
 import com.lealceldeiro.asciidoc.extensions.InvalidValue;
+import com.lealceldeiro.asciidoc.extensions.LruCache;
 import com.lealceldeiro.asciidoc.extensions.Macro;
 import com.lealceldeiro.asciidoc.extensions.Operator;
+import com.lealceldeiro.asciidoc.extensions.Parsing;
+import com.lealceldeiro.asciidoc.extensions.Util;
 import com.lealceldeiro.asciidoc.extensions.calclogger.ExtensionLogger;
 import com.lealceldeiro.asciidoc.extensions.calclogger.ExtensionLoggerFactory;
 import java.time.LocalDate;
@@ -47,9 +50,27 @@ public class CalcDateMacro extends InlineMacroProcessor implements Calc<Map<Stri
   static final String MODE_ATTRIBUTE_POSITION = "4";
   static final String FROM_ZONE_ID_ATTRIBUTE_POSITION = "5";
   static final String TO_ZONE_ID_ATTRIBUTE_POSITION = "6";
+  static final int DEFAULT_CACHE_SIZE = 128;
+  static final Locale FORMAT_LOCALE = Locale.ENGLISH;
+
+  /**
+   * Compiled formatters, keyed by pattern and locale. Invalid patterns are cached too (as empty
+   * values), so they aren't parsed again either.
+   */
+  private static final LruCache<FormatKey, Optional<DateTimeFormatter>> formatters
+      = new LruCache<>(Util.intSetting(Macro.Key.DATE_CACHE_SIZE, null, DEFAULT_CACHE_SIZE));
+  /**
+   * Resolved zones, keyed by id. Invalid ids are cached as empty values.
+   */
+  private static final LruCache<String, Optional<ZoneId>> zones
+      = new LruCache<>(Util.intSetting(Macro.Key.DATE_CACHE_SIZE, null, DEFAULT_CACHE_SIZE));
+
+  private record FormatKey(String pattern, Locale locale) {
+  }
 
   @Override
   public PhraseNode process(StructuralNode parent, String target, Map<String, Object> attributes) {
+    // not memoized (see ResultMemo): the result depends on the current time
     String calcResult = calculate(target, attributes);
 
     // https://docs.asciidoctor.org/pdf-converter/latest/extend/create-converter/#override-a-method
@@ -59,8 +80,8 @@ public class CalcDateMacro extends InlineMacroProcessor implements Calc<Map<Stri
 
   @Override
   public String calculate(String operation, Map<String, Object> attributes) {
-    logger.log(this, "Operator on optionalDate: " + operation);
-    logger.log(this, "Attributes: " + attributes);
+    logger.log(this, () -> "Operator on optionalDate: " + operation);
+    logger.log(this, () -> "Attributes: " + attributes);
 
     boolean ignoreInvalid = ignoreInvalid(attributes);
     if (ignoreInvalid) {
@@ -87,15 +108,16 @@ public class CalcDateMacro extends InlineMacroProcessor implements Calc<Map<Stri
     TemporalUnit unit = getTemporalUnit(attributes);
 
     LocalDate date = optionalDate.get();
-    ZoneId srcZoneId = getSrcZoneId(attributes);
-    ZoneId targetZoneId = getTargetZoneId(attributes);
+    ZoneId systemZoneId = ZoneId.systemDefault();
+    ZoneId srcZoneId = getSrcZoneId(attributes, systemZoneId);
+    ZoneId targetZoneId = getTargetZoneId(attributes, systemZoneId);
     LocalDateTime now = LocalDateTime.now(srcZoneId);
     ZonedDateTime zonedDateTime = ZonedDateTime.of(date, now.toLocalTime(), srcZoneId);
     long amount = optionalAmount.get();
-    logger.log(this, "Performing " + operation
-                     + " on date: " + zonedDateTime
-                     + " with amount: " + amount
-                     + " and formatter: " + formatter);
+    logger.log(this, () -> "Performing " + operation
+                           + " on date: " + zonedDateTime
+                           + " with amount: " + amount
+                           + " and formatter: " + formatter);
 
     if (operation.equals(Operator.SUM)) {
       LocalDate dateAtTarget = zonedDateTime.plus(amount, unit)
@@ -112,28 +134,27 @@ public class CalcDateMacro extends InlineMacroProcessor implements Calc<Map<Stri
     return InvalidValue.NOT_AN_OPERATION;
   }
 
-  private ZoneId getSrcZoneId(Map<String, Object> attributes) {
-    return zoneId(attributes, Macro.Key.FROM_ZONE_ID, FROM_ZONE_ID_ATTRIBUTE_POSITION);
+  private ZoneId getSrcZoneId(Map<String, Object> attributes, ZoneId defaultZoneId) {
+    return zoneId(attributes, Macro.Key.FROM_ZONE_ID, FROM_ZONE_ID_ATTRIBUTE_POSITION,
+                  defaultZoneId);
+  }
+
+  private ZoneId getTargetZoneId(Map<String, Object> attributes, ZoneId defaultZoneId) {
+    return zoneId(attributes, Macro.Key.TO_ZONE_ID, TO_ZONE_ID_ATTRIBUTE_POSITION, defaultZoneId);
   }
 
-  private ZoneId getTargetZoneId(Map<String, Object> attributes) {
-    return zoneId(attributes, Macro.Key.TO_ZONE_ID, TO_ZONE_ID_ATTRIBUTE_POSITION);
+  private ZoneId zoneId(Map<String, Object> attributes, String key, String position,
+                        ZoneId defaultZoneId) {
+    Object id = attributes.getOrDefault(key, attributes.get(position));
+    if (id == null) {
+      return defaultZoneId;
+    }
+    return zones.computeIfAbsent(id.toString(), CalcDateMacro::resolveZoneId)
+                .orElse(defaultZoneId);
   }
 
-  private ZoneId zoneId(Map<String, Object> attributes, String key, String position) {
-    Object id = attributes.getOrDefault(key,
-                                        attributes.getOrDefault(position,
-                                                                ZoneId.systemDefault().getId()));
-    return Optional.ofNullable(id)
-                   .map(Object::toString)
-                   .map(candidateId -> {
-                     try {
-                       return ZoneId.of(candidateId);
-                     } catch (RuntimeException e) {
-                       return ZoneId.systemDefault();
-                     }
-                   })
-                   .orElseGet(ZoneId::systemDefault);
+  private static Optional<ZoneId> resolveZoneId(String id) {
+    return Optional.ofNullable(Parsing.toZoneId(id));
   }
 
   private static boolean ignoreInvalid(Map<String, Object> attributes) {
@@ -144,13 +165,9 @@ public class CalcDateMacro extends InlineMacroProcessor implements Calc<Map<Stri
   private Optional<LocalDate> getDate(Map<String, Object> attributes, boolean ignoreInvalid) {
     Object dateValue = attributes.getOrDefault(Macro.Key.DATE,
                                                attributes.get(DATE_ATTRIBUTE_POSITION));
-    LocalDate date = null;
-    try {
-      date = LocalDate.parse(dateValue.toString());
-    } catch (NullPointerException | DateTimeParseException e) {
-      if (ignoreInvalid) {
-        date = LocalDate.now();
-      }
+    LocalDate date = dateValue != null ? Parsing.toLocalDate(dateValue.toString()) : null;
+    if (date == null && ignoreInvalid) {
+      date = LocalDate.now();
     }
     return Optional.ofNullable(date);
   }
@@ -169,30 +186,42 @@ public class CalcDateMacro extends InlineMacroProcessor implements Calc<Map<Stri
   private String getRawTargetFormat(Map<String, Object> attr) {
     Object value = attr.getOrDefault(Macro.Key.TARGET_FORMAT,
                                      attr.get(TARGET_FORMAT_ATTRIBUTE_POSITION));
-    logger.log(this, "Raw format: " + value);
+    logger.log(this, () -> "Raw format: " + value);
     return value != null ? value.toString() : null;
   }
 
   private Optional<DateTimeFormatter> getTargetFormat(String rawFormat, boolean ignoreInvalid) {
-    DateTimeFormatter dateTimeFormatter = null;
+    Optional<DateTimeFormatter> dateTimeFormatter = Optional.empty();
+    if (rawFormat != null) {
+      dateTimeFormatter = formatters.computeIfAbsent(new FormatKey(rawFormat, FORMAT_LOCALE),
+                                                     CalcDateMacro::compileFormat);
+    }
+    if (dateTimeFormatter.isEmpty() && ignoreInvalid) {
+      return Optional.of(DateTimeFormatter.ISO_DATE);
+    }
+    return dateTimeFormatter;
+  }
+
+  private static Optional<DateTimeFormatter> compileFormat(FormatKey key) {
     try {
-      dateTimeFormatter = DateTimeFormatter.ofPattern(rawFormat, Locale.ENGLISH);
-    } catch (NullPointerException | IllegalArgumentException | DateTimeParseException e) {
-      if (ignoreInvalid) {
-        dateTimeFormatter = DateTimeFormatter.ISO_DATE;
-      }
+      return Optional.of(DateTimeFormatter.ofPattern(key.pattern(), key.locale()));
+    } catch (IllegalArgumentException | DateTimeParseException e) {
+      return Optional.empty();
     }
-    return Optional.ofNullable(dateTimeFormatter);
+  }
+
+  public static LruCache.Stats formatterCacheStats() {
+    return formatters.stats();
+  }
+
+  public static LruCache.Stats zoneCacheStats() {
+    return zones.stats();
   }
 
   private static Optional<Long> getLong(String rawValue, boolean ignoreInvalid) {
-    Long val = null;
-    try {
-      val = Long.parseLong(rawValue);
-    } catch (NullPointerException | NumberFormatException e) {
-      if (ignoreInvalid) {
-        val = 0L;
-      }
+    Long val = Parsing.toLong(rawValue);
+    if (val == null && ignoreInvalid) {
+      val = 0L;
     }
     return Optional.ofNullable(val);
   }
@@ -2,19 +2,30 @@ package com.lealceldeiro.asciidoc.extensions.calcexpression;
 
 import static com.lealceldeiro.asciidoc.extensions.Macro.Key.AUTHOR;
 import static com.lealceldeiro.asciidoc.extensions.Macro.Key.EXP;
+import static com.lealceldeiro.asciidoc.extensions.Macro.Key.EXPRESSION_CACHE_SIZE;
+import static com.lealceldeiro.asciidoc.extensions.Macro.Key.EXPRESSION_ENGINE;
 import static com.lealceldeiro.asciidoc.extensions.Macro.Key.LICENSE_TYPE;
+import static com.lealceldeiro.asciidoc.extensions.Macro.Key.MEMO;
+import static com.lealceldeiro.asciidoc.extensions.Macro.Key.PERSISTENT_CACHE;
 
 import com.lealceldeiro.asciidoc.extensions.Calc;
 import com.lealceldeiro.asciidoc.extensions.InvalidValue;
+import com.lealceldeiro.asciidoc.extensions.LruCache;
+import com.lealceldeiro.asciidoc.extensions.PersistentResultCache;
+import com.lealceldeiro.asciidoc.extensions.ResultMemo;
 import com.lealceldeiro.asciidoc.extensions.Util;
 import com.lealceldeiro.asciidoc.extensions.calclogger.ExtensionLogger;
 import com.lealceldeiro.asciidoc.extensions.calclogger.ExtensionLoggerFactory;
+import java.lang.ref.WeakReference;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
 import org.asciidoctor.ast.Document;
 import org.asciidoctor.ast.PhraseNode;
 import org.asciidoctor.ast.StructuralNode;
@@ -23,8 +34,6 @@ import org.asciidoctor.extension.FormatType;
 import org.asciidoctor.extension.InlineMacroProcessor;
 import org.asciidoctor.extension.Name;
 import org.asciidoctor.extension.PositionalAttributes;
-import org.mariuszgromada.math.mxparser.Expression;
-import org.mariuszgromada.math.mxparser.License;
 
 /**
  * Docs at
@@ -37,21 +46,33 @@ import org.mariuszgromada.math.mxparser.License;
 @PositionalAttributes({EXP, AUTHOR, LICENSE_TYPE})
 public class CalcExpressionMacro extends InlineMacroProcessor implements Calc<CalcExpressionMacro.Attributes> {
   public static final class Attributes {
-    private final Map<String, Object> documentAttributes;
+    private final DocumentSnapshot documentAttributes;
     private final Map<String, Object> macroAttributes;
 
     public Attributes(Map<String, Object> documentAttributes,
                       Map<String, Object> macroAttributes) {
-      this.documentAttributes = Optional.ofNullable(documentAttributes)
-                                        .map(HashMap::new)
-                                        .orElseGet(HashMap::new);
+      this(DocumentSnapshot.of(documentAttributes), macroAttributes);
+    }
+
+    private Attributes(DocumentSnapshot documentAttributes, Map<String, Object> macroAttributes) {
+      this.documentAttributes = documentAttributes;
       this.macroAttributes = Optional.ofNullable(macroAttributes)
                                      .map(HashMap::new)
                                      .orElseGet(HashMap::new);
     }
 
+    /**
+     * @param documentSnapshot Attributes of the document, shared as they are.
+     */
+    static Attributes withSnapshot(DocumentSnapshot documentSnapshot,
+                                   Map<String, Object> macroAttributes) {
+      return new Attributes(documentSnapshot, macroAttributes);
+    }
+
     Object getAttribute(String key) {
-      return macroAttributes.getOrDefault(key, documentAttributes.get(key));
+      return macroAttributes.containsKey(key)
+             ? macroAttributes.get(key)
+             : documentAttributes.get(key);
     }
 
     @Override
@@ -63,39 +84,140 @@ public class CalcExpressionMacro extends InlineMacroProcessor implements Calc<Ca
     }
   }
 
+  /**
+   * Attributes of a document, as they were when converting a block, each one read the first time a
+   * macro of the block needs it, as every call to {@link Document#getAttribute(Object)} goes into
+   * JRuby.
+   */
+  static final class DocumentSnapshot {
+    // both are weakly referenced, as the snapshots are weakly kept by document
+    private final WeakReference<Document> document;
+    private final WeakReference<StructuralNode> block;
+    private final Map<String, Optional<Object>> values = new ConcurrentHashMap<>();
+
+    private DocumentSnapshot(Document document, StructuralNode block) {
+      this.document = new WeakReference<>(document);
+      this.block = new WeakReference<>(block);
+    }
+
+    static DocumentSnapshot of(Map<String, Object> attributes) {
+      DocumentSnapshot snapshot = new DocumentSnapshot(null, null);
+      if (attributes != null) {
+        attributes.forEach((key, value) -> snapshot.values.put(key, Optional.ofNullable(value)));
+      }
+      return snapshot;
+    }
+
+    Object get(String key) {
+      return values.computeIfAbsent(key, k -> Optional.ofNullable(read(k))).orElse(null);
+    }
+
+    /**
+     * @return The attributes with the given names that are set.
+     */
+    Map<String, Object> get(List<String> keys) {
+      Map<String, Object> attributes = new HashMap<>();
+      for (String key : keys) {
+        Object value = get(key);
+        if (value != null) {
+          attributes.put(key, value);
+        }
+      }
+      return attributes;
+    }
+
+    private Object read(String key) {
+      Document snapshotDocument = document.get();
+      return snapshotDocument != null ? snapshotDocument.getAttribute(key) : null;
+    }
+
+    @Override
+    public String toString() {
+      return values.toString();
+    }
+  }
+
+  private record CacheKey(ExpressionEngine engine, String expression) {
+  }
+
   private static final ExtensionLogger logger = ExtensionLoggerFactory.getInstance();
   static final String EXP_POSITION = "1";
+  static final int DEFAULT_EXPRESSION_CACHE_SIZE = 512;
+  /**
+   * Document attributes the result depends on.
+   */
+  static final List<String> RESULT_ATTRIBUTES = List.of(AUTHOR, LICENSE_TYPE, EXPRESSION_ENGINE);
+
+  /**
+   * Parsed expressions, shared by all the instances of this macro, so its size is only set for the
+   * whole JVM (with a system property), not by a document.
+   */
+  private static final LruCache<CacheKey, CompiledExpression> expressionCache
+      = new LruCache<>(Util.intSetting(EXPRESSION_CACHE_SIZE, null, DEFAULT_EXPRESSION_CACHE_SIZE));
+  /**
+   * Latest snapshot of the attributes of every document being converted. Documents are weakly
+   * referenced, so their snapshots are discarded along with them.
+   */
+  private static final Map<Document, DocumentSnapshot> documentSnapshots
+      = Collections.synchronizedMap(new WeakHashMap<>());
 
   public static final String LICENSE_TYPE_COMMERCIAL_VALUE = "commercial";
   public static final String LICENSE_TYPE_NON_COMMERCIAL_VALUE = "non_commercial";
 
   @Override
   public PhraseNode process(StructuralNode parent, String target, Map<String, Object> attributes) {
-    Attributes attrs = getCalculationAttributes(parent.getDocument(), attributes);
-    String result = calculate(target, attrs);
+    Attributes attrs = getCalculationAttributes(parent, attributes);
+    String result = ResultMemo.memoize(attrs.getAttribute(MEMO),
+                                       () -> PersistentResultCache.of(
+                                           attrs.getAttribute(PERSISTENT_CACHE),
+                                           parent.getDocument()),
+                                       () -> calculate(target, attrs),
+                                       "calc_exp", target,
+                                       attrs.documentAttributes.get(RESULT_ATTRIBUTES),
+                                       attrs.macroAttributes);
 
     // https://docs.asciidoctor.org/pdf-converter/latest/extend/create-converter/#override-a-method
     // https://www.rubydoc.info/gems/asciidoctor-pdf/Asciidoctor/PDF/Converter#convert_inline_quoted-instance_method
     return createPhraseNode(parent, "quoted", result, Collections.emptyMap());
   }
 
+  /**
+   * Returns the attributes of the macro, along with the ones of the document, read as they're
+   * needed.
+   */
   static Attributes getCalculationAttributes(Document parentDocument,
                                              Map<String, Object> macroAttributes) {
-    Map<String, Object> documentAttributes = new HashMap<>();
-
-    Optional.ofNullable(parentDocument)
-            .map(document -> document.getAttribute(AUTHOR))
-            .ifPresent(pAuthor -> documentAttributes.put(AUTHOR, pAuthor));
-    Optional.ofNullable(parentDocument)
-            .map(document -> document.getAttribute(LICENSE_TYPE))
-            .ifPresent(pLicense -> documentAttributes.put(LICENSE_TYPE, pLicense));
+    DocumentSnapshot snapshot = parentDocument != null
+                                ? new DocumentSnapshot(parentDocument, null)
+                                : DocumentSnapshot.of(null);
+    return Attributes.withSnapshot(snapshot, macroAttributes);
+  }
 
-    return new Attributes(documentAttributes, macroAttributes);
+  /**
+   * Returns the attributes of the macro, along with the ones of the document, reusing those read
+   * for the previous macro in the same block.
+   *
+   * <p>Asciidoctor doesn't keep track of changes to the document attributes, but it only applies
+   * the attribute entries found in the middle of a document right before converting the block
+   * following them. So, the snapshot is taken again whenever the macro is found in a different
+   * block, and redefined attributes are respected.
+   */
+  static Attributes getCalculationAttributes(StructuralNode parent,
+                                             Map<String, Object> macroAttributes) {
+    Document document = parent.getDocument();
+    if (document == null) {
+      return getCalculationAttributes((Document) null, macroAttributes);
+    }
+    DocumentSnapshot snapshot = documentSnapshots.compute(
+        document, (key, current) -> current != null && current.block.get() == parent
+                                    ? current
+                                    : new DocumentSnapshot(key, parent));
+    return Attributes.withSnapshot(snapshot, macroAttributes);
   }
 
   @Override
   public String calculate(String ignored, Attributes attributes) {
-    logger.log(this, "Attributes: " + attributes);
+    logger.log(this, () -> "Attributes: " + attributes);
 
     String expression = getExpression(attributes);
     if (expression == null || expression.isBlank()) {
@@ -117,18 +239,28 @@ public class CalcExpressionMacro extends InlineMacroProcessor implements Calc<Ca
       return InvalidValue.NOT_A_LICENSE;
     }
 
-    confirmXParserLicence(author, licenseType);
+    ExpressionEngine engine = getEngine(attributes);
+    engine.confirmLicense(author, licenseType);
 
     RoundingMode roundingMode = Util.roundingMode(this, attributes.macroAttributes);
 
-    return evaluate(expression, roundingMode);
+    return evaluate(engine, expression, roundingMode);
+  }
+
+  private ExpressionEngine getEngine(Attributes attributes) {
+    String engineName = Util.setting(EXPRESSION_ENGINE, attributes.getAttribute(EXPRESSION_ENGINE),
+                                     DefaultExpressionEngine.NAME);
+    Optional<ExpressionEngine> engine = ExpressionEngines.get(engineName);
+    if (engine.isEmpty()) {
+      logger.log(this, () -> "Unknown expression engine: " + engineName
+                              + ", using the default one");
+    }
+    return engine.orElseGet(ExpressionEngines::getDefault);
   }
 
   private static String getAttribute(String attrName, Attributes attributes,
                                      String... validValues) {
-    Object rawAttr
-        = attributes.macroAttributes.getOrDefault(attrName,
-                                                  attributes.documentAttributes.get(attrName));
+    Object rawAttr = attributes.getAttribute(attrName);
     if (rawAttr == null) {
       return null;
     }
@@ -147,23 +279,16 @@ public class CalcExpressionMacro extends InlineMacroProcessor implements Calc<Ca
     return skipValidValuesEvaluation ? attr : null;
   }
 
-  private void confirmXParserLicence(String author, String licenseType) {
-    if (LICENSE_TYPE_NON_COMMERCIAL_VALUE.equals(licenseType)) {
-      License.iConfirmNonCommercialUse(author);
-    } else if (LICENSE_TYPE_COMMERCIAL_VALUE.equals(licenseType)) {
-      License.iConfirmCommercialUse(author);
-    } else {
-      logger.log(this, "Unknown license type: " + licenseType);
-    }
+  public static LruCache.Stats expressionCacheStats() {
+    return expressionCache.stats();
   }
 
-  private String evaluate(String expression, RoundingMode roundingMode) {
-    logger.log(this, "Expression: " + expression);
+  private String evaluate(ExpressionEngine engine, String expression, RoundingMode roundingMode) {
+    logger.log(this, () -> "Expression: " + expression + ", engine: " + engine.name());
 
-    return evalExpression(expression).map(BigDecimal::new)
-                                     .map(value -> value.setScale(2, roundingMode))
-                                     .map(BigDecimal::toString)
-                                     .orElse(InvalidValue.NOT_AN_EXPRESSION);
+    return evalExpression(engine, expression, roundingMode)
+        .map(BigDecimal::toString)
+        .orElse(InvalidValue.NOT_AN_EXPRESSION);
   }
 
   private String getExpression(Attributes attributes) {
@@ -173,22 +298,24 @@ public class CalcExpressionMacro extends InlineMacroProcessor implements Calc<Ca
   }
 
   /**
-   * Evaluates an expression and returns the result of the evaluation as a string value.
+   * Evaluates an expression and returns the result of the evaluation with a scale of 2.
    *
-   * @param expression Expression to be evaluated.
+   * @param engine       Engine used to compile the expression, if not cached yet.
+   * @param expression   Expression to be evaluated.
+   * @param roundingMode Rounding mode used to set the scale of the result.
    *
    * @return Evaluation of the expression.
    *
-   * @see <a href="https://mathparser.org/">mXParser</a>
+   * @see ExpressionEngine
    */
-  private Optional<Double> evalExpression(String expression) {
-    Expression exp = new Expression(expression);
-    double expResult = exp.calculate();
-    if (Double.isNaN(expResult)) {
-      logger.log(this, expResult + " returned from math lib for expression: " + expression
-                       + ", evaluated: " + exp);
-      return Optional.empty();
-    }
-    return Optional.of(expResult);
+  private Optional<BigDecimal> evalExpression(ExpressionEngine engine, String expression,
+                                              RoundingMode roundingMode) {
+    CompiledExpression exp = expressionCache.computeIfAbsent(new CacheKey(engine, expression),
+                                                             key -> engine.compile(expression));
+    Optional<BigDecimal> result = exp.evaluate(2, roundingMode);
+    if (result.isEmpty()) {
+      logger.log(this, () -> "No result for expression: " + expression + ", evaluated: " + exp);
+    }
+    return result;
   }
 }
@@ -0,0 +1,20 @@
+package com.lealceldeiro.asciidoc.extensions.calcexpression;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Optional;
+
+/**
+ * Expression parsed once, that can be evaluated many times, from many threads.
+ */
+public interface CompiledExpression {
+  /**
+   * Evaluates the expression.
+   *
+   * @param scale        Scale of the result.
+   * @param roundingMode Rounding mode used to set the scale of the result.
+   *
+   * @return The result, or an empty value if the expression can't be evaluated.
+   */
+  Optional<BigDecimal> evaluate(int scale, RoundingMode roundingMode);
+}
@@ -0,0 +1,31 @@
+package com.lealceldeiro.asciidoc.extensions.calcexpression;
+
+/**
+ * Evaluates expressions exactly with {@link NativeExpression} when possible, and with mXparser
+ * otherwise.
+ */
+public class DefaultExpressionEngine implements ExpressionEngine {
+  public static final String NAME = "default";
+
+  @Override
+  public String name() {
+    return NAME;
+  }
+
+  @Override
+  public CompiledExpression compile(String expression) {
+    return NativeExpression.compile(expression);
+  }
+
+  @Override
+  public void confirmLicense(String author, String licenseType) {
+    // any expression may still be evaluated by mXparser
+    MXparserExpressionEngine.confirmXParserLicense(author, licenseType);
+  }
+
+  @Override
+  public void warmUp() {
+    NativeExpression.warmUp();
+    MXparserExpressionEngine.warmUpXParser();
+  }
+}
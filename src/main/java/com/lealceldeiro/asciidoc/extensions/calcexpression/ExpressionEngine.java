@@ -0,0 +1,49 @@
+package com.lealceldeiro.asciidoc.extensions.calcexpression;
+
+/**
+ * Engine used by the {@code calc_exp} macro to evaluate expressions.
+ *
+ * <p>Engines are discovered with {@link java.util.ServiceLoader}: implementations must be listed in
+ * a {@code META-INF/services/com.lealceldeiro.asciidoc.extensions.calcexpression.ExpressionEngine}
+ * file, and are selected by their {@link #name()} with the {@code calc_exp_engine} attribute.
+ * Implementations must be thread-safe, and so must be the expressions they compile.
+ */
+public interface ExpressionEngine {
+  /**
+   * @return Name used to select this engine. It must be unique.
+   */
+  String name();
+
+  /**
+   * Compiles an expression. The result may be cached and evaluated many times.
+   *
+   * @param expression Expression to be compiled.
+   *
+   * @return The compiled expression. It should never be {@code null}: invalid expressions must be
+   *     reported by returning an empty result when evaluated.
+   */
+  CompiledExpression compile(String expression);
+
+  /**
+   * Acknowledges the license type of the engine, if it requires so, before evaluating any
+   * expression.
+   *
+   * @param author      Author of the document.
+   * @param licenseType One of {@link CalcExpressionMacro#LICENSE_TYPE_COMMERCIAL_VALUE} or
+   *                    {@link CalcExpressionMacro#LICENSE_TYPE_NON_COMMERCIAL_VALUE}.
+   */
+  default void confirmLicense(String author, String licenseType) {
+    // most engines don't require it
+  }
+
+  /**
+   * Loads and exercises the code used to compile and evaluate expressions, so the first
+   * expressions of the first document don't pay for it. It's called from a background thread
+   * when the {@code prewarm} startup mode is selected (see {@link ExpressionEngineStartup}).
+   *
+   * <p>It must not have any visible side effect, such as confirming a license or logging.
+   */
+  default void warmUp() {
+    // nothing to warm up by default
+  }
+}
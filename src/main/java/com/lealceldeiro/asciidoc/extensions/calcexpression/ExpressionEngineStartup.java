@@ -0,0 +1,71 @@
+package com.lealceldeiro.asciidoc.extensions.calcexpression;
+
+import com.lealceldeiro.asciidoc.extensions.Macro;
+import com.lealceldeiro.asciidoc.extensions.Util;
+import com.lealceldeiro.asciidoc.extensions.calclogger.ExtensionLogger;
+import com.lealceldeiro.asciidoc.extensions.calclogger.ExtensionLoggerFactory;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Startup modes of the expression engines, selected with the system property
+ * {@code asciidoc.extensions.calc_exp_startup}:
+ *
+ * <ul>
+ *   <li>{@value #LAZY} (default): nothing is loaded when the extension is registered. The engines,
+ *   and mXparser, are loaded by the first {@code calc_exp} macro.</li>
+ *   <li>{@value #PREWARM}: the first registration starts a background virtual thread which loads
+ *   and warms up every engine (see {@link ExpressionEngine#warmUp()}), so the first document
+ *   using {@code calc_exp} is rendered faster.</li>
+ * </ul>
+ */
+public final class ExpressionEngineStartup {
+  public static final String LAZY = "lazy";
+  public static final String PREWARM = "prewarm";
+
+  private static final ExtensionLogger logger = ExtensionLoggerFactory.getInstance();
+  private static final AtomicReference<Thread> prewarmThread = new AtomicReference<>();
+
+  private ExpressionEngineStartup() {
+  }
+
+  public static String mode() {
+    String mode = Util.setting(Macro.Key.EXPRESSION_STARTUP, null, LAZY);
+    return PREWARM.equalsIgnoreCase(mode) ? PREWARM : LAZY;
+  }
+
+  /**
+   * Called every time the {@code calc_exp} macro is registered in an Asciidoctor instance.
+   *
+   * @return The thread warming up the engines, if the {@value #PREWARM} mode is selected. Only one
+   *     is started per JVM.
+   */
+  public static Optional<Thread> onRegistration() {
+    if (!PREWARM.equals(mode())) {
+      return Optional.empty();
+    }
+    Thread thread = prewarmThread.get();
+    if (thread == null) {
+      Thread unstarted = Thread.ofVirtual().name("calc-exp-prewarm").unstarted(
+          ExpressionEngineStartup::warmUp);
+      if (prewarmThread.compareAndSet(null, unstarted)) {
+        unstarted.start();
+      }
+      thread = prewarmThread.get();
+    }
+    return Optional.of(thread);
+  }
+
+  static void warmUp() {
+    long start = System.nanoTime();
+    for (ExpressionEngine engine : ExpressionEngines.all().values()) {
+      try {
+        engine.warmUp();
+      } catch (RuntimeException | LinkageError e) {
+        logger.log(null, () -> "Expression engine " + engine.name() + " not warmed up: " + e);
+      }
+    }
+    logger.log(null, () -> "Expression engines warmed up in "
+                           + (System.nanoTime() - start) / 1_000_000 + " ms");
+  }
+}
@@ -0,0 +1,38 @@
+package com.lealceldeiro.asciidoc.extensions.calcexpression;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.ServiceLoader;
+
+/**
+ * Engines available in the classpath, discovered once with {@link ServiceLoader}.
+ */
+public final class ExpressionEngines {
+  private ExpressionEngines() {
+  }
+
+  public static Optional<ExpressionEngine> get(String name) {
+    return Optional.ofNullable(Holder.ENGINES.get(name));
+  }
+
+  public static ExpressionEngine getDefault() {
+    return get(DefaultExpressionEngine.NAME).orElseGet(DefaultExpressionEngine::new);
+  }
+
+  public static Map<String, ExpressionEngine> all() {
+    return Holder.ENGINES;
+  }
+
+  private static final class Holder {
+    private static final Map<String, ExpressionEngine> ENGINES = load();
+
+    private static Map<String, ExpressionEngine> load() {
+      Map<String, ExpressionEngine> engines = new HashMap<>();
+      ServiceLoader.load(ExpressionEngine.class, ExpressionEngine.class.getClassLoader())
+                   .forEach(engine -> engines.putIfAbsent(engine.name(), engine));
+      return Collections.unmodifiableMap(engines);
+    }
+  }
+}
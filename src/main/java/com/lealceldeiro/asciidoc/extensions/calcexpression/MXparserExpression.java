@@ -0,0 +1,51 @@
+package com.lealceldeiro.asciidoc.extensions.calcexpression;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import org.mariuszgromada.math.mxparser.Expression;
+
+/**
+ * Expression evaluated by mXparser.
+ *
+ * <p>An mXparser {@link Expression} is not thread-safe, so every evaluation borrows an instance
+ * which isn't being used by any other thread, creating a new one only when all of them are busy.
+ * That way, the same (cached) expression can be evaluated by many threads at the same time, and
+ * it's parsed at most once per concurrent evaluation.
+ *
+ * @see <a href="https://mathparser.org/">mXParser</a>
+ */
+final class MXparserExpression implements CompiledExpression {
+  private final String expression;
+  private final Queue<Expression> idle = new ConcurrentLinkedQueue<>();
+
+  MXparserExpression(String expression) {
+    this.expression = expression;
+    this.idle.add(new Expression(expression));
+  }
+
+  @Override
+  public Optional<BigDecimal> evaluate(int scale, RoundingMode roundingMode) {
+    Expression instance = idle.poll();
+    if (instance == null) {
+      instance = new Expression(expression);
+    }
+    double result;
+    try {
+      result = instance.calculate();
+    } finally {
+      idle.offer(instance);
+    }
+    if (Double.isNaN(result) || Double.isInfinite(result)) {
+      return Optional.empty();
+    }
+    return Optional.of(new BigDecimal(result).setScale(scale, roundingMode));
+  }
+
+  @Override
+  public String toString() {
+    return "MXparserExpression{" + expression + '}';
+  }
+}
@@ -0,0 +1,97 @@
+package com.lealceldeiro.asciidoc.extensions.calcexpression;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.mariuszgromada.math.mxparser.Expression;
+import org.mariuszgromada.math.mxparser.License;
+
+/**
+ * Evaluates every expression with mXparser.
+ *
+ * @see <a href="https://mathparser.org/">mXParser</a>
+ */
+public class MXparserExpressionEngine implements ExpressionEngine {
+  public static final String NAME = "mxparser";
+
+  private record Confirmation(String author, String licenseType) {
+  }
+
+  /**
+   * Confirmations already sent to mXparser. The license is global, static, state in mXparser, so
+   * it's confirmed only once for every author and license type, instead of on every evaluation.
+   */
+  private static final Map<Confirmation, Boolean> confirmations = new ConcurrentHashMap<>();
+
+  private static final List<String> WARM_UP_EXPRESSIONS
+      = List.of("(1.5 + 2.25) * 3 / 4 - 1", "sin(0.5) + 2 ^ 0.5 * (3 - 1) / 4",
+                "sqrt(16) + ln(2.718) + max(1, 2, 3) + 10 % 3");
+  private static final int WARM_UP_ITERATIONS = 50;
+  private static final AtomicBoolean warmedUp = new AtomicBoolean();
+
+  @Override
+  public String name() {
+    return NAME;
+  }
+
+  @Override
+  public CompiledExpression compile(String expression) {
+    return new MXparserExpression(expression);
+  }
+
+  @Override
+  public void confirmLicense(String author, String licenseType) {
+    confirmXParserLicense(author, licenseType);
+  }
+
+  /**
+   * Confirms the mXparser license the first time it's called for an author and license type. Any
+   * other thread calling it for the same author and license type at the same time waits until the
+   * confirmation is done.
+   */
+  static void confirmXParserLicense(String author, String licenseType) {
+    confirmations.computeIfAbsent(new Confirmation(author, licenseType), confirmation -> {
+      // different confirmations must not be sent to mXparser at the same time either
+      synchronized (License.class) {
+        if (CalcExpressionMacro.LICENSE_TYPE_NON_COMMERCIAL_VALUE.equals(licenseType)) {
+          License.iConfirmNonCommercialUse(author);
+        } else if (CalcExpressionMacro.LICENSE_TYPE_COMMERCIAL_VALUE.equals(licenseType)) {
+          License.iConfirmCommercialUse(author);
+        }
+      }
+      return Boolean.TRUE;
+    });
+  }
+
+  @Override
+  public void warmUp() {
+    warmUpXParser();
+  }
+
+  /**
+   * Parses a few expressions with mXparser, which takes most of the cost of its first use. They're
+   * only calculated if the license was already confirmed by a macro, as mXparser prints a warning
+   * otherwise (even when asked whether it's confirmed).
+   * It's done only once, even if several engines using mXparser are warmed up.
+   */
+  static void warmUpXParser() {
+    if (!warmedUp.compareAndSet(false, true)) {
+      return;
+    }
+    boolean calculate = !confirmations.isEmpty();
+    for (int i = 0; i < WARM_UP_ITERATIONS; i++) {
+      for (String expression : WARM_UP_EXPRESSIONS) {
+        Expression instance = new Expression(expression);
+        instance.checkSyntax();
+        if (calculate) {
+          instance.calculate();
+        }
+      }
+    }
+  }
+
+  static void clearLicenseConfirmations() {
+    confirmations.clear();
+  }
+}
@@ -0,0 +1,379 @@
+package com.lealceldeiro.asciidoc.extensions.calcexpression;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Expression evaluated exactly, as a {@link Rational}, which covers the most common subset of the
+ * mXparser syntax:
+ *
+ * <ul>
+ *   <li>numbers, in decimal or scientific notation ({@code 1.5}, {@code .5}, {@code 1e-3})</li>
+ *   <li>{@code +}, {@code -}, {@code *}, {@code /}, unary {@code -} and {@code +}, and
+ *   parentheses</li>
+ *   <li>{@code ^} with integer exponents, as long as the result isn't too big</li>
+ *   <li>{@code abs}, {@code sgn}, {@code floor}, {@code ceil}, {@code round(x, places)},
+ *   {@code min(...)}, and {@code max(...)}</li>
+ * </ul>
+ *
+ * <p>Precedence and associativity follow mXparser: unary operators bind tighter than {@code ^},
+ * which is right-associative. Any other expression is evaluated by mXparser instead.
+ */
+final class NativeExpression implements CompiledExpression {
+  static final int MAX_EXPONENT = 1024;
+  /**
+   * Maximum size, in bits, of the numerator and the denominator of a power (about {@code 1233}
+   * decimal digits), far beyond the range of the doubles mXparser evaluates them with, so nested
+   * powers (i.e.: {@code ((10^100)^1000)^1000}) don't build huge numbers.
+   */
+  static final long MAX_POWER_BITS = 4096;
+  static final int MAX_NUMBER_SCALE = 1024;
+
+  private static final List<String> WARM_UP_EXPRESSIONS
+      = List.of("(1.5 + 2.25) * 3 / 4 - 1", "-2 ^ 3 + abs(-1.5e-3) * round(2.345, 2)",
+                "max(1, 2.5, floor(3.7)) / min(4, ceil(0.2)) + sgn(-7)");
+  private static final int WARM_UP_ITERATIONS = 200;
+
+  private final Node root;
+  private final String expression;
+  private volatile CompiledExpression fallback;
+
+  private NativeExpression(Node root, String expression) {
+    this.root = root;
+    this.expression = expression;
+  }
+
+  /**
+   * Compiles an expression natively if it's within the supported subset, otherwise, it's compiled
+   * by mXparser.
+   */
+  static CompiledExpression compile(String expression) {
+    return parse(expression).orElseGet(() -> new MXparserExpression(expression));
+  }
+
+  /**
+   * Parses and evaluates a few expressions, see {@link ExpressionEngine#warmUp()}.
+   */
+  static void warmUp() {
+    for (int i = 0; i < WARM_UP_ITERATIONS; i++) {
+      for (String expression : WARM_UP_EXPRESSIONS) {
+        parse(expression).ifPresent(parsed -> parsed.evaluate(2, RoundingMode.HALF_EVEN));
+      }
+    }
+  }
+
+  static Optional<CompiledExpression> parse(String expression) {
+    try {
+      return Optional.of(new NativeExpression(new Parser(expression).parse(), expression));
+    } catch (UnsupportedExpressionException e) {
+      return Optional.empty();
+    }
+  }
+
+  @Override
+  public Optional<BigDecimal> evaluate(int scale, RoundingMode roundingMode) {
+    if (fallback != null) {
+      return fallback.evaluate(scale, roundingMode);
+    }
+    try {
+      return Optional.of(root.evaluate().toBigDecimal(scale, roundingMode));
+    } catch (ArithmeticException e) {
+      return Optional.empty();
+    } catch (UnsupportedExpressionException e) {
+      fallback = new MXparserExpression(expression);
+      return fallback.evaluate(scale, roundingMode);
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "NativeExpression{" + expression + '}';
+  }
+
+  private static final class UnsupportedExpressionException extends RuntimeException {
+    UnsupportedExpressionException(String message) {
+      super(message, null, false, false);
+    }
+  }
+
+  private sealed interface Node {
+    Rational evaluate();
+  }
+
+  private record Constant(Rational value) implements Node {
+    @Override
+    public Rational evaluate() {
+      return value;
+    }
+  }
+
+  private record Negation(Node operand) implements Node {
+    @Override
+    public Rational evaluate() {
+      return operand.evaluate().negate();
+    }
+  }
+
+  private record Binary(char operator, Node left, Node right) implements Node {
+    @Override
+    public Rational evaluate() {
+      Rational leftValue = left.evaluate();
+      Rational rightValue = right.evaluate();
+      return switch (operator) {
+        case '+' -> leftValue.add(rightValue);
+        case '-' -> leftValue.subtract(rightValue);
+        case '*' -> leftValue.multiply(rightValue);
+        case '/' -> leftValue.divide(rightValue);
+        default -> power(leftValue, rightValue);
+      };
+    }
+
+    private static Rational power(Rational base, Rational exponent) {
+      if (!exponent.isInteger()
+          || exponent.numerator().abs().compareTo(BigInteger.valueOf(MAX_EXPONENT)) > 0) {
+        throw new UnsupportedExpressionException("Unsupported exponent: " + exponent);
+      }
+      int power = exponent.numerator().intValue();
+      // the bit length of x^n is at most n times the one of x
+      long magnitude = Math.abs((long) power);
+      if (base.numerator().bitLength() * magnitude > MAX_POWER_BITS
+          || base.denominator().bitLength() * magnitude > MAX_POWER_BITS) {
+        throw new UnsupportedExpressionException("Unsupported power: " + base + " ^ " + power);
+      }
+      return base.pow(power);
+    }
+  }
+
+  private record FunctionCall(String name, List<Node> arguments) implements Node {
+    @Override
+    public Rational evaluate() {
+      Rational first = arguments.getFirst().evaluate();
+      return switch (name) {
+        case "abs" -> first.abs();
+        case "sgn" -> Rational.of(BigInteger.valueOf(first.signum()), BigInteger.ONE);
+        case "floor" -> first.setScale(0, RoundingMode.FLOOR);
+        case "ceil" -> first.setScale(0, RoundingMode.CEILING);
+        case "round" -> round(first, arguments.get(1).evaluate());
+        case "min", "max" -> extreme(first);
+        default -> throw new UnsupportedExpressionException("Unsupported function: " + name);
+      };
+    }
+
+    private static Rational round(Rational value, Rational places) {
+      if (!places.isInteger() || places.numerator().bitLength() > 16) {
+        throw new UnsupportedExpressionException("Unsupported decimal places: " + places);
+      }
+      return value.setScale(places.numerator().intValue(), RoundingMode.HALF_UP);
+    }
+
+    private Rational extreme(Rational first) {
+      Rational result = first;
+      for (int i = 1; i < arguments.size(); i++) {
+        Rational value = arguments.get(i).evaluate();
+        int comparison = value.compareTo(result);
+        if ("min".equals(name) ? comparison < 0 : comparison > 0) {
+          result = value;
+        }
+      }
+      return result;
+    }
+
+    static int arity(String name) {
+      return switch (name) {
+        case "abs", "sgn", "floor", "ceil" -> 1;
+        case "round" -> 2;
+        case "min", "max" -> -1;
+        default -> throw new UnsupportedExpressionException("Unsupported function: " + name);
+      };
+    }
+  }
+
+  /**
+   * Recursive descent parser for:
+   *
+   * <pre>
+   * expression := term (('+' | '-') term)*
+   * term       := power (('*' | '/') power)*
+   * power      := unary ('^' power)?
+   * unary      := ('-' | '+') unary | primary
+   * primary    := number | '(' expression ')' | name '(' expression (',' expression)* ')'
+   * </pre>
+   */
+  private static final class Parser {
+    private final String source;
+    private int position;
+
+    Parser(String source) {
+      this.source = source;
+    }
+
+    Node parse() {
+      Node node = expression();
+      skipWhitespace();
+      if (position != source.length()) {
+        throw unsupported();
+      }
+      return node;
+    }
+
+    private Node expression() {
+      Node node = term();
+      while (true) {
+        char operator = peek();
+        if (operator != '+' && operator != '-') {
+          return node;
+        }
+        position++;
+        node = new Binary(operator, node, term());
+      }
+    }
+
+    private Node term() {
+      Node node = power();
+      while (true) {
+        char operator = peek();
+        if (operator != '*' && operator != '/') {
+          return node;
+        }
+        position++;
+        node = new Binary(operator, node, power());
+      }
+    }
+
+    private Node power() {
+      Node base = unary();
+      if (peek() != '^') {
+        return base;
+      }
+      position++;
+      return new Binary('^', base, power());
+    }
+
+    private Node unary() {
+      char operator = peek();
+      if (operator == '-') {
+        position++;
+        return new Negation(unary());
+      }
+      if (operator == '+') {
+        position++;
+        return unary();
+      }
+      return primary();
+    }
+
+    private Node primary() {
+      char next = peek();
+      if (next == '(') {
+        position++;
+        Node node = expression();
+        expect(')');
+        return node;
+      }
+      if (isDigit(next) || next == '.') {
+        return number();
+      }
+      if (Character.isLetter(next)) {
+        return function();
+      }
+      throw unsupported();
+    }
+
+    private Node number() {
+      int start = position;
+      int integerDigits = digits();
+      int fractionDigits = 0;
+      if (position < source.length() && source.charAt(position) == '.') {
+        position++;
+        fractionDigits = digits();
+        if (fractionDigits == 0) {
+          throw unsupported();
+        }
+      }
+      if (integerDigits + fractionDigits == 0) {
+        throw unsupported();
+      }
+      if (position < source.length() && (source.charAt(position) == 'e'
+                                         || source.charAt(position) == 'E')) {
+        position++;
+        if (position < source.length() && (source.charAt(position) == '-'
+                                           || source.charAt(position) == '+')) {
+          position++;
+        }
+        if (digits() == 0) {
+          throw unsupported();
+        }
+      }
+      try {
+        BigDecimal number = new BigDecimal(source.substring(start, position));
+        if (Math.abs(number.scale()) > MAX_NUMBER_SCALE) {
+          throw unsupported();
+        }
+        return new Constant(Rational.of(number));
+      } catch (NumberFormatException e) {
+        throw unsupported();
+      }
+    }
+
+    private Node function() {
+      int start = position;
+      while (position < source.length() && Character.isLetter(source.charAt(position))) {
+        position++;
+      }
+      String name = source.substring(start, position);
+      int arity = FunctionCall.arity(name);
+
+      expect('(');
+      List<Node> arguments = new ArrayList<>(2);
+      arguments.add(expression());
+      while (peek() == ',') {
+        position++;
+        arguments.add(expression());
+      }
+      expect(')');
+      if (arity >= 0 && arguments.size() != arity) {
+        throw unsupported();
+      }
+      return new FunctionCall(name, List.copyOf(arguments));
+    }
+
+    private int digits() {
+      int start = position;
+      while (position < source.length() && isDigit(source.charAt(position))) {
+        position++;
+      }
+      return position - start;
+    }
+
+    private void expect(char expected) {
+      if (peek() != expected) {
+        throw unsupported();
+      }
+      position++;
+    }
+
+    private char peek() {
+      skipWhitespace();
+      return position < source.length() ? source.charAt(position) : '\0';
+    }
+
+    private void skipWhitespace() {
+      while (position < source.length() && Character.isWhitespace(source.charAt(position))) {
+        position++;
+      }
+    }
+
+    private static boolean isDigit(char c) {
+      return c >= '0' && c <= '9';
+    }
+
+    private UnsupportedExpressionException unsupported() {
+      return new UnsupportedExpressionException("Unsupported expression at " + position + ": "
+                                                + source);
+    }
+  }
+}
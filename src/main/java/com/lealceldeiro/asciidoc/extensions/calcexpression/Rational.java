@@ -0,0 +1,92 @@
+package com.lealceldeiro.asciidoc.extensions.calcexpression;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+
+/**
+ * Exact rational number, always kept in its lowest terms with a positive denominator.
+ */
+record Rational(BigInteger numerator, BigInteger denominator) implements Comparable<Rational> {
+  static final Rational ZERO = new Rational(BigInteger.ZERO, BigInteger.ONE);
+  static final Rational ONE = new Rational(BigInteger.ONE, BigInteger.ONE);
+
+  static Rational of(BigInteger numerator, BigInteger denominator) {
+    if (denominator.signum() == 0) {
+      throw new ArithmeticException("Division by zero");
+    }
+    if (denominator.signum() < 0) {
+      numerator = numerator.negate();
+      denominator = denominator.negate();
+    }
+    BigInteger gcd = numerator.gcd(denominator);
+    if (!gcd.equals(BigInteger.ONE)) {
+      numerator = numerator.divide(gcd);
+      denominator = denominator.divide(gcd);
+    }
+    return new Rational(numerator, denominator);
+  }
+
+  static Rational of(BigDecimal value) {
+    if (value.scale() <= 0) {
+      return new Rational(value.toBigIntegerExact(), BigInteger.ONE);
+    }
+    return of(value.unscaledValue(), BigInteger.TEN.pow(value.scale()));
+  }
+
+  boolean isInteger() {
+    return denominator.equals(BigInteger.ONE);
+  }
+
+  int signum() {
+    return numerator.signum();
+  }
+
+  Rational add(Rational other) {
+    if (denominator.equals(other.denominator)) {
+      return of(numerator.add(other.numerator), denominator);
+    }
+    return of(numerator.multiply(other.denominator).add(other.numerator.multiply(denominator)),
+              denominator.multiply(other.denominator));
+  }
+
+  Rational subtract(Rational other) {
+    return add(other.negate());
+  }
+
+  Rational multiply(Rational other) {
+    return of(numerator.multiply(other.numerator), denominator.multiply(other.denominator));
+  }
+
+  Rational divide(Rational other) {
+    return of(numerator.multiply(other.denominator), denominator.multiply(other.numerator));
+  }
+
+  Rational negate() {
+    return new Rational(numerator.negate(), denominator);
+  }
+
+  Rational abs() {
+    return signum() < 0 ? negate() : this;
+  }
+
+  Rational pow(int exponent) {
+    if (exponent < 0) {
+      return ONE.divide(pow(-exponent));
+    }
+    return new Rational(numerator.pow(exponent), denominator.pow(exponent));
+  }
+
+  Rational setScale(int scale, RoundingMode roundingMode) {
+    return of(toBigDecimal(scale, roundingMode));
+  }
+
+  BigDecimal toBigDecimal(int scale, RoundingMode roundingMode) {
+    return new BigDecimal(numerator).divide(new BigDecimal(denominator), scale, roundingMode);
+  }
+
+  @Override
+  public int compareTo(Rational other) {
+    return numerator.multiply(other.denominator).compareTo(other.numerator.multiply(denominator));
+  }
+}
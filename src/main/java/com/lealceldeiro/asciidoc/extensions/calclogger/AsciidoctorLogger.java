@@ -4,11 +4,57 @@ import org.asciidoctor.extension.BaseProcessor;
 import org.asciidoctor.log.LogRecord;
 import org.asciidoctor.log.Severity;
 
+/**
+ * Logs through Asciidoctor, with severity {@link Severity#DEBUG} (or {@link Severity#WARN} for
+ * {@link #warn(BaseProcessor, String) warnings}), as long as the given log level lets it through,
+ * as Asciidoctor hands every record to its log handlers, whatever their level.
+ *
+ * <p>Messages not logged by a processor (i.e.: by caches shared by all of them) are logged with
+ * {@link JulLogger}, as Asciidoctor only logs through processors.
+ */
 public class AsciidoctorLogger implements ExtensionLogger {
+  private static final JulLogger FALLBACK = new JulLogger();
+
+  private final boolean enabled;
+  private final boolean warningsEnabled;
+
+  public AsciidoctorLogger(Severity level) {
+    this.enabled = level.compareTo(Severity.DEBUG) <= 0;
+    this.warningsEnabled = level.compareTo(Severity.WARN) <= 0;
+  }
+
+  @Override
+  public boolean isEnabled() {
+    return enabled;
+  }
+
   @Override
   public void log(BaseProcessor processor, String message) {
+    if (!enabled) {
+      return;
+    }
+    if (processor == null) {
+      FALLBACK.log(null, message);
+      return;
+    }
+    log(processor, Severity.DEBUG, message);
+  }
+
+  @Override
+  public void warn(BaseProcessor processor, String message) {
+    if (!warningsEnabled) {
+      return;
+    }
+    if (processor == null) {
+      FALLBACK.warn(null, message);
+      return;
+    }
+    log(processor, Severity.WARN, message);
+  }
+
+  private static void log(BaseProcessor processor, Severity severity, String message) {
     try {
-      processor.log(new LogRecord(Severity.DEBUG, message));
+      processor.log(new LogRecord(severity, message));
     } catch (RuntimeException e) {
       System.err.println("Error logging record " + e.getMessage());
     }
@@ -0,0 +1,124 @@
+package com.lealceldeiro.asciidoc.extensions.calclogger;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import org.asciidoctor.extension.BaseProcessor;
+
+/**
+ * Collects messages in a per-thread ring buffer, and logs them through a delegate in one batch per
+ * processor when {@link #flush() flushed}: at the end of every document, by
+ * {@link LogFlushPostprocessor}, and on shutdown. When the buffer is full, the oldest messages are
+ * dropped. Warnings aren't held back, so they're never dropped.
+ */
+public class BufferedLogger implements ExtensionLogger {
+  static final int DEFAULT_CAPACITY = 1024;
+
+  private final ExtensionLogger delegate;
+  private final int capacity;
+  private final ThreadLocal<Buffer> threadBuffer = new ThreadLocal<>();
+  private final Set<Buffer> buffers = ConcurrentHashMap.newKeySet();
+
+  public BufferedLogger(ExtensionLogger delegate, int capacity) {
+    this.delegate = delegate;
+    this.capacity = Math.max(1, capacity);
+    Runtime.getRuntime().addShutdownHook(new Thread(this::flushAll));
+  }
+
+  @Override
+  public boolean isEnabled() {
+    return delegate.isEnabled();
+  }
+
+  @Override
+  public void log(BaseProcessor processor, String message) {
+    Buffer buffer = threadBuffer.get();
+    if (buffer == null) {
+      buffer = new Buffer(capacity);
+      threadBuffer.set(buffer);
+      buffers.add(buffer);
+    }
+    buffer.add(processor, message);
+  }
+
+  @Override
+  public void warn(BaseProcessor processor, String message) {
+    delegate.warn(processor, message);
+  }
+
+  /**
+   * Logs the messages collected by the current thread.
+   */
+  @Override
+  public void flush() {
+    Buffer buffer = threadBuffer.get();
+    if (buffer == null) {
+      return;
+    }
+    threadBuffer.remove();
+    buffers.remove(buffer);
+    buffer.flushTo(delegate);
+  }
+
+  /**
+   * Logs the messages collected by every thread.
+   */
+  public void flushAll() {
+    for (Buffer buffer : buffers) {
+      buffers.remove(buffer);
+      buffer.flushTo(delegate);
+    }
+  }
+
+  private static final class Buffer {
+    private final BaseProcessor[] processors;
+    private final String[] messages;
+    private int start;
+    private int size;
+    private long dropped;
+
+    Buffer(int capacity) {
+      processors = new BaseProcessor[capacity];
+      messages = new String[capacity];
+    }
+
+    synchronized void add(BaseProcessor processor, String message) {
+      int index = (start + size) % messages.length;
+      if (size == messages.length) {
+        start = (start + 1) % messages.length;
+        dropped++;
+      } else {
+        size++;
+      }
+      processors[index] = processor;
+      messages[index] = message;
+    }
+
+    synchronized void flushTo(ExtensionLogger logger) {
+      if (size == 0) {
+        return;
+      }
+      Map<BaseProcessor, StringBuilder> batches = new LinkedHashMap<>();
+      for (int i = 0; i < size; i++) {
+        int index = (start + i) % messages.length;
+        StringBuilder batch = batches.computeIfAbsent(processors[index], p -> new StringBuilder());
+        if (!batch.isEmpty()) {
+          batch.append(System.lineSeparator());
+        }
+        batch.append(messages[index]);
+        processors[index] = null;
+        messages[index] = null;
+      }
+      if (dropped > 0) {
+        batches.values().iterator().next()
+               .insert(0, dropped + " earlier messages dropped" + System.lineSeparator());
+      }
+      start = 0;
+      size = 0;
+      dropped = 0;
+
+      batches.forEach((processor, batch) -> logger.log(processor, batch.toString()));
+    }
+  }
+}
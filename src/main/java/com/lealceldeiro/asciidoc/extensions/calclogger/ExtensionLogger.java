@@ -1,7 +1,39 @@
 package com.lealceldeiro.asciidoc.extensions.calclogger;
 
+import java.util.function.Supplier;
 import org.asciidoctor.extension.BaseProcessor;
 
 public interface ExtensionLogger {
   void log(BaseProcessor processor, String message);
+
+  /**
+   * @return Whether the messages are actually logged. If not, there's no need to build them.
+   */
+  default boolean isEnabled() {
+    return true;
+  }
+
+  /**
+   * Logs a message that is built only if this logger {@link #isEnabled() is enabled}.
+   */
+  default void log(BaseProcessor processor, Supplier<String> message) {
+    if (isEnabled()) {
+      log(processor, message.get());
+    }
+  }
+
+  /**
+   * Logs a message about something that went wrong, which is worth knowing even when debug
+   * messages aren't wanted. Loggers without severities log it as any other message.
+   */
+  default void warn(BaseProcessor processor, String message) {
+    log(processor, message);
+  }
+
+  /**
+   * Logs any message held back by this logger.
+   */
+  default void flush() {
+    // most loggers don't hold messages back
+  }
 }
@@ -1,7 +1,20 @@
 package com.lealceldeiro.asciidoc.extensions.calclogger;
 
+import com.lealceldeiro.asciidoc.extensions.Util;
+import java.util.Locale;
+import org.asciidoctor.log.Severity;
+
 public final class ExtensionLoggerFactory {
-  private static final ExtensionLogger INSTANCE = new AsciidoctorLogger();
+  public static final String LOGGER_SETTING = "logger";
+  public static final String ASCIIDOCTOR = "asciidoctor";
+  public static final String JUL = "jul";
+  public static final String NOOP = "noop";
+  public static final String BUFFERED = "buffered";
+  public static final String BUFFER_SIZE_SETTING = "logger_buffer_size";
+  public static final String LEVEL_SETTING = "logger_level";
+
+  private static final ExtensionLogger INSTANCE
+      = create(Util.setting(LOGGER_SETTING, null, ASCIIDOCTOR));
 
   private ExtensionLoggerFactory() {
     // noop
@@ -10,4 +23,34 @@ public final class ExtensionLoggerFactory {
   public static ExtensionLogger getInstance() {
     return INSTANCE;
   }
+
+  static ExtensionLogger create(String backend) {
+    return switch (backend.trim()) {
+      case JUL -> new JulLogger();
+      case NOOP -> new NoopLogger();
+      case BUFFERED -> new BufferedLogger(
+          new AsciidoctorLogger(level()),
+          Util.intSetting(BUFFER_SIZE_SETTING, null, BufferedLogger.DEFAULT_CAPACITY));
+      default -> new AsciidoctorLogger(level());
+    };
+  }
+
+  private static Severity level() {
+    return level(Util.setting(LEVEL_SETTING, null, null));
+  }
+
+  /**
+   * @return The severity named as the log levels of Asciidoctor (i.e.: {@code debug}), or
+   *     {@link Severity#WARN}, its default level, if there's none with the given name.
+   */
+  static Severity level(String name) {
+    if (name != null) {
+      for (Severity severity : Severity.values()) {
+        if (severity.name().equals(name.trim().toUpperCase(Locale.ROOT))) {
+          return severity;
+        }
+      }
+    }
+    return Severity.WARN;
+  }
 }
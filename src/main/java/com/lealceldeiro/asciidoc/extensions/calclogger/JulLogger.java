@@ -0,0 +1,34 @@
+package com.lealceldeiro.asciidoc.extensions.calclogger;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.asciidoctor.extension.BaseProcessor;
+
+/**
+ * Logs through {@code java.util.logging}, with level {@link Level#FINE} (or {@link Level#WARNING}
+ * for {@link #warn(BaseProcessor, String) warnings}), using the class of the processor logging the
+ * message as the source of the record.
+ */
+public class JulLogger implements ExtensionLogger {
+  private static final Logger LOGGER = Logger.getLogger("com.lealceldeiro.asciidoc.extensions");
+
+  @Override
+  public boolean isEnabled() {
+    return LOGGER.isLoggable(Level.FINE);
+  }
+
+  @Override
+  public void log(BaseProcessor processor, String message) {
+    log(processor, Level.FINE, message);
+  }
+
+  @Override
+  public void warn(BaseProcessor processor, String message) {
+    log(processor, Level.WARNING, message);
+  }
+
+  private static void log(BaseProcessor processor, Level level, String message) {
+    String sourceClass = processor != null ? processor.getClass().getName() : null;
+    LOGGER.logp(level, sourceClass, null, message);
+  }
+}
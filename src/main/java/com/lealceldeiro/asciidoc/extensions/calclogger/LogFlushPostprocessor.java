@@ -0,0 +1,17 @@
+package com.lealceldeiro.asciidoc.extensions.calclogger;
+
+import org.asciidoctor.ast.Document;
+import org.asciidoctor.extension.Postprocessor;
+
+/**
+ * Flushes the messages logged while converting a document, once it's converted.
+ *
+ * @see BufferedLogger
+ */
+public class LogFlushPostprocessor extends Postprocessor {
+  @Override
+  public String process(Document document, String output) {
+    ExtensionLoggerFactory.getInstance().flush();
+    return output;
+  }
+}
@@ -0,0 +1,15 @@
+package com.lealceldeiro.asciidoc.extensions.calclogger;
+
+import org.asciidoctor.extension.BaseProcessor;
+
+public class NoopLogger implements ExtensionLogger {
+  @Override
+  public boolean isEnabled() {
+    return false;
+  }
+
+  @Override
+  public void log(BaseProcessor processor, String message) {
+    // noop
+  }
+}
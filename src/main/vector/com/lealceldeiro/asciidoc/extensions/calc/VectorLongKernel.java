@@ -0,0 +1,53 @@
+package com.lealceldeiro.asciidoc.extensions.calc;
+
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * {@link LongKernel} aggregating as many values at once as fit in the widest vector supported by
+ * the CPU, with the Vector API. Each lane accumulates its own aggregates, which are reduced at the
+ * end of the chunk, and the values left after the last whole vector are aggregated one by one.
+ *
+ * <p>It's only loaded when the {@code jdk.incubator.vector} module is available.
+ */
+final class VectorLongKernel extends LongKernel {
+  private static final VectorSpecies<Long> SPECIES = LongVector.SPECIES_PREFERRED;
+
+  @Override
+  void aggregate(long[] values, int length, Partial partial) {
+    checkLength(length);
+    int bound = SPECIES.loopBound(length);
+    LongVector invalid = LongVector.zero(SPECIES);
+    LongVector min = LongVector.broadcast(SPECIES, Long.MAX_VALUE);
+    LongVector max = LongVector.broadcast(SPECIES, Long.MIN_VALUE);
+    LongVector sumHigh = LongVector.zero(SPECIES);
+    LongVector sumLow = LongVector.zero(SPECIES);
+    LongVector squaresHigh = LongVector.zero(SPECIES);
+    LongVector squaresLow = LongVector.zero(SPECIES);
+    for (int i = 0; i < bound; i += SPECIES.length()) {
+      LongVector value = LongVector.fromArray(SPECIES, values, i);
+      VectorMask<Long> invalidValue = value.eq(ColumnSidecar.INVALID);
+      LongVector valid = value.blend(0L, invalidValue);
+      invalid = invalid.add(1L, invalidValue);
+      min = min.min(value.blend(Long.MAX_VALUE, invalidValue));
+      // INVALID is the lowest value, so it's never the maximum
+      max = max.max(value);
+      sumHigh = sumHigh.add(valid.lanewise(VectorOperators.ASHR, 32));
+      sumLow = sumLow.add(valid.and(LOW_HALF));
+      LongVector square = valid.mul(valid);
+      squaresHigh = squaresHigh.add(square.lanewise(VectorOperators.LSHR, 32));
+      squaresLow = squaresLow.add(square.and(LOW_HALF));
+    }
+
+    aggregate(values, bound, length, partial);
+    partial.set(partial.count + bound - invalid.reduceLanes(VectorOperators.ADD),
+                Math.min(partial.min, min.reduceLanes(VectorOperators.MIN)),
+                Math.max(partial.max, max.reduceLanes(VectorOperators.MAX)),
+                partial.sumHigh + sumHigh.reduceLanes(VectorOperators.ADD),
+                partial.sumLow + sumLow.reduceLanes(VectorOperators.ADD),
+                partial.squaresHigh + squaresHigh.reduceLanes(VectorOperators.ADD),
+                partial.squaresLow + squaresLow.reduceLanes(VectorOperators.ADD));
+  }
+}
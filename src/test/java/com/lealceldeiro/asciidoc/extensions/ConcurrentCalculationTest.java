@@ -0,0 +1,94 @@
+package com.lealceldeiro.asciidoc.extensions;
+
+import com.lealceldeiro.asciidoc.extensions.calc.CalcMacro;
+import com.lealceldeiro.asciidoc.extensions.calcdate.CalcDateMacro;
+import com.lealceldeiro.asciidoc.extensions.calcexpression.CalcExpressionMacro;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Stress test of the macros (and the caches shared by them) used by many threads at the same
+ * time, as when several Asciidoctor instances convert documents in parallel. Every thread must get
+ * the same results as a single thread.
+ */
+class ConcurrentCalculationTest {
+  private static final int THREADS = Math.max(8, Runtime.getRuntime().availableProcessors() * 2);
+  private static final int ITERATIONS = 200;
+
+  @Test
+  void macrosReturnTheSameResultsWhenUsedConcurrently() throws Exception {
+    List<Supplier<String>> invocations = invocations();
+    List<String> expected = invocations.stream().map(Supplier::get).toList();
+
+    CountDownLatch start = new CountDownLatch(1);
+    List<Future<List<String>>> futures = new ArrayList<>();
+    try (ExecutorService executor = Executors.newFixedThreadPool(THREADS)) {
+      for (int thread = 0; thread < THREADS; thread++) {
+        int offset = thread;
+        futures.add(executor.submit(() -> {
+          start.await();
+          List<String> mismatches = new ArrayList<>();
+          for (int i = 0; i < ITERATIONS; i++) {
+            int index = (offset + i) % invocations.size();
+            String result = invocations.get(index).get();
+            if (!expected.get(index).equals(result)) {
+              mismatches.add(index + ": " + result);
+            }
+          }
+          return mismatches;
+        }));
+      }
+      start.countDown();
+
+      for (Future<List<String>> future : futures) {
+        Assertions.assertEquals(List.of(), future.get(), "expected: " + expected);
+      }
+    }
+  }
+
+  private static List<Supplier<String>> invocations() {
+    CalcMacro calc = new CalcMacro();
+    CalcDateMacro calcDate = new CalcDateMacro();
+    CalcExpressionMacro calcExp = new CalcExpressionMacro();
+    Map<String, Object> license = Map.of(Macro.Key.AUTHOR, "Concurrent Author",
+                                         Macro.Key.LICENSE_TYPE,
+                                         CalcExpressionMacro.LICENSE_TYPE_NON_COMMERCIAL_VALUE);
+
+    List<Supplier<String>> invocations = new ArrayList<>();
+    for (int i = 0; i < 10; i++) {
+      Map<String, Object> numbers = Map.of("1", "1." + i, "2", "2.5", "3", "{undefined}",
+                                           Macro.Key.MODE, Macro.Value.IGNORE_INVALID);
+      invocations.add(() -> calc.calculate(Operator.SUM, numbers));
+      invocations.add(() -> ResultMemo.memoize(null, () -> null,
+                                               () -> calc.calculate(Operator.MULTIPLY, numbers),
+                                               "calc", Operator.MULTIPLY, numbers));
+
+      Map<String, Object> date = Map.of("1", "2024-01-0" + (i + 1), "2", i + "m",
+                                        "3", i % 2 == 0 ? "MMM d, yyyy" : "dd/MM/yyyy",
+                                        Macro.Key.FROM_ZONE_ID, "UTC", Macro.Key.TO_ZONE_ID, "UTC");
+      invocations.add(() -> calcDate.calculate(Operator.SUM, date));
+
+      for (String engine : List.of("default", "mxparser")) {
+        CalcExpressionMacro.Attributes expression
+            = new CalcExpressionMacro.Attributes(license,
+                                                 Map.of(Macro.Key.EXP, "(" + i + " + 0.5) * 3",
+                                                        Macro.Key.EXPRESSION_ENGINE, engine));
+        CalcExpressionMacro.Attributes mxparserOnly
+            = new CalcExpressionMacro.Attributes(license,
+                                                 Map.of(Macro.Key.EXP, "sin(0) + " + i + " ^ 0.5",
+                                                        Macro.Key.EXPRESSION_ENGINE, engine));
+        invocations.add(() -> calcExp.calculate(null, expression));
+        invocations.add(() -> calcExp.calculate(null, mxparserOnly));
+      }
+    }
+    return invocations;
+  }
+}
@@ -0,0 +1,103 @@
+package com.lealceldeiro.asciidoc.extensions;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class LruCacheTest {
+  @Test
+  void computeIfAbsentComputesOnlyOnMiss() {
+    LruCache<String, String> cache = new LruCache<>(2);
+    AtomicInteger loads = new AtomicInteger();
+
+    Assertions.assertEquals("A", cache.computeIfAbsent("a", key -> {
+      loads.incrementAndGet();
+      return key.toUpperCase();
+    }));
+    Assertions.assertEquals("A", cache.computeIfAbsent("a", key -> {
+      loads.incrementAndGet();
+      return key.toUpperCase();
+    }));
+
+    Assertions.assertEquals(1, loads.get());
+    LruCache.Stats stats = cache.stats();
+    Assertions.assertEquals(1, stats.hits());
+    Assertions.assertEquals(1, stats.misses());
+    Assertions.assertEquals(0, stats.evictions());
+  }
+
+  @Test
+  void evictsLeastRecentlyUsedEntry() {
+    LruCache<String, String> cache = new LruCache<>(2);
+    cache.put("a", "1");
+    cache.put("b", "2");
+    cache.get("a");
+    cache.put("c", "3");
+
+    Assertions.assertEquals("1", cache.get("a"));
+    Assertions.assertNull(cache.get("b"));
+    Assertions.assertEquals("3", cache.get("c"));
+    Assertions.assertEquals(1, cache.stats().evictions());
+  }
+
+  @Test
+  void readsDoNotAdvanceTheClock() {
+    LruCache<String, String> cache = new LruCache<>(3);
+    cache.put("a", "1");
+    cache.put("b", "2");
+    cache.put("c", "3");
+    for (int i = 0; i < 10; i++) {
+      cache.get("a");
+      cache.get("c");
+    }
+    cache.put("d", "4");
+
+    // "a" and "c" were read after "b" was added, so they're more recent
+    Assertions.assertNull(cache.get("b"));
+    Assertions.assertEquals("1", cache.get("a"));
+    Assertions.assertEquals("3", cache.get("c"));
+  }
+
+  @Test
+  void evictsMostlyEldestEntriesOfBigCaches() {
+    int capacity = 1024;
+    LruCache<Integer, Integer> cache = new LruCache<>(capacity);
+    for (int i = 0; i < capacity; i++) {
+      cache.put(i, i);
+    }
+    for (int i = capacity / 2; i < capacity; i++) {
+      cache.get(i);
+    }
+    cache.put(capacity, capacity);
+
+    LruCache.Stats stats = cache.stats();
+    Assertions.assertTrue(stats.size() <= capacity, "size: " + stats.size());
+    for (int i = capacity / 2; i <= capacity; i++) {
+      Assertions.assertEquals(i, cache.get(i));
+    }
+  }
+
+  @Test
+  void resizeEvictsExceedingEntries() {
+    LruCache<String, String> cache = new LruCache<>(3);
+    cache.put("a", "1");
+    cache.put("b", "2");
+    cache.put("c", "3");
+    cache.resize(1);
+
+    LruCache.Stats stats = cache.stats();
+    Assertions.assertEquals(1, stats.size());
+    Assertions.assertEquals(1, stats.capacity());
+    Assertions.assertEquals(2, stats.evictions());
+    Assertions.assertEquals("3", cache.get("c"));
+  }
+
+  @Test
+  void zeroCapacityDisablesCaching() {
+    LruCache<String, String> cache = new LruCache<>(0);
+
+    Assertions.assertEquals("1", cache.computeIfAbsent("a", key -> "1"));
+    Assertions.assertNull(cache.get("a"));
+    Assertions.assertEquals(0, cache.stats().size());
+  }
+}
@@ -0,0 +1,102 @@
+package com.lealceldeiro.asciidoc.extensions;
+
+import static org.junit.jupiter.params.provider.Arguments.arguments;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.junit.jupiter.params.provider.NullAndEmptySource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class ParsingTest {
+  @ParameterizedTest
+  @NullAndEmptySource
+  @ValueSource(strings = {"1", "-1", "+1.5", ".5", "5.", "1e3", "1E-3", "-1.5e+10", "007", "١",
+                          "a", "-", ".", "1..2", "1e", "1e+", "1.5.", "e3", " 1", "1 ", "--1",
+                          "1e99999999999", "0x10", "1_000", "{undefined}"})
+  void toBigDecimalMatchesBigDecimalConstructor(String value) {
+    BigDecimal expected;
+    try {
+      expected = new BigDecimal(value);
+    } catch (NullPointerException | NumberFormatException e) {
+      expected = null;
+    }
+
+    Assertions.assertEquals(expected, Parsing.toBigDecimal(value));
+  }
+
+  @ParameterizedTest
+  @NullAndEmptySource
+  @ValueSource(strings = {"1", "+12", "-3", "007", "2147483647", "-2147483648", "2147483648",
+                          "-2147483649", "9223372036854775807", "-9223372036854775808",
+                          "9223372036854775808", "-9223372036854775809", "99999999999999999999",
+                          "١", "-", "+", "1a", "1.0", " 1", "mode"})
+  void toLongAndToIntMatchJdkParsing(String value) {
+    Long expectedLong;
+    try {
+      expectedLong = Long.parseLong(value);
+    } catch (NumberFormatException e) {
+      expectedLong = null;
+    }
+    long expectedInt;
+    try {
+      expectedInt = Integer.parseInt(value);
+    } catch (NumberFormatException e) {
+      expectedInt = Parsing.NOT_AN_INT;
+    }
+
+    Assertions.assertEquals(expectedLong, Parsing.toLong(value));
+    Assertions.assertEquals(expectedInt, Parsing.toInt(value));
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = {"2024-01-31", "2024-02-29", "2023-02-29", "2024-04-31", "2024-13-01",
+                          "2024-00-10", "2024-01-00", "0000-01-01", "9999-12-31", "+10000-01-01",
+                          "-0001-01-01", "20240-01-01", "2024-1-01", "2024/01/01", "2024-01-01T",
+                          "abcd-ef-gh", "{date}", "", "2024-١٢-01"})
+  void toLocalDateMatchesLocalDateParse(String value) {
+    LocalDate expected;
+    try {
+      expected = LocalDate.parse(value);
+    } catch (DateTimeException e) {
+      expected = null;
+    }
+
+    Assertions.assertEquals(expected, Parsing.toLocalDate(value));
+  }
+
+  static Stream<Arguments> toRoundingModeSrc() {
+    return Stream.concat(Stream.of(RoundingMode.values()).map(mode -> arguments(mode.name(), mode)),
+                         Stream.of(arguments("half_up", null),
+                                   arguments("", null),
+                                   arguments(null, null)));
+  }
+
+  @ParameterizedTest
+  @MethodSource("toRoundingModeSrc")
+  void toRoundingMode(String name, RoundingMode expected) {
+    Assertions.assertEquals(expected, Parsing.toRoundingMode(name));
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = {"Europe/Paris", "America/New_York", "UTC", "GMT", "UT", "Z", "+01:00",
+                          "-05", "UTC+1", "GMT-03:30", "UT+2", "+25:00", "UTC+", "europe/paris",
+                          "Mars/Olympus", "{zone}", "", "Zulu", "GMT0", "Etc/GMT+1"})
+  void toZoneIdMatchesZoneIdOf(String id) {
+    ZoneId expected;
+    try {
+      expected = ZoneId.of(id);
+    } catch (DateTimeException e) {
+      expected = null;
+    }
+
+    Assertions.assertEquals(expected, Parsing.toZoneId(id));
+  }
+}
@@ -0,0 +1,127 @@
+package com.lealceldeiro.asciidoc.extensions;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Optional;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class PersistentResultCacheTest {
+  @TempDir
+  Path dir;
+
+  @Test
+  void resultsSurviveReopening() {
+    Path file = dir.resolve("results.cache");
+    PersistentResultCache cache = new PersistentResultCache(file, 1024 * 1024);
+    Assertions.assertNull(cache.get("calc sum 1 2"));
+    cache.put("calc sum 1 2", "3.00");
+    cache.put("calc sum 1 3", "4.00");
+    cache.close();
+
+    PersistentResultCache reopened = new PersistentResultCache(file, 1024 * 1024);
+    Assertions.assertEquals("3.00", reopened.get("calc sum 1 2"));
+    Assertions.assertEquals("4.00", reopened.get("calc sum 1 3"));
+    reopened.close();
+  }
+
+  @Test
+  void corruptedRecordsAreDiscarded() throws IOException {
+    Path file = dir.resolve("results.cache");
+    PersistentResultCache cache = new PersistentResultCache(file, 1024 * 1024);
+    cache.put("first", "1.00");
+    cache.put("second", "2.00");
+    cache.close();
+
+    long size = Files.size(file);
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+      // flips the last byte of the result of the second record
+      channel.write(ByteBuffer.wrap(new byte[] {'X'}), size - Integer.BYTES - 1);
+    }
+
+    PersistentResultCache reopened = new PersistentResultCache(file, 1024 * 1024);
+    Assertions.assertEquals("1.00", reopened.get("first"));
+    Assertions.assertNull(reopened.get("second"));
+    reopened.close();
+    Assertions.assertTrue(Files.size(file) < size);
+  }
+
+  @Test
+  void fileIsCompactedWhenExceedingMaxSize() throws IOException {
+    Path file = dir.resolve("results.cache");
+    long maxSize = 1024;
+    PersistentResultCache cache = new PersistentResultCache(file, maxSize);
+    for (int i = 0; i < 100; i++) {
+      cache.put("invocation " + i, String.valueOf(i));
+    }
+    cache.close();
+
+    Assertions.assertTrue(Files.size(file) <= maxSize);
+    PersistentResultCache reopened = new PersistentResultCache(file, maxSize);
+    Assertions.assertEquals("99", reopened.get("invocation 99"));
+    Assertions.assertNull(reopened.get("invocation 0"));
+    reopened.close();
+  }
+
+  @Test
+  void recordsOfEveryWriterAreKept() {
+    Path file = dir.resolve("results.cache");
+    // as two processes sharing the file
+    PersistentResultCache first = new PersistentResultCache(file, 1024 * 1024);
+    PersistentResultCache second = new PersistentResultCache(file, 1024 * 1024);
+    first.put("first", "1.00");
+    second.put("second", "2.00");
+    first.put("third", "3.00");
+    first.close();
+    second.close();
+
+    PersistentResultCache reopened = new PersistentResultCache(file, 1024 * 1024);
+    Assertions.assertEquals("1.00", reopened.get("first"));
+    Assertions.assertEquals("2.00", reopened.get("second"));
+    Assertions.assertEquals("3.00", reopened.get("third"));
+    reopened.close();
+  }
+
+  @Test
+  void fileCompactedByAnotherWriterIsOpenedAgain() {
+    Path file = dir.resolve("results.cache");
+    long maxSize = 1024;
+    PersistentResultCache first = new PersistentResultCache(file, maxSize);
+    PersistentResultCache second = new PersistentResultCache(file, maxSize);
+    first.put("first", "1.00");
+    for (int i = 0; i < 100; i++) {
+      second.put("invocation " + i, String.valueOf(i));
+    }
+    first.put("last", "2.00");
+    first.close();
+    second.close();
+
+    PersistentResultCache reopened = new PersistentResultCache(file, maxSize);
+    Assertions.assertEquals("2.00", reopened.get("last"));
+    Assertions.assertEquals("99", reopened.get("invocation 99"));
+    reopened.close();
+  }
+
+  @Test
+  void defaultFileIsInTheBuildDirectoryOfTheDocument() throws IOException {
+    Path module = dir.resolve("parent/module");
+    Files.createDirectories(module.resolve("src/docs"));
+    Files.writeString(dir.resolve("parent/pom.xml"), "<project/>");
+    Files.writeString(module.resolve("pom.xml"), "<project/>");
+    Path gradle = dir.resolve("gradle");
+    Files.createDirectories(gradle.resolve("src/docs"));
+    Files.writeString(gradle.resolve("build.gradle.kts"), "");
+
+    Assertions.assertEquals(Optional.of(module.resolve("target")),
+                            Util.buildDirectory(module.resolve("src/docs")));
+    Assertions.assertEquals(Optional.of(gradle.resolve("build")),
+                            Util.buildDirectory(gradle.resolve("src/docs")));
+    Assertions.assertEquals(module.resolve("target").resolve(PersistentResultCache.FILE),
+                            PersistentResultCache.getInstance(module.resolve("src/docs")).file());
+  }
+}
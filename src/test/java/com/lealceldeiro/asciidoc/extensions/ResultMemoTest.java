@@ -0,0 +1,69 @@
+package com.lealceldeiro.asciidoc.extensions;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ResultMemoTest {
+  @BeforeEach
+  void setUp() {
+    ResultMemo.clear();
+  }
+
+  @Test
+  void keyDoesNotDependOnAttributesOrder() {
+    Map<String, Object> attributes = new LinkedHashMap<>();
+    attributes.put("1", "2");
+    attributes.put("2", "3");
+    Map<String, Object> reversedAttributes = new LinkedHashMap<>();
+    reversedAttributes.put("2", "3");
+    reversedAttributes.put("1", "2");
+
+    Assertions.assertEquals(ResultMemo.key("calc", "sum", attributes),
+                            ResultMemo.key("calc", "sum", reversedAttributes));
+  }
+
+  @Test
+  void keyDistinguishesAmbiguousConcatenations() {
+    Assertions.assertNotEquals(ResultMemo.key("calc", "sum", Map.of("1", "23")),
+                               ResultMemo.key("calc", "sum", Map.of("12", "3")));
+  }
+
+  @Test
+  void keyGivesPrecedenceToLaterAttributes() {
+    Assertions.assertEquals(ResultMemo.key("calc_exp", "", Map.of("author", "macro")),
+                            ResultMemo.key("calc_exp", "",
+                                           Map.of("author", "document"),
+                                           Map.of("author", "macro")));
+  }
+
+  @Test
+  void memoizeCalculatesOnlyOnce() {
+    AtomicInteger calculations = new AtomicInteger();
+    Map<String, Object> attributes = Map.of("1", "2");
+
+    for (int i = 0; i < 3; i++) {
+      String result = ResultMemo.memoize(null, () -> null,
+                                         () -> "4.00" + calculations.incrementAndGet(),
+                                         "calc", "sum", attributes);
+      Assertions.assertEquals("4.001", result);
+    }
+    Assertions.assertEquals(1, calculations.get());
+  }
+
+  @Test
+  void memoizeCanBeDisabled() {
+    AtomicInteger calculations = new AtomicInteger();
+    Map<String, Object> attributes = Map.of("1", "2");
+
+    for (int i = 0; i < 2; i++) {
+      ResultMemo.memoize("off", () -> null, () -> String.valueOf(calculations.incrementAndGet()),
+                         "calc", "sum", attributes);
+    }
+
+    Assertions.assertEquals(2, calculations.get());
+  }
+}
@@ -0,0 +1,228 @@
+package com.lealceldeiro.asciidoc.extensions.batch;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.asciidoctor.Asciidoctor;
+import org.asciidoctor.Options;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+
+class BatchConverterTest {
+  @TempDir
+  Path dir;
+
+  @Test
+  void convertsEveryDocumentButPartials() throws IOException {
+    Path sources = dir.resolve("docs");
+    write(sources.resolve("index.adoc"));
+    write(sources.resolve("guide/setup.adoc"));
+    write(sources.resolve("guide/_attributes.adoc"));
+    write(sources.resolve("_partials/header.adoc"));
+    write(sources.resolve("notes.txt"));
+
+    Set<File> converted = ConcurrentHashMap.newKeySet();
+    Asciidoctor asciidoctor = Mockito.mock(Asciidoctor.class);
+    Mockito.when(asciidoctor.convertFile(ArgumentMatchers.any(File.class),
+                                         ArgumentMatchers.any(Options.class)))
+           .thenAnswer(invocation -> {
+             converted.add(invocation.getArgument(0));
+             return null;
+           });
+
+    BatchConverter.Report report;
+    try (BatchConverter converter = new BatchConverter(settings(2, 1, Duration.ofSeconds(10)),
+                                                       () -> asciidoctor)) {
+      report = converter.convert(sources, dir.resolve("out"));
+    }
+
+    Assertions.assertTrue(report.successful(), report::summary);
+    Assertions.assertEquals(Set.of(sources.resolve("guide/setup.adoc").toFile(),
+                                   sources.resolve("index.adoc").toFile()), converted);
+    Assertions.assertEquals(List.of(sources.resolve("guide/setup.adoc"),
+                                    sources.resolve("index.adoc")),
+                            report.files().stream().map(BatchConverter.FileResult::source).toList());
+    // every instance is warmed up once, and closed
+    Mockito.verify(asciidoctor, Mockito.times(2))
+           .convert(ArgumentMatchers.anyString(), ArgumentMatchers.any(Options.class));
+    Mockito.verify(asciidoctor, Mockito.times(2)).close();
+  }
+
+  @Test
+  void instancesAreUsedByOneConversionAtATime() throws IOException {
+    Path sources = dir.resolve("docs");
+    for (int i = 0; i < 20; i++) {
+      write(sources.resolve("doc" + i + ".adoc"));
+    }
+
+    AtomicInteger running = new AtomicInteger();
+    AtomicInteger maxRunning = new AtomicInteger();
+    Asciidoctor asciidoctor = Mockito.mock(Asciidoctor.class);
+    Mockito.when(asciidoctor.convertFile(ArgumentMatchers.any(File.class),
+                                         ArgumentMatchers.any(Options.class)))
+           .thenAnswer(invocation -> {
+             maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+             Thread.sleep(5);
+             running.decrementAndGet();
+             return null;
+           });
+
+    BatchConverter.Report report;
+    try (BatchConverter converter = new BatchConverter(settings(3, 5, Duration.ofSeconds(10)),
+                                                       () -> asciidoctor)) {
+      report = converter.convert(sources, sources);
+    }
+
+    Assertions.assertEquals(20, report.count(BatchConverter.Status.CONVERTED));
+    Assertions.assertTrue(maxRunning.get() <= 3, "max running conversions: " + maxRunning);
+  }
+
+  @Test
+  void slowAndFailingConversionsAreReported() throws IOException {
+    Path sources = dir.resolve("docs");
+    write(sources.resolve("fails.adoc"));
+    write(sources.resolve("hangs.adoc"));
+    write(sources.resolve("works.adoc"));
+
+    CountDownLatch released = new CountDownLatch(1);
+    Asciidoctor asciidoctor = Mockito.mock(Asciidoctor.class);
+    Mockito.when(asciidoctor.convertFile(ArgumentMatchers.any(File.class),
+                                         ArgumentMatchers.any(Options.class)))
+           .thenAnswer(invocation -> {
+             String name = invocation.<File>getArgument(0).getName();
+             if (name.equals("fails.adoc")) {
+               throw new IllegalStateException("broken document");
+             }
+             if (name.equals("hangs.adoc")) {
+               released.await();
+             }
+             return null;
+           });
+
+    BatchConverter.Report report;
+    try (BatchConverter converter = new BatchConverter(settings(2, 2, Duration.ofMillis(200)),
+                                                       () -> asciidoctor)) {
+      report = converter.convert(sources, sources);
+    } finally {
+      released.countDown();
+    }
+
+    Assertions.assertFalse(report.successful());
+    List<BatchConverter.Status> statuses
+        = report.files().stream().map(BatchConverter.FileResult::status).toList();
+    Assertions.assertEquals(List.of(BatchConverter.Status.FAILED, BatchConverter.Status.TIMED_OUT,
+                                    BatchConverter.Status.CONVERTED), statuses);
+    Assertions.assertTrue(report.summary().contains("broken document"), report::summary);
+  }
+
+  @Test
+  @Timeout(10)
+  void hungInstancesAreReplaced() throws IOException {
+    Path sources = dir.resolve("docs");
+    write(sources.resolve("a.adoc"));
+    write(sources.resolve("b.adoc"));
+    write(sources.resolve("c.adoc"));
+
+    CountDownLatch released = new CountDownLatch(1);
+    Asciidoctor hung = Mockito.mock(Asciidoctor.class);
+    Mockito.when(hung.convertFile(ArgumentMatchers.any(File.class),
+                                  ArgumentMatchers.any(Options.class)))
+           .thenAnswer(invocation -> {
+             // ignores interruptions, as a conversion stuck in JRuby would
+             while (released.getCount() > 0) {
+               try {
+                 released.await();
+               } catch (InterruptedException ignored) {
+                 // keeps hanging
+               }
+             }
+             return null;
+           });
+    Asciidoctor working = Mockito.mock(Asciidoctor.class);
+    Iterator<Asciidoctor> created = List.of(hung, working).iterator();
+
+    BatchConverter.Report report;
+    try (BatchConverter converter = new BatchConverter(settings(1, 1, Duration.ofMillis(500)),
+                                                       created::next)) {
+      report = converter.convert(sources, sources);
+    } finally {
+      released.countDown();
+    }
+
+    List<BatchConverter.Status> statuses
+        = report.files().stream().map(BatchConverter.FileResult::status).toList();
+    Assertions.assertEquals(List.of(BatchConverter.Status.TIMED_OUT,
+                                    BatchConverter.Status.CONVERTED,
+                                    BatchConverter.Status.CONVERTED), statuses);
+    Mockito.verify(hung).close();
+    Mockito.verify(working).close();
+  }
+
+  @Test
+  @Timeout(10)
+  void filesTimeOutWaitingForAnInstance() throws IOException {
+    Path sources = dir.resolve("docs");
+    write(sources.resolve("a.adoc"));
+    write(sources.resolve("b.adoc"));
+
+    CountDownLatch released = new CountDownLatch(1);
+    Asciidoctor hung = Mockito.mock(Asciidoctor.class);
+    Mockito.when(hung.convertFile(ArgumentMatchers.any(File.class),
+                                  ArgumentMatchers.any(Options.class)))
+           .thenAnswer(invocation -> {
+             released.await();
+             return null;
+           });
+    AtomicInteger instances = new AtomicInteger();
+    Supplier<Asciidoctor> factory = () -> {
+      if (instances.getAndIncrement() > 0) {
+        throw new IllegalStateException("no more instances");
+      }
+      return hung;
+    };
+
+    BatchConverter.Report report;
+    try (BatchConverter converter = new BatchConverter(settings(1, 2, Duration.ofMillis(300)),
+                                                       factory)) {
+      report = converter.convert(sources, sources);
+    } finally {
+      released.countDown();
+    }
+
+    Assertions.assertEquals(2, report.count(BatchConverter.Status.TIMED_OUT), report::summary);
+    Assertions.assertTrue(report.summary().contains("No Asciidoctor instance available"),
+                          report::summary);
+  }
+
+  @Test
+  void invalidSettingsAreRejected() {
+    Assertions.assertThrows(IllegalArgumentException.class,
+                            () -> settings(0, 1, Duration.ofSeconds(1)));
+    Assertions.assertThrows(IllegalArgumentException.class,
+                            () -> settings(1, 0, Duration.ofSeconds(1)));
+    Assertions.assertThrows(IllegalArgumentException.class, () -> settings(1, 1, Duration.ZERO));
+  }
+
+  private static BatchConverter.Settings settings(int instances, int maxInFlight,
+                                                  Duration fileTimeout) {
+    return new BatchConverter.Settings(instances, maxInFlight, fileTimeout);
+  }
+
+  private static void write(Path file) throws IOException {
+    Files.createDirectories(file.getParent());
+    Files.writeString(file, "= Title\n\ncalc:sum[1, 2]\n");
+  }
+}
@@ -8,10 +8,26 @@ import com.lealceldeiro.asciidoc.extensions.Macro;
 import com.lealceldeiro.asciidoc.extensions.Operator;
 import com.lealceldeiro.asciidoc.extensions.calclogger.ExtensionLogger;
 import com.lealceldeiro.asciidoc.extensions.calclogger.ExtensionLoggerFactory;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.MathContext;
 import java.math.RoundingMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Random;
+import java.util.function.BinaryOperator;
+import java.util.stream.LongStream;
 import java.util.stream.Stream;
+import org.asciidoctor.ast.Document;
 import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
@@ -42,6 +58,9 @@ class CalcMacroTest {
         arguments(Operator.SUM,
                   Map.of("1", "2", "2", "2", "3", Macro.Value.IGNORE_INVALID),
                   InvalidValue.NOT_A_NUMBER),
+        arguments(Operator.SUM,
+                  Map.of(Macro.Key.MEMO, "off", "0", "2", "1", "2"),
+                  "4.00"),
         arguments(Operator.SUM,
                   Map.of("0", "-4", "1", "5"),
                   "1.00"),
@@ -218,4 +237,603 @@ class CalcMacroTest {
                               "operation: " + operation + ", attributes: " + attributes);
     }
   }
+
+  static Stream<Arguments> getNumbersSrc() {
+    return Stream.of(
+        arguments(Map.of("1", "3", "2", "1", "3", "2"), "[3, 1, 2]"),
+        arguments(Map.of("3", "2", "1", "3", "2", "1"), "[3, 1, 2]"),
+        arguments(Map.of("1", Macro.Value.IGNORE_INVALID, "2", "a", "3", "4"), "[4]"),
+        arguments(Map.of("1", "1", Macro.Key.MODE, "1", "x", "2"), "[1]"),
+        arguments(Map.of("2", "1", "01", "2", "-5", "3", "100", "4"), "[3, 2, 1, 4]"),
+        arguments(Map.of("1", "1e3", "2", "-.5", "3", "+2.", "4", "1e", "5", "."),
+                  "[1E+3, -0.5, 2]"),
+        arguments(Map.of("1", "1e99999999999", "2", "\u0661", "3", "--1"), "[1]")
+                    );
+  }
+
+  @ParameterizedTest
+  @MethodSource("getNumbersSrc")
+  void getNumbers(Map<String, Object> attributes, String expected) {
+    CalcMacro.Numbers numbers = CalcMacro.getNumbers(attributes);
+
+    Assertions.assertEquals(expected, Arrays.toString(Arrays.copyOf(numbers.values(),
+                                                                    numbers.size())));
+  }
+
+  static Stream<Arguments> fixedPointSrc() {
+    List<List<String>> operands = new ArrayList<>(List.of(
+        List.of("9223372036854775807", "1"),
+        List.of("-9223372036854775808", "1"),
+        List.of("-9223372036854775808", "-1"),
+        List.of("92233720368547758.07", "0.01"),
+        List.of("922337203685477580.8", "1"),
+        List.of("0.000000000000000001", "3"),
+        List.of("0.0000000000000000001", "3"),
+        List.of("3037000499.97605", "3037000499.97605"),
+        List.of("0.5", "0.5", "0.5", "0.5", "0.5", "0.5", "0.5", "0.5", "0.5", "0.5"),
+        List.of("-0", "+0.00", "1.", ".5"),
+        List.of("-0.005", "0.001"),
+        List.of("\u0661.5", "2")));
+    Random random = new Random(42);
+    for (int i = 0; i < 40; i++) {
+      List<String> randomOperands = new ArrayList<>();
+      for (int operand = 0; operand < 2 + random.nextInt(5); operand++) {
+        BigDecimal value = BigDecimal.valueOf(random.nextLong() >> random.nextInt(64),
+                                              random.nextInt(6));
+        randomOperands.add(value.toPlainString());
+      }
+      operands.add(randomOperands);
+    }
+
+    List<Arguments> arguments = new ArrayList<>();
+    for (List<String> numbers : operands) {
+      for (String operator : List.of(Operator.SUM, Operator.SUB, Operator.MULTIPLY)) {
+        for (RoundingMode roundingMode : RoundingMode.values()) {
+          arguments.add(arguments(operator, numbers, roundingMode));
+        }
+      }
+    }
+    return arguments.stream();
+  }
+
+  /**
+   * Results of the {@link FixedPoint} arithmetic (and of the fallback to {@link BigDecimal} when
+   * the numbers don't fit) must be the same as with {@link BigDecimal} only.
+   */
+  @ParameterizedTest
+  @MethodSource("fixedPointSrc")
+  void calculateMatchesBigDecimalArithmetic(String operator, List<String> numbers,
+                                            RoundingMode roundingMode) {
+    Map<String, Object> attributes = new HashMap<>();
+    for (int i = 0; i < numbers.size(); i++) {
+      attributes.put(String.valueOf(i + 1), numbers.get(i));
+    }
+    attributes.put(Macro.Key.ROUNDING_MODE, roundingMode.name());
+    MathContext mathContext = new MathContext(CalcMacro.DEFAULT_PRECISION, RoundingMode.HALF_EVEN);
+    BinaryOperator<BigDecimal> operation = switch (operator) {
+      case Operator.SUM -> (left, right) -> left.add(right, mathContext);
+      case Operator.SUB -> (left, right) -> left.subtract(right, mathContext);
+      default -> (left, right) -> left.multiply(right, mathContext);
+    };
+
+    String expected;
+    try {
+      expected = numbers.stream()
+                        .map(BigDecimal::new)
+                        .reduce(operation)
+                        .orElseThrow()
+                        .setScale(2, roundingMode)
+                        .toPlainString();
+    } catch (ArithmeticException e) {
+      expected = e.getClass().getName();
+    }
+
+    String result;
+    try {
+      result = new CalcMacro().calculate(operator, attributes);
+    } catch (ArithmeticException e) {
+      result = e.getClass().getName();
+    }
+    Assertions.assertEquals(expected, result, operator + " " + numbers + " " + roundingMode);
+  }
+
+  static Stream<Arguments> scaleAndPrecisionSrc() {
+    return Stream.of(
+        arguments(Operator.DIVIDE, Map.of("1", "1", "2", "3"), "0.33"),
+        arguments(Operator.DIVIDE, Map.of("1", "1", "2", "3", Macro.Key.SCALE, "40"),
+                  "0.3333333333333333333333333333333333000000"),
+        arguments(Operator.DIVIDE, Map.of("1", "1", "2", "8", Macro.Key.SCALE, "40"),
+                  "0.1250000000000000000000000000000000000000"),
+        arguments(Operator.DIVIDE, Map.of("1", "1", "2", "3", Macro.Key.PRECISION, "34"), "0.33"),
+        arguments(Operator.DIVIDE, Map.of("1", "2", "2", "3", Macro.Key.SCALE, "4",
+                                          Macro.Key.PRECISION, "34"), "0.6667"),
+        arguments(Operator.DIVIDE, Map.of("1", "2", "2", "3", Macro.Key.SCALE, "0",
+                                          Macro.Key.PRECISION, "34"), "1"),
+        arguments(Operator.SUM, Map.of("1", "12345678901234567890123456789012345", "2", "1"),
+                  "12345678901234567890123456789012346.00"),
+        arguments(Operator.SUM, Map.of("1", "12345678901234567890123456789012345", "2", "1",
+                                       Macro.Key.PRECISION, "34"),
+                  "12345678901234567890123456789012350.00"),
+        arguments(Operator.DIVIDE, Map.of("1", "1", "2", "3", Macro.Key.PRECISION, "0"), "0.33"),
+        arguments(Operator.MULTIPLY, Map.of("1", "1" + "0".repeat(500), "2", "9".repeat(500)),
+                  "9".repeat(500) + "0".repeat(500) + ".00"),
+        arguments(Operator.MULTIPLY, Map.of("1", "1" + "0".repeat(500), "2", "9".repeat(501)),
+                  InvalidValue.NOT_A_VALID_MATH),
+        arguments(Operator.MULTIPLY, Map.of("1", "1" + "0".repeat(500), "2", "9".repeat(501),
+                                            Macro.Key.PRECISION, "34"),
+                  InvalidValue.NOT_A_VALID_MATH),
+        arguments(Operator.MULTIPLY, Map.of("1", "1" + "0".repeat(499), "2", "9".repeat(500),
+                                            Macro.Key.PRECISION, "34"),
+                  "1" + "0".repeat(999) + ".00"),
+        arguments(Operator.DIVIDE, Map.of("1", "1", "2", "0", Macro.Key.SCALE, "4"),
+                  InvalidValue.NOT_A_VALID_MATH),
+        arguments(Operator.DIVIDE,
+                  Map.of("1", "1", "2", "3", Macro.Key.SCALE, "40", Macro.Key.PRECISION, "5"),
+                  "0.3333300000000000000000000000000000000000"),
+        arguments(Operator.SUM, Map.of("1", "0.125", "2", "1", Macro.Key.SCALE, "5"), "1.12500"),
+        arguments(Operator.SUM, Map.of("1", "0.005", "2", "-1", Macro.Key.SCALE, "3"), "-0.995"),
+        arguments(Operator.SUM, Map.of("1", "0.0000001", "2", "0", Macro.Key.SCALE, "10"),
+                  "0.0000001000"),
+        arguments(Operator.SUM, Map.of("1", "12.5", "2", "1", Macro.Key.SCALE, "0",
+                                       Macro.Key.ROUNDING_MODE, "HALF_UP"), "14"),
+        arguments(Operator.SUM, Map.of("1", "12345", "2", "1", Macro.Key.PRECISION, "3"),
+                  "12300.00"),
+        arguments(Operator.MULTIPLY, Map.of("1", "1.4142135623730950488", "2", "1",
+                                            Macro.Key.PRECISION, "11", Macro.Key.SCALE, "10"),
+                  "1.4142135624"),
+        arguments(Operator.SUM, Map.of("1", "1", "2", "2", Macro.Key.SCALE, "-1"), "3.00"),
+        arguments(Operator.SUM, Map.of("1", "1", "2", "2", Macro.Key.SCALE, "1001"), "3.00"),
+        arguments(Operator.SUM, Map.of("1", "1", "2", "2", Macro.Key.PRECISION, "x"), "3.00")
+                    );
+  }
+
+  @ParameterizedTest
+  @MethodSource("scaleAndPrecisionSrc")
+  void calculateWithScaleAndPrecision(String operator, Map<String, Object> attributes,
+                                      String expected) {
+    Assertions.assertEquals(expected, new CalcMacro().calculate(operator, attributes),
+                            "operator: " + operator + ", attributes: " + attributes);
+  }
+
+  @Test
+  void withDocumentSettingsAddsThemUnlessSetInTheMacro() {
+    Document document = Mockito.mock(Document.class);
+    Mockito.when(document.getAttribute(Macro.Key.DOCUMENT_SCALE)).thenReturn("4");
+    Mockito.when(document.getAttribute(Macro.Key.DOCUMENT_PRECISION)).thenReturn("10");
+
+    Assertions.assertEquals(Map.of("1", "2", Macro.Key.SCALE, "4", Macro.Key.PRECISION, "10"),
+                            CalcMacro.withDocumentSettings(document, Map.of("1", "2")));
+    Assertions.assertEquals(Map.of("1", "2", Macro.Key.SCALE, "1", Macro.Key.PRECISION, "10"),
+                            CalcMacro.withDocumentSettings(document, Map.of("1", "2",
+                                                                            Macro.Key.SCALE, "1")));
+
+    Map<String, Object> attributes = Map.of("1", "2");
+    Assertions.assertSame(attributes,
+                          CalcMacro.withDocumentSettings(Mockito.mock(Document.class), attributes));
+  }
+
+  static Stream<Arguments> aggregatesSrc() {
+    Map<String, Object> numbers = Map.of("1", "4", "2", "1", "3", "3", "4", "10");
+    return Stream.of(
+        arguments(Operator.AVG, numbers, "4.50"),
+        arguments(Operator.AVG, Map.of("1", "1", "2", "1", "3", "2", Macro.Key.SCALE, "4"),
+                  "1.3333"),
+        arguments(Operator.AVG, Map.of("1", "1", "2", "2", Macro.Key.PRECISION, "0"), "1.50"),
+        arguments(Operator.MIN, numbers, "1.00"),
+        arguments(Operator.MAX, numbers, "10.00"),
+        arguments(Operator.MAX, Map.of("1", "-1.005", "2", "-2", Macro.Key.SCALE, "3"), "-1.005"),
+        arguments(Operator.COUNT, numbers, "4"),
+        arguments(Operator.COUNT, Map.of("1", Macro.Value.IGNORE_INVALID, "2", "a", "3", "4"),
+                  "1"),
+        arguments(Operator.VARIANCE, numbers, "11.25"),
+        arguments(Operator.VARIANCE, Map.of("1", "7"), "0.00"),
+        arguments(Operator.VARIANCE, Map.of("1", "1000000000000000000000001",
+                                            "2", "1000000000000000000000003",
+                                            Macro.Key.PRECISION, "25"), "1.00"),
+        arguments(Operator.STDDEV, numbers, "3.35"),
+        arguments(Operator.STDDEV, Map.of("1", "2", "2", "4", "3", "4", "4", "4", "5", "5",
+                                          "6", "5", "7", "7", "8", "9"), "2.00"),
+        arguments(Operator.STDDEV, Map.of("1", "0.1", "2", "0.1", "3", "0.1"), "0.00"),
+        arguments(Operator.MEDIAN, numbers, "3.50"),
+        arguments(Operator.MEDIAN, Map.of("1", "5", "2", "1", "3", "3"), "3.00"),
+        arguments(Operator.PERCENTILE, withPercentile(numbers, "0"), "1.00"),
+        arguments(Operator.PERCENTILE, withPercentile(numbers, "90"), "8.20"),
+        arguments(Operator.PERCENTILE, withPercentile(numbers, "100"), "10.00"),
+        arguments(Operator.PERCENTILE, withPercentile(numbers, "101"),
+                  InvalidValue.NOT_A_NUMBER),
+        arguments(Operator.PERCENTILE, withPercentile(numbers, "x"), InvalidValue.NOT_A_NUMBER),
+        arguments(Operator.PERCENTILE, numbers, InvalidValue.NOT_A_NUMBER),
+        arguments(Operator.AVG, Map.of("1", "a", "2", "4"), InvalidValue.NOT_A_NUMBER),
+        arguments(Operator.AVG, Map.of(Macro.Key.MODE, Macro.Value.IGNORE_INVALID, "1", "a"),
+                  InvalidValue.NOT_A_VALID_MATH)
+                    );
+  }
+
+  private static Map<String, Object> withPercentile(Map<String, Object> numbers, String p) {
+    Map<String, Object> attributes = new HashMap<>(numbers);
+    attributes.put(Macro.Key.PERCENTILE, p);
+    return attributes;
+  }
+
+  @ParameterizedTest
+  @MethodSource("aggregatesSrc")
+  void calculateAggregates(String operator, Map<String, Object> attributes, String expected) {
+    Assertions.assertEquals(expected, new CalcMacro().calculate(operator, attributes),
+                            "operator: " + operator + ", attributes: " + attributes);
+  }
+
+  /**
+   * Percentiles selected without sorting must be the same as those of the sorted numbers.
+   */
+  @Test
+  void percentileMatchesSortedNumbers() {
+    Random random = new Random(42);
+    for (int test = 0; test < 200; test++) {
+      int size = 1 + random.nextInt(40);
+      BigDecimal[] values = new BigDecimal[size];
+      for (int i = 0; i < size; i++) {
+        // few different values, so there are many duplicates
+        values[i] = BigDecimal.valueOf(random.nextInt(size), random.nextInt(2));
+      }
+      BigDecimal[] sorted = values.clone();
+      Arrays.sort(sorted);
+      BigDecimal p = BigDecimal.valueOf(random.nextInt(10001), 2);
+
+      BigDecimal rank = p.multiply(BigDecimal.valueOf(size - 1L)).divide(BigDecimal.valueOf(100));
+      int lower = rank.intValue();
+      BigDecimal fraction = rank.subtract(BigDecimal.valueOf(lower));
+      BigDecimal expected = fraction.signum() == 0
+                            ? sorted[lower]
+                            : sorted[lower].add(sorted[lower + 1].subtract(sorted[lower])
+                                                                 .multiply(fraction));
+
+      BigDecimal result = Aggregates.percentile(values.clone(), size, p, MathContext.DECIMAL128);
+      Assertions.assertEquals(0, expected.compareTo(result),
+                              p + " of " + Arrays.toString(values) + ": " + result);
+    }
+  }
+
+  static Stream<Arguments> rangeSrc() {
+    List<Arguments> arguments = new ArrayList<>();
+    List<List<String>> ranges = List.of(List.of("1..10", ""), List.of("1..10", "3"),
+                                        List.of("10..1", ""), List.of("5..-5", "-2.5"),
+                                        List.of("0.1..0.35", "0.1"), List.of("7..7", ""),
+                                        List.of("-3..4", "0.5"), List.of("1..20", "1"));
+    List<String> operators = List.of(Operator.SUM, Operator.SUB, Operator.MULTIPLY,
+                                     Operator.DIVIDE, Operator.AVG, Operator.MIN, Operator.MAX,
+                                     Operator.COUNT, Operator.VARIANCE, Operator.STDDEV,
+                                     Operator.MEDIAN, Operator.PERCENTILE);
+    for (List<String> range : ranges) {
+      for (String operator : operators) {
+        arguments.add(arguments(operator, range.get(0), range.get(1)));
+      }
+    }
+    return arguments.stream();
+  }
+
+  /**
+   * Ranges, calculated in closed form or streamed, must have the same results as their numbers.
+   */
+  @ParameterizedTest
+  @MethodSource("rangeSrc")
+  void calculateRangeMatchesItsNumbers(String operator, String range, String step) {
+    Map<String, Object> attributes = new HashMap<>(Map.of(Macro.Key.RANGE, range,
+                                                          Macro.Key.SCALE, "8",
+                                                          Macro.Key.PERCENTILE, "37.5"));
+    if (!step.isEmpty()) {
+      attributes.put(Macro.Key.STEP, step);
+    }
+    Range parsed = Range.parse(range, step.isEmpty() ? null : step);
+    Map<String, Object> numbers = new HashMap<>(Map.of(Macro.Key.SCALE, "8",
+                                                       Macro.Key.PERCENTILE, "37.5"));
+    BigDecimal number = parsed.first();
+    for (int i = 1; i <= parsed.count().intValue(); i++) {
+      numbers.put(String.valueOf(i), number.toPlainString());
+      number = number.add(parsed.step());
+    }
+
+    CalcMacro calcMacro = new CalcMacro();
+    Assertions.assertEquals(calcMacro.calculate(operator, numbers),
+                            calcMacro.calculate(operator, attributes),
+                            operator + " " + range + " step " + step);
+  }
+
+  static Stream<Arguments> rangeResultSrc() {
+    return Stream.of(
+        arguments(Operator.SUM, Map.of(Macro.Key.RANGE, "1..100000"), "5000050000.00"),
+        arguments(Operator.SUM, Map.of(Macro.Key.RANGE, "1 .. 1000000000000",
+                                       Macro.Key.SCALE, "0"), "500000000000500000000000"),
+        arguments(Operator.COUNT, Map.of(Macro.Key.RANGE, "0..1", Macro.Key.STEP, "0.3"), "4"),
+        arguments(Operator.AVG, Map.of(Macro.Key.RANGE, "2..1000000000000000"),
+                  "500000000000001.00"),
+        arguments(Operator.MULTIPLY, Map.of(Macro.Key.RANGE, "1..2000000"),
+                  InvalidValue.NOT_A_VALID_MATH),
+        // 1000000! and 450! have more than 1000 digits, 449! has 998
+        arguments(Operator.MULTIPLY, Map.of(Macro.Key.RANGE, "1..1000000"),
+                  InvalidValue.NOT_A_VALID_MATH),
+        arguments(Operator.MULTIPLY, Map.of(Macro.Key.RANGE, "1..1000000",
+                                            Macro.Key.PRECISION, "34"),
+                  InvalidValue.NOT_A_VALID_MATH),
+        arguments(Operator.MULTIPLY, Map.of(Macro.Key.RANGE, "1..450"),
+                  InvalidValue.NOT_A_VALID_MATH),
+        arguments(Operator.MULTIPLY, Map.of(Macro.Key.RANGE, "1..449", Macro.Key.SCALE, "0"),
+                  LongStream.rangeClosed(1, 449).mapToObj(BigInteger::valueOf)
+                            .reduce(BigInteger.ONE, BigInteger::multiply).toString()),
+        arguments(Operator.DIVIDE, Map.of(Macro.Key.RANGE, "1..-1"),
+                  InvalidValue.NOT_A_VALID_MATH),
+        arguments(Operator.SUM, Map.of(Macro.Key.RANGE, "1..10", Macro.Key.STEP, "-1"),
+                  InvalidValue.NOT_A_NUMBER),
+        arguments(Operator.SUM, Map.of(Macro.Key.RANGE, "1..10", Macro.Key.STEP, "0"),
+                  InvalidValue.NOT_A_NUMBER),
+        arguments(Operator.SUM, Map.of(Macro.Key.RANGE, "1-10"), InvalidValue.NOT_A_NUMBER),
+        arguments(Operator.SUM, Map.of(Macro.Key.RANGE, "a..10"), InvalidValue.NOT_A_NUMBER),
+        arguments(Operator.SUM, Map.of(Macro.Key.RANGE, "0..1e999999999",
+                                       Macro.Key.STEP, "1e-999999999"), InvalidValue.NOT_A_NUMBER),
+        arguments(Operator.SUM, Map.of(Macro.Key.RANGE, "1..1e99999999"),
+                  InvalidValue.NOT_A_NUMBER),
+        arguments(Operator.SUM, Map.of(Macro.Key.RANGE, "1..1e100"), InvalidValue.NOT_A_NUMBER),
+        arguments(Operator.SUM, Map.of(Macro.Key.RANGE, "0..1", Macro.Key.STEP, "1e-1001"),
+                  InvalidValue.NOT_A_NUMBER),
+        arguments(Operator.COUNT, Map.of(Macro.Key.RANGE, "1e100..1e100"), "1"),
+        arguments(Operator.SUM, Map.of(Macro.Key.RANGE, "1..10", "1", "5"),
+                  InvalidValue.NOT_A_NUMBER),
+        arguments("unknown", Map.of(Macro.Key.RANGE, "1..10"), InvalidValue.NOT_AN_OPERATION)
+                    );
+  }
+
+  @ParameterizedTest
+  @MethodSource("rangeResultSrc")
+  void calculateRange(String operator, Map<String, Object> attributes, String expected) {
+    Assertions.assertEquals(expected, new CalcMacro().calculate(operator, attributes),
+                            "operator: " + operator + ", attributes: " + attributes);
+  }
+
+  static Stream<Arguments> listSrc() {
+    return Stream.of(
+        arguments(Operator.SUM, "1.50, 2,3.25", Map.of(), "6.75"),
+        arguments(Operator.SUM, "1.50, 2,3.25,", Map.of("1", "10"), "16.75"),
+        arguments(Operator.SUB, "1, 2", Map.of("1", "10", "2", "0.5"), "6.50"),
+        arguments(Operator.MULTIPLY, "12345678901234567890, 2", Map.of("1", "0.5"),
+                  "12345678901234567890.00"),
+        arguments(Operator.MEDIAN, "5, 1, 3", Map.of(), "3.00"),
+        arguments(Operator.SUM, "1, a, 2", Map.of(), InvalidValue.NOT_A_NUMBER),
+        arguments(Operator.COUNT, "1, a, 2", Map.of(Macro.Key.MODE, Macro.Value.IGNORE_INVALID),
+                  "2"),
+        arguments(Operator.SUM, "", Map.of(), InvalidValue.NOT_A_VALID_MATH)
+                    );
+  }
+
+  @ParameterizedTest
+  @MethodSource("listSrc")
+  void calculateList(String operator, String list, Map<String, Object> numbers,
+                     String expected) {
+    Document document = Mockito.mock(Document.class);
+    Mockito.when(document.getAttribute("prices")).thenReturn(list);
+    Map<String, Object> attributes = new HashMap<>(numbers);
+    attributes.put(Macro.Key.LIST, " prices");
+
+    Map<String, Object> withList = CalcMacro.withNumberList(document, attributes);
+    Assertions.assertEquals(expected, new CalcMacro().calculate(operator, withList),
+                            "operator: " + operator + ", list: " + list);
+    // the shared list isn't modified
+    Assertions.assertEquals(expected, new CalcMacro().calculate(operator, withList),
+                            "operator: " + operator + ", list: " + list);
+  }
+
+  @Test
+  void listsAreParsedOnceAndIdentifiedByTheirValue() {
+    Document document = Mockito.mock(Document.class);
+    Mockito.when(document.getAttribute("prices")).thenReturn("1, 2, 3");
+    Map<String, Object> attributes = Map.of(Macro.Key.LIST, "prices");
+
+    Object list = CalcMacro.withNumberList(document, attributes).get(Macro.Key.LIST);
+    Assertions.assertSame(list, CalcMacro.withNumberList(document, attributes)
+                                         .get(Macro.Key.LIST));
+    Assertions.assertEquals(NumberList.parse("1, 2, 3").toString(), list.toString());
+    Assertions.assertNotEquals(NumberList.parse("1, 2, 4").toString(), list.toString());
+
+    Map<String, Object> unknown = Map.of(Macro.Key.LIST, "unknown");
+    Assertions.assertSame(unknown, CalcMacro.withNumberList(document, unknown));
+    Assertions.assertEquals(InvalidValue.NOT_A_NUMBER,
+                            new CalcMacro().calculate(Operator.SUM, unknown));
+  }
+
+  static Stream<Arguments> csvFileSrc() {
+    return Stream.of(Operator.SUM, Operator.SUB, Operator.MULTIPLY, Operator.DIVIDE,
+                     Operator.AVG, Operator.MIN, Operator.MAX, Operator.COUNT, Operator.VARIANCE,
+                     Operator.STDDEV, Operator.MEDIAN, Operator.PERCENTILE)
+                 .map(Arguments::arguments);
+  }
+
+  /**
+   * Columns of a CSV file, either summarized or read whole, must have the same results as their
+   * numbers.
+   */
+  @ParameterizedTest
+  @MethodSource("csvFileSrc")
+  void calculateCsvFileMatchesItsNumbers(String operator, @TempDir Path directory)
+      throws IOException {
+    Files.writeString(directory.resolve("sales.csv"),
+                      "id,amount\n1,12.50\n2,\"1,000\"\n3,-3.25\n4,7\n5,0.125\n");
+    Document document = CsvFileTest.document(1, directory);
+    Map<String, Object> attributes = Map.of(Macro.Key.FILE, "sales.csv",
+                                            Macro.Key.COLUMN, "amount",
+                                            Macro.Key.HEADER, "true",
+                                            Macro.Key.MODE, Macro.Value.IGNORE_INVALID,
+                                            Macro.Key.SCALE, "6",
+                                            Macro.Key.PERCENTILE, "40");
+    Map<String, Object> numbers = Map.of("1", "12.50", "2", "-3.25", "3", "7", "4", "0.125",
+                                         Macro.Key.SCALE, "6", Macro.Key.PERCENTILE, "40");
+
+    CalcMacro calcMacro = new CalcMacro();
+    Map<String, Object> withFile = CalcMacro.withCsvFile(document, attributes);
+    Assertions.assertEquals(calcMacro.calculate(operator, numbers),
+                            calcMacro.calculate(operator, withFile), operator);
+    // the second time, the summary is cached
+    Assertions.assertEquals(calcMacro.calculate(operator, numbers),
+                            calcMacro.calculate(operator, withFile), operator);
+  }
+
+  @Test
+  void calculateCsvFileIsInvalidUnlessReadableAndNotCombined(@TempDir Path directory)
+      throws IOException {
+    Files.writeString(directory.resolve("sales.csv"), "1\nx\n2\n");
+    Document document = CsvFileTest.document(1, directory);
+    CalcMacro calcMacro = new CalcMacro();
+
+    Map<String, Object> invalid = Map.of(Macro.Key.FILE, "sales.csv", Macro.Key.COLUMN, "1");
+    Assertions.assertEquals(InvalidValue.NOT_A_NUMBER, calcMacro.calculate(
+        Operator.SUM, CalcMacro.withCsvFile(document, invalid)));
+    Map<String, Object> ignored = Map.of(Macro.Key.FILE, "sales.csv", Macro.Key.COLUMN, "1",
+                                         Macro.Key.MODE, Macro.Value.IGNORE_INVALID);
+    Assertions.assertEquals("3.00", calcMacro.calculate(
+        Operator.SUM, CalcMacro.withCsvFile(document, ignored)));
+    Assertions.assertEquals("2.00", calcMacro.calculate(
+        Operator.MULTIPLY, CalcMacro.withCsvFile(document, ignored)));
+
+    for (Map<String, Object> attributes : List.of(
+        Map.<String, Object>of(Macro.Key.FILE, "sales.csv", Macro.Key.COLUMN, "1", "1", "2"),
+        Map.<String, Object>of(Macro.Key.FILE, "sales.csv", Macro.Key.COLUMN, "1",
+                               Macro.Key.RANGE, "1..2"),
+        Map.<String, Object>of(Macro.Key.FILE, "sales.csv", Macro.Key.COLUMN, "2"),
+        Map.<String, Object>of(Macro.Key.FILE, "sales.csv",
+                               Macro.Key.MODE, Macro.Value.IGNORE_INVALID),
+        Map.<String, Object>of(Macro.Key.FILE, "missing.csv", Macro.Key.COLUMN, "1"))) {
+      Assertions.assertEquals(InvalidValue.NOT_A_NUMBER, calcMacro.calculate(
+          Operator.SUM, CalcMacro.withCsvFile(document, attributes)), attributes.toString());
+    }
+    Assertions.assertEquals(InvalidValue.NOT_A_NUMBER, calcMacro.calculate(
+        Operator.SUM, CalcMacro.withCsvFile(CsvFileTest.document(20, directory), ignored)));
+  }
+
+  /**
+   * Columns of several CSV files must have the same results as their numbers, in the same order.
+   */
+  @ParameterizedTest
+  @MethodSource("csvFileSrc")
+  void calculateCsvFilesMatchesTheirNumbers(String operator, @TempDir Path directory)
+      throws IOException {
+    Files.writeString(directory.resolve("q1.csv"), "id,amount\n1,12.50\n2,-3.25\n");
+    Files.writeString(directory.resolve("q2.csv"), "id,amount\n3,7\n4,0.125\n5,x\n");
+    Document document = CsvFileTest.document(1, directory);
+    Map<String, Object> attributes = Map.of(Macro.Key.FILE, "q1.csv, q2.csv",
+                                            Macro.Key.COLUMN, "amount",
+                                            Macro.Key.HEADER, "true",
+                                            Macro.Key.MODE, Macro.Value.IGNORE_INVALID,
+                                            Macro.Key.SCALE, "6",
+                                            Macro.Key.PERCENTILE, "40");
+    Map<String, Object> numbers = Map.of("1", "12.50", "2", "-3.25", "3", "7", "4", "0.125",
+                                         Macro.Key.SCALE, "6", Macro.Key.PERCENTILE, "40");
+
+    CalcMacro calcMacro = new CalcMacro();
+    Map<String, Object> withFiles = CalcMacro.withCsvFile(document, attributes);
+    Assertions.assertEquals(calcMacro.calculate(operator, numbers),
+                            calcMacro.calculate(operator, withFiles), operator);
+    Assertions.assertEquals(InvalidValue.NOT_A_NUMBER, calcMacro.calculate(
+        operator, CalcMacro.withCsvFile(document, Map.of(Macro.Key.FILE, "q1.csv,missing.csv",
+                                                         Macro.Key.COLUMN, "amount",
+                                                         Macro.Key.HEADER, "true"))));
+  }
+
+  static Stream<Arguments> approximateSrc() {
+    return Stream.of(
+        arguments(Operator.APPROX_MEDIAN, Operator.MEDIAN),
+        arguments(Operator.APPROX_PERCENTILE, Operator.PERCENTILE),
+        arguments(Operator.P95, Operator.PERCENTILE),
+        arguments(Operator.P99, Operator.PERCENTILE),
+        arguments(Operator.APPROX_DISTINCT, Operator.COUNT)
+                    );
+  }
+
+  /**
+   * Approximations of few numbers are exact, and numbers which are already in memory (not in
+   * files) are never approximated.
+   */
+  @ParameterizedTest
+  @MethodSource("approximateSrc")
+  void calculateApproximateOfFewNumbersIsExact(String operator, String exactOperator,
+                                               @TempDir Path directory) throws IOException {
+    String percentile = switch (operator) {
+      case Operator.P95 -> "95";
+      case Operator.P99 -> "99";
+      default -> "40";
+    };
+    Files.writeString(directory.resolve("q1.csv"), "amount\n12.5\n-3.25\n7\n7.00\n");
+    Files.writeString(directory.resolve("q2.csv"), "amount\n0.5\n-3.25\n");
+    Document document = CsvFileTest.document(1, directory);
+    Map<String, Object> attributes = Map.of(Macro.Key.FILE, "q1.csv,q2.csv",
+                                            Macro.Key.COLUMN, "amount",
+                                            Macro.Key.HEADER, "true",
+                                            Macro.Key.SCALE, "4",
+                                            Macro.Key.PERCENTILE, percentile);
+    // distinct numbers, for the count
+    Map<String, Object> numbers = Operator.APPROX_DISTINCT.equals(operator)
+                                  ? Map.of("1", "12.5", "2", "-3.25", "3", "7", "4", "0.5")
+                                  : Map.of("1", "12.5", "2", "-3.25", "3", "7", "4", "7.00",
+                                           "5", "0.5", "6", "-3.25", Macro.Key.SCALE, "4",
+                                           Macro.Key.PERCENTILE, percentile);
+
+    CalcMacro calcMacro = new CalcMacro();
+    String expected = calcMacro.calculate(exactOperator, numbers);
+    Assertions.assertEquals(expected, calcMacro.calculate(
+        operator, CalcMacro.withCsvFile(document, attributes)), operator);
+    Assertions.assertEquals(
+        Operator.APPROX_DISTINCT.equals(operator) ? "4" : expected,
+        calcMacro.calculate(operator, Map.of("1", "12.5", "2", "-3.25", "3", "7", "4", "7.00",
+                                             "5", "0.5", "6", "-3.25", Macro.Key.SCALE, "4",
+                                             Macro.Key.PERCENTILE, percentile)), operator);
+  }
+
+  @Test
+  void calculateApproximateOfManyNumbersIsWithinTheError(@TempDir Path directory)
+      throws IOException {
+    Random random = new Random(42);
+    int size = 100_000;
+    BigDecimal[] numbers = new BigDecimal[size];
+    StringBuilder content = new StringBuilder("amount\n");
+    for (int i = 0; i < size; i++) {
+      // skewed, with many repeated numbers
+      numbers[i] = BigDecimal.valueOf((long) (Math.exp(random.nextGaussian() * 2) * 100), 2);
+      content.append(numbers[i]).append('\n');
+    }
+    Files.writeString(directory.resolve("sales.csv"), content);
+    Arrays.sort(numbers);
+    long distinct = Arrays.stream(numbers).distinct().count();
+    Document document = CsvFileTest.document(1, directory);
+    CalcMacro calcMacro = new CalcMacro();
+
+    for (String error : List.of("0.05", "0.01")) {
+      Map<String, Object> attributes = CalcMacro.withCsvFile(
+          document, Map.of(Macro.Key.FILE, "sales.csv", Macro.Key.COLUMN, "amount",
+                           Macro.Key.HEADER, "true", Macro.Key.ERROR, error));
+      double maxError = Double.parseDouble(error);
+      for (String operator : List.of(Operator.APPROX_MEDIAN, Operator.P95, Operator.P99)) {
+        BigDecimal result = new BigDecimal(calcMacro.calculate(operator, attributes));
+        double expectedRank = switch (operator) {
+          case Operator.P95 -> 0.95;
+          case Operator.P99 -> 0.99;
+          default -> 0.5;
+        };
+        // ranks of the numbers around the result
+        double lower = -Arrays.binarySearch(numbers, result.subtract(new BigDecimal("0.005")),
+                                            BigDecimal::compareTo) - 1;
+        double upper = -Arrays.binarySearch(numbers, result.add(new BigDecimal("0.005")),
+                                            BigDecimal::compareTo) - 1;
+        Assertions.assertTrue(lower / size <= expectedRank + maxError
+                              && upper / size >= expectedRank - maxError,
+                              operator + " " + error + " " + result);
+      }
+      long estimate = Long.parseLong(calcMacro.calculate(Operator.APPROX_DISTINCT, attributes));
+      // 4 standard errors
+      Assertions.assertEquals(distinct, estimate, 4 * maxError * distinct, error);
+    }
+
+    for (String error : List.of("0", "1", "-0.1", "x")) {
+      Assertions.assertEquals(InvalidValue.NOT_A_NUMBER, calcMacro.calculate(
+          Operator.P95, CalcMacro.withCsvFile(document, Map.of(Macro.Key.FILE, "sales.csv",
+                                                               Macro.Key.COLUMN, "amount",
+                                                               Macro.Key.HEADER, "true",
+                                                               Macro.Key.ERROR, error))), error);
+    }
+  }
 }
@@ -0,0 +1,199 @@
+package com.lealceldeiro.asciidoc.extensions.calc;
+
+import static org.junit.jupiter.params.provider.Arguments.arguments;
+
+import com.lealceldeiro.asciidoc.extensions.InvalidValue;
+import com.lealceldeiro.asciidoc.extensions.Macro;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import org.asciidoctor.ast.Cell;
+import org.asciidoctor.ast.Column;
+import org.asciidoctor.ast.Document;
+import org.asciidoctor.ast.Row;
+import org.asciidoctor.ast.Table;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+
+class CalcTableProcessorTest {
+  private static final int COLUMNS = 3;
+
+  @Test
+  void processAddsFooterRowsAndSetsDocumentAttributes() {
+    Map<String, Object> attributes = Map.of(
+        Macro.Key.TABLE_FOOTER, "sum:price, avg:3, max:2",
+        Macro.Key.TABLE_ATTRIBUTES, "total=sum:price, count=count:qty, unknown=sum:nope");
+    // the second row spans two columns, and the last two rows share their first cell
+    Table table = table(attributes, List.of(row(cell("item"), cell("price"), cell("qty"))),
+                        row(cell("a"), cell("1.25"), cell("2")),
+                        row(cell("b", 2, 1), cell("4")),
+                        row(cell("c", 1, 2), cell("2.50"), cell("")),
+                        row(cell("3"), cell("6")));
+    Document document = document(table);
+
+    CalcTableProcessor processor = processor();
+    processor.process(document);
+
+    Assertions.assertEquals(List.of(List.of("", "6.75", "4.00"), List.of("", "3.00", "")),
+                            footer(table));
+    Mockito.verify(document).setAttribute("total", "6.75", true);
+    Mockito.verify(document).setAttribute("count", "3", true);
+    Mockito.verify(document).setAttribute("unknown", InvalidValue.NOT_A_NUMBER, true);
+  }
+
+  static Stream<Arguments> processUsesTheSettingsOfTheTableSrc() {
+    return Stream.of(
+        arguments(Map.of(), "sum:1", "3.50"),
+        arguments(Map.of(), "sum:2", InvalidValue.NOT_A_NUMBER),
+        arguments(Map.of("calc-mode", Macro.Value.IGNORE_INVALID), "sum:2", "2.00"),
+        arguments(Map.of("calc-scale", "0"), "sum:1", "4"),
+        arguments(Map.of("calc-scale", "0", "calc-rounding_mode", "DOWN"), "sum:1", "3"),
+        arguments(Map.of("calc-p", "50"), "percentile:1", "1.00"),
+        arguments(Map.of(), "percentile:1", InvalidValue.NOT_A_NUMBER),
+        arguments(Map.of(), "p95:1", "1.90"),
+        arguments(Map.of(), "sum:4", InvalidValue.NOT_A_NUMBER),
+        arguments(Map.of(), "not an operator:1", InvalidValue.NOT_AN_OPERATION)
+                    );
+  }
+
+  @ParameterizedTest
+  @MethodSource("processUsesTheSettingsOfTheTableSrc")
+  void processUsesTheSettingsOfTheTable(Map<String, Object> settings, String aggregate,
+                                        String expected) {
+    Map<String, Object> attributes = new HashMap<>(settings);
+    attributes.put(Macro.Key.TABLE_ATTRIBUTES, "result=" + aggregate);
+    Table table = table(attributes, List.of(),
+                        row(cell("0.50"), cell("2"), cell(" ")),
+                        row(cell("1"), cell("n/a"), cell("")),
+                        row(cell("2.00"), cell(""), cell("")));
+    Document document = document(table);
+
+    processor().process(document);
+
+    Mockito.verify(document).setAttribute("result", expected, true);
+    Assertions.assertEquals(List.of(), footer(table));
+  }
+
+  @Test
+  void processUsesTheScaleOfTheDocument() {
+    Table table = table(Map.of(Macro.Key.TABLE_FOOTER, "avg:1"), List.of(),
+                        row(cell("1")), row(cell("2")));
+    Document document = document(table);
+    Mockito.when(document.getAttribute(Macro.Key.DOCUMENT_SCALE)).thenReturn("3");
+
+    processor().process(document);
+
+    Assertions.assertEquals(List.of(List.of("1.500", "", "")), footer(table));
+  }
+
+  @Test
+  void processIgnoresTablesWithoutAggregates() {
+    Table table = table(Map.of(), List.of(), row(cell("1")));
+    Document document = document(table);
+
+    processor().process(document);
+
+    Mockito.verify(table, Mockito.never()).getBody();
+    Mockito.verify(document, Mockito.never())
+           .setAttribute(ArgumentMatchers.anyString(), ArgumentMatchers.any(),
+                         ArgumentMatchers.anyBoolean());
+  }
+
+  static Stream<Arguments> aggregatesSrc() {
+    return Stream.of(
+        arguments("sum:1", false, List.of(new CalcTableProcessor.Aggregate(null, "sum", "1"))),
+        arguments(" sum : a b , avg:2,", false,
+                  List.of(new CalcTableProcessor.Aggregate(null, "sum", "a b"),
+                          new CalcTableProcessor.Aggregate(null, "avg", "2"))),
+        arguments("sum, :1, avg:2", false,
+                  List.of(new CalcTableProcessor.Aggregate(null, "avg", "2"))),
+        arguments("total = sum:1", true,
+                  List.of(new CalcTableProcessor.Aggregate("total", "sum", "1"))),
+        arguments("sum:1, =sum:1, mean=avg:", true,
+                  List.of(new CalcTableProcessor.Aggregate("mean", "avg", ""))),
+        arguments("", true, List.of())
+                    );
+  }
+
+  @ParameterizedTest
+  @MethodSource("aggregatesSrc")
+  void aggregates(String value, boolean named, List<CalcTableProcessor.Aggregate> expected) {
+    Assertions.assertEquals(expected, new CalcTableProcessor().aggregates(value, named));
+  }
+
+  @Test
+  void parseListOfItems() {
+    NumberList list = NumberList.parse(List.of(" 1.50", "", "1,000", "2"));
+
+    Assertions.assertEquals(2, list.numbers().size());
+    Assertions.assertEquals(1, list.invalid());
+    Assertions.assertNotEquals(NumberList.parse(List.of("1", "2")).toString(),
+                               NumberList.parse(List.of("1,2")).toString());
+  }
+
+  private static CalcTableProcessor processor() {
+    CalcTableProcessor processor = Mockito.spy(new CalcTableProcessor());
+    Mockito.doAnswer(invocation -> {
+      Row row = Mockito.mock(Row.class);
+      List<Cell> cells = new ArrayList<>();
+      Mockito.when(row.getCells()).thenReturn(cells);
+      return row;
+    }).when(processor).createTableRow(ArgumentMatchers.any());
+    Mockito.doAnswer(invocation -> cell(invocation.getArgument(1)))
+           .when(processor).createTableCell(ArgumentMatchers.any(Column.class),
+                                            ArgumentMatchers.anyString());
+    return processor;
+  }
+
+  private static Document document(Table table) {
+    Document document = Mockito.mock(Document.class);
+    Mockito.when(document.findBy(ArgumentMatchers.any())).thenReturn(List.of(table));
+    return document;
+  }
+
+  private static Table table(Map<String, Object> attributes, List<Row> header, Row... body) {
+    Table table = Mockito.mock(Table.class);
+    Mockito.when(table.getAttribute(ArgumentMatchers.any()))
+           .thenAnswer(invocation -> attributes.get(invocation.<String>getArgument(0)));
+    List<Column> columns = new ArrayList<>();
+    for (int i = 0; i < COLUMNS; i++) {
+      columns.add(Mockito.mock(Column.class));
+    }
+    Mockito.when(table.getColumns()).thenReturn(columns);
+    Mockito.when(table.getHeader()).thenReturn(header);
+    Mockito.when(table.getBody()).thenReturn(List.of(body));
+    Mockito.when(table.getFooter()).thenReturn(new ArrayList<>());
+    return table;
+  }
+
+  private static Row row(Cell... cells) {
+    Row row = Mockito.mock(Row.class);
+    Mockito.when(row.getCells()).thenReturn(List.of(cells));
+    return row;
+  }
+
+  private static Cell cell(String text) {
+    return cell(text, 1, 1);
+  }
+
+  private static Cell cell(String text, int colspan, int rowspan) {
+    Cell cell = Mockito.mock(Cell.class);
+    Mockito.when(cell.getText()).thenReturn(text);
+    Mockito.when(cell.getColspan()).thenReturn(colspan);
+    Mockito.when(cell.getRowspan()).thenReturn(rowspan);
+    return cell;
+  }
+
+  private static List<List<String>> footer(Table table) {
+    return table.getFooter().stream()
+                .map(row -> row.getCells().stream().map(Cell::getText).toList())
+                .toList();
+  }
+}
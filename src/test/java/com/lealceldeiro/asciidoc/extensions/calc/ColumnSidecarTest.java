@@ -0,0 +1,313 @@
+package com.lealceldeiro.asciidoc.extensions.calc;
+
+import com.lealceldeiro.asciidoc.extensions.Macro;
+import com.lealceldeiro.asciidoc.extensions.Operator;
+import com.lealceldeiro.asciidoc.extensions.Parsing;
+import com.lealceldeiro.asciidoc.extensions.Util;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+import org.asciidoctor.ast.Document;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mockito;
+
+class ColumnSidecarTest {
+  private static final List<String> SUMMARY_OPERATORS = List.of(
+      Operator.SUM, Operator.SUB, Operator.AVG, Operator.MIN, Operator.MAX, Operator.VARIANCE,
+      Operator.STDDEV);
+  private static final String DIRECTORY_PROPERTY
+      = Util.SYSTEM_PROPERTY_PREFIX + Macro.Key.FILE_SIDECAR_DIRECTORY;
+
+  @TempDir
+  Path directory;
+
+  @BeforeEach
+  void setUp() {
+    System.setProperty(DIRECTORY_PROPERTY, directory.resolve("sidecars").toString());
+  }
+
+  @AfterEach
+  void tearDown() {
+    System.clearProperty(DIRECTORY_PROPERTY);
+  }
+
+  /**
+   * Summaries scanned from the sidecar must be the same as those of the numbers parsed from the
+   * CSV file, even with different scales, exponents, and sums which overflow a {@code long}.
+   */
+  @Test
+  void summaryMatchesCsvFile() throws IOException {
+    Random random = new Random(42);
+    StringBuilder content = new StringBuilder("id,amount,big\n");
+    for (int row = 0; row < 50_000; row++) {
+      String amount = switch (random.nextInt(6)) {
+        case 0 -> String.valueOf(random.nextInt(1000) - 500);
+        case 1 -> "-" + random.nextInt(1000) + "." + random.nextInt(10);
+        case 2 -> random.nextInt(100) + "e2";
+        case 3 -> "n/a";
+        default -> random.nextInt(100_000) + "." + (10 + random.nextInt(90));
+      };
+      long big = (random.nextLong() >>> 2) * (random.nextBoolean() ? 1 : -1);
+      content.append(row).append(',').append(amount).append(',').append(big).append('\n');
+    }
+    Files.writeString(directory.resolve("data.csv"), content);
+    CsvFile file = CsvFile.resolve(document(true), "data.csv");
+
+    for (String column : List.of("amount", "big")) {
+      Aggregates.Summary expected = new Aggregates.Summary();
+      file.readColumn(column, true, value -> {
+        BigDecimal number = Parsing.toBigDecimal(value);
+        if (number == null) {
+          expected.addInvalid();
+        } else {
+          expected.add(number);
+        }
+      });
+
+      ColumnSidecar.Column stored = ColumnSidecar.column(file, column, true);
+      Assertions.assertNotNull(stored, column);
+      // the second time, it's read from the sidecar
+      for (ColumnSidecar.Column sidecarColumn : List.of(stored,
+                                                        ColumnSidecar.column(file, column, true))) {
+        Aggregates.Summary summary = sidecarColumn.summary();
+        Assertions.assertEquals(expected.count(), summary.count(), column);
+        Assertions.assertEquals(expected.invalid(), summary.invalid(), column);
+        for (String operator : SUMMARY_OPERATORS) {
+          Assertions.assertEquals(0, expected.result(operator, MathContext.DECIMAL128).orElseThrow()
+                                             .compareTo(summary.result(operator,
+                                                                       MathContext.DECIMAL128)
+                                                               .orElseThrow()),
+                                  column + " " + operator);
+        }
+      }
+
+      int[] invalid = new int[1];
+      CalcMacro.Numbers numbers = stored.numbers(invalid);
+      Assertions.assertEquals(expected.count(), numbers.size());
+      Assertions.assertEquals(expected.invalid(), invalid[0]);
+    }
+  }
+
+  @Test
+  void sketchMatchesCsvFile() throws IOException {
+    Random random = new Random(42);
+    StringBuilder content = new StringBuilder("amount\n");
+    for (int row = 0; row < 20_000; row++) {
+      content.append(random.nextInt(5) == 0 ? "x" : random.nextInt(100_000) + "." + row % 10)
+             .append('\n');
+    }
+    Files.writeString(directory.resolve("data.csv"), content);
+
+    ColumnSketch expected = CsvFile.resolve(document(false), "data.csv")
+                                   .sketch("amount", true, 0.01);
+    CsvFile file = CsvFile.resolve(document(true), "data.csv");
+    ColumnSketch stored = file.sketch("amount", true, 0.01);
+
+    Assertions.assertTrue(Files.exists(file.sidecar()));
+    Assertions.assertEquals(expected.count(), stored.count());
+    Assertions.assertEquals(expected.invalid(), stored.invalid());
+    Assertions.assertEquals(expected.distinct(), stored.distinct());
+    for (String percentile : List.of("0", "50", "95", "99", "100")) {
+      Assertions.assertEquals(expected.percentile(new BigDecimal(percentile)),
+                              stored.percentile(new BigDecimal(percentile)), percentile);
+    }
+  }
+
+  @Test
+  void columnsWhichDoNotFitAreReadFromTheCsvFile() throws IOException {
+    Files.writeString(directory.resolve("data.csv"), "a,b\n1,0.0000000000000000001\n2,1\n");
+    CsvFile file = CsvFile.resolve(document(true), "data.csv");
+
+    Assertions.assertNull(ColumnSidecar.column(file, "b", true));
+    Assertions.assertNull(ColumnSidecar.column(file, "b", true));
+    Assertions.assertEquals(0, new BigDecimal("1.0000000000000000001").compareTo(
+        file.summary("b", true).result(Operator.SUM, MathContext.DECIMAL128).orElseThrow()));
+    Assertions.assertThrows(IllegalArgumentException.class,
+                            () -> ColumnSidecar.column(file, "c", true));
+  }
+
+  @Test
+  void sidecarIsDiscardedOnlyIfTheContentChanges() throws IOException {
+    Path csv = directory.resolve("data.csv");
+    Files.writeString(csv, "a,b\n1,2\n3,4\n");
+    Path sidecar = CsvFile.resolve(document(true), "data.csv").sidecar();
+
+    ColumnSidecar.Column a = ColumnSidecar.column(CsvFile.resolve(document(true), "data.csv"),
+                                                  "a", true);
+    long oneColumn = Files.size(sidecar);
+    Object fileKey = Files.readAttributes(sidecar, BasicFileAttributes.class).fileKey();
+    ColumnSidecar.column(CsvFile.resolve(document(true), "data.csv"), "b", true);
+    long twoColumns = Files.size(sidecar);
+    // the new column is appended
+    Assertions.assertTrue(twoColumns > oneColumn);
+    Assertions.assertEquals(fileKey,
+                            Files.readAttributes(sidecar, BasicFileAttributes.class).fileKey());
+    Assertions.assertEquals("4", a.summary().result(Operator.SUM, MathContext.DECIMAL128)
+                                  .orElseThrow().toPlainString());
+
+    // only the modification time changes: the columns are kept
+    Files.setLastModifiedTime(csv, FileTime.fromMillis(Files.getLastModifiedTime(csv).toMillis()
+                                                       - 60_000));
+    a = ColumnSidecar.column(CsvFile.resolve(document(true), "data.csv"), "a", true);
+    Assertions.assertEquals(twoColumns, Files.size(sidecar));
+    Assertions.assertEquals("4", a.summary().result(Operator.SUM, MathContext.DECIMAL128)
+                                  .orElseThrow().toPlainString());
+
+    // the content changes, with the same size: the sidecar is created again
+    Files.writeString(csv, "a,b\n5,2\n3,4\n");
+    Files.setLastModifiedTime(csv, FileTime.fromMillis(Files.getLastModifiedTime(csv).toMillis()
+                                                       + 60_000));
+    a = ColumnSidecar.column(CsvFile.resolve(document(true), "data.csv"), "a", true);
+    Assertions.assertEquals(oneColumn, Files.size(sidecar));
+    Assertions.assertEquals("8", a.summary().result(Operator.SUM, MathContext.DECIMAL128)
+                                  .orElseThrow().toPlainString());
+  }
+
+  @Test
+  void corruptedSidecarIsCreatedAgain() throws IOException {
+    Files.writeString(directory.resolve("data.csv"), "a\n1\n2\n");
+    CsvFile file = CsvFile.resolve(document(true), "data.csv");
+    ColumnSidecar.column(file, "a", true);
+    Path sidecar = file.sidecar();
+    long size = Files.size(sidecar);
+    try (FileChannel channel = FileChannel.open(sidecar, StandardOpenOption.WRITE)) {
+      channel.truncate(size - 4);
+    }
+
+    ColumnSidecar.Column column = ColumnSidecar.column(file, "a", true);
+
+    Assertions.assertEquals(2, column.count());
+    Assertions.assertEquals(size, Files.size(sidecar));
+  }
+
+  /**
+   * A section whose values are still being written (by another process, or by one which stopped)
+   * is ignored by readers, and replaced by the next process appending the column.
+   */
+  @Test
+  void incompleteSectionIsNotRead() throws IOException {
+    Files.writeString(directory.resolve("data.csv"), "a,b\n1,3\n2,4\n");
+    CsvFile file = CsvFile.resolve(document(true), "data.csv");
+    ColumnSidecar.column(file, "a", true);
+    Path sidecar = file.sidecar();
+    Object fileKey = Files.readAttributes(sidecar, BasicFileAttributes.class).fileKey();
+    byte[] key = "header:b".getBytes(StandardCharsets.UTF_8);
+    try (FileChannel channel = FileChannel.open(sidecar, StandardOpenOption.APPEND)) {
+      // pending scale, and only one of the two values
+      channel.write(ByteBuffer.allocate(2 * Integer.BYTES + key.length + 4 * Long.BYTES)
+                              .putInt(key.length).put(key).putInt(-2).putLong(2).putLong(0)
+                              .putLong(0).putLong(3).flip());
+    }
+    long pending = Files.size(sidecar);
+
+    ColumnSidecar.Column a = ColumnSidecar.column(file, "a", true);
+
+    Assertions.assertEquals("3", a.summary().result(Operator.SUM, MathContext.DECIMAL128)
+                                  .orElseThrow().toPlainString());
+    Assertions.assertEquals(pending, Files.size(sidecar));
+    Assertions.assertEquals(fileKey,
+                            Files.readAttributes(sidecar, BasicFileAttributes.class).fileKey());
+
+    ColumnSidecar.Column b = ColumnSidecar.column(file, "b", true);
+
+    Assertions.assertEquals("7", b.summary().result(Operator.SUM, MathContext.DECIMAL128)
+                                  .orElseThrow().toPlainString());
+    // the incomplete section is written again in place
+    Assertions.assertEquals(pending + Long.BYTES, Files.size(sidecar));
+    Assertions.assertEquals(fileKey,
+                            Files.readAttributes(sidecar, BasicFileAttributes.class).fileKey());
+  }
+
+  @Test
+  void columnWhoseValuesDoNotMatchTheirChecksumIsCreatedAgain() throws IOException {
+    Files.writeString(directory.resolve("data.csv"), "a,b\n1,3\n2,4\n");
+    CsvFile file = CsvFile.resolve(document(true), "data.csv");
+    ColumnSidecar.column(file, "a", true);
+    ColumnSidecar.column(file, "b", true);
+    Path sidecar = file.sidecar();
+    long size = Files.size(sidecar);
+    // the last value of the last column
+    try (FileChannel channel = FileChannel.open(sidecar, StandardOpenOption.WRITE)) {
+      channel.write(ByteBuffer.allocate(Long.BYTES).putLong(0, 9), size - Long.BYTES);
+    }
+
+    ColumnSidecar.Column column = ColumnSidecar.column(file, "b", true);
+
+    Assertions.assertEquals("7", column.summary().result(Operator.SUM, MathContext.DECIMAL128)
+                                       .orElseThrow().toPlainString());
+    Assertions.assertTrue(Files.size(sidecar) < size);
+  }
+
+  @Test
+  void sidecarIsOnlyUsedIfEnabled() throws IOException {
+    Files.writeString(directory.resolve("data.csv"), "a\n1\n2\n");
+
+    CsvFile disabled = CsvFile.resolve(document(false), "data.csv");
+    disabled.summary("a", true);
+    Assertions.assertNull(disabled.sidecar());
+    Assertions.assertFalse(Files.exists(directory.resolve("sidecars")));
+
+    CsvFile enabled = CsvFile.resolve(document(true), "data.csv");
+    enabled.summary("a", true);
+    Assertions.assertTrue(Files.exists(enabled.sidecar()));
+  }
+
+  @Test
+  void sidecarIsStoredInTheBuildDirectory() throws IOException {
+    System.clearProperty(DIRECTORY_PROPERTY);
+    Files.createFile(directory.resolve("pom.xml"));
+    Files.createDirectory(directory.resolve("data"));
+    Files.writeString(directory.resolve("data/data.csv"), "a\n1\n2\n");
+    Document document = CsvFileTest.document(1, directory);
+    Mockito.when(document.getAttribute(Macro.Key.FILE_SIDECAR)).thenReturn("on");
+
+    CsvFile file = CsvFile.resolve(document, "data/data.csv");
+    file.summary("a", true);
+
+    Assertions.assertEquals(directory.resolve("target").resolve(ColumnSidecar.DIRECTORY),
+                            file.sidecar().getParent());
+    Assertions.assertTrue(file.sidecar().getFileName().toString().startsWith("data.csv-"));
+    Assertions.assertTrue(Files.exists(file.sidecar()));
+    try (Stream<Path> files = Files.list(directory.resolve("data"))) {
+      Assertions.assertEquals(List.of(directory.resolve("data/data.csv")), files.toList());
+    }
+    // files with the same name in other directories have their own sidecar
+    Assertions.assertNotEquals(file.sidecar(), ColumnSidecar.path(directory.resolve("data.csv"),
+                                                                  directory));
+  }
+
+  @Test
+  void sidecarDirectoryIsNotSetByTheDocument() throws IOException {
+    Files.writeString(directory.resolve("data.csv"), "a\n1\n2\n");
+    Document document = document(true);
+    Mockito.when(document.getAttribute(Macro.Key.FILE_SIDECAR_DIRECTORY))
+           .thenReturn(directory.resolve("elsewhere").toString());
+
+    CsvFile file = CsvFile.resolve(document, "data.csv");
+    file.summary("a", true);
+
+    Assertions.assertEquals(directory.resolve("sidecars"), file.sidecar().getParent());
+    Assertions.assertFalse(Files.exists(directory.resolve("elsewhere")));
+  }
+
+  private Document document(boolean sidecar) {
+    Document document = CsvFileTest.document(1, directory);
+    Mockito.when(document.getAttribute(Macro.Key.FILE_SIDECAR)).thenReturn(sidecar ? "on" : null);
+    return document;
+  }
+}
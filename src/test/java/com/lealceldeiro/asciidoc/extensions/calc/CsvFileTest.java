@@ -0,0 +1,173 @@
+package com.lealceldeiro.asciidoc.extensions.calc;
+
+import static org.junit.jupiter.params.provider.Arguments.arguments;
+
+import com.lealceldeiro.asciidoc.extensions.Util;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Stream;
+import org.asciidoctor.ast.Document;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.mockito.Mockito;
+
+class CsvFileTest {
+  @TempDir
+  Path directory;
+
+  static Stream<Arguments> readColumnSrc() {
+    return Stream.of(
+        arguments("a,b\n1,2\n3,4\n", "b", true, List.of("2", "4")),
+        arguments("a,b\n1,2\n3,4", "2", true, List.of("2", "4")),
+        arguments("1,2\r\n3,4\r\n", "1", false, List.of("1", "3")),
+        arguments("\uFEFFamount\n1\n", "amount", true, List.of("1")),
+        arguments("a, amount \n1, 2 \n", "amount", true, List.of("2")),
+        arguments("\n\na,b\n\n1,2\n  \n3,4\n\n", "b", true, List.of("2", "4")),
+        arguments("a,b\n1\n3,4\n", "b", true, List.of("", "4")),
+        arguments("a,b\n\"x,\"\"y\"\"\",\"1,5\"\n", "a", true, List.of("x,\"y\"")),
+        arguments("a,b\n\"x,\"\"y\"\"\",\"1,5\"\n", "b", true, List.of("1,5")),
+        arguments("a,b\n\"multi\nline\",2\n", "b", true, List.of("2")),
+        arguments("a,b\n\"\",2\n", "a", true, List.of("")),
+        arguments("a,b\n", "a", true, List.of()),
+        arguments("", "1", false, List.of())
+                    );
+  }
+
+  @ParameterizedTest
+  @MethodSource("readColumnSrc")
+  void readColumn(String content, String column, boolean header, List<String> expected)
+      throws IOException {
+    CsvFile file = write(content);
+
+    List<String> values = new ArrayList<>();
+    file.readColumn(column, header, values::add);
+
+    Assertions.assertEquals(expected, values, content);
+  }
+
+  @Test
+  void readColumnFailsIfThereIsNoSuchColumn() throws IOException {
+    CsvFile file = write("a,b\n1,2\n");
+
+    Assertions.assertThrows(IllegalArgumentException.class,
+                            () -> file.readColumn("c", true, value -> { }));
+    Assertions.assertThrows(IllegalArgumentException.class,
+                            () -> file.readColumn("3", true, value -> { }));
+    Assertions.assertThrows(IllegalArgumentException.class,
+                            () -> file.readColumn("a", false, value -> { }));
+    Assertions.assertThrows(IllegalArgumentException.class,
+                            () -> write("").readColumn("a", true, value -> { }));
+  }
+
+  /**
+   * Quoted values, separators and multibyte characters split across the chunks of the file must
+   * be read as if it was read at once.
+   */
+  @Test
+  void readColumnOfBigFile() throws IOException {
+    Random random = new Random(42);
+    StringBuilder content = new StringBuilder("id,\"na\"\"me\",amount\r\n");
+    List<String> expected = new ArrayList<>();
+    List<String> expectedNames = new ArrayList<>();
+    for (int row = 0; row < 20_000; row++) {
+      boolean quoted = random.nextBoolean();
+      String name = quoted ? "\"é, \"\"" + row + "\"\"\nñ\"" : "n" + row;
+      String amount = random.nextInt(100_000) + "." + random.nextInt(10);
+      content.append(row).append(',').append(name).append(',').append(amount).append("\r\n");
+      expected.add(amount);
+      expectedNames.add(quoted ? "é, \"" + row + "\"\nñ" : "n" + row);
+    }
+    CsvFile file = write(content.toString());
+
+    List<String> values = new ArrayList<>();
+    file.readColumn("amount", true, values::add);
+    Assertions.assertEquals(expected, values);
+
+    List<String> names = new ArrayList<>();
+    file.readColumn("na\"me", true, names::add);
+    Assertions.assertEquals(expectedNames, names);
+  }
+
+  @Test
+  void summaryIsCachedUntilTheFileChanges() throws IOException {
+    Path path = directory.resolve("data.csv");
+    Files.writeString(path, "amount\n1\n2\n");
+    CsvFile file = CsvFile.resolve(document(0, directory), "data.csv");
+
+    Aggregates.Summary summary = file.summary("amount", true);
+    Assertions.assertEquals(2, summary.count());
+    Assertions.assertSame(summary, CsvFile.resolve(document(0, directory), "data.csv")
+                                          .summary("amount", true));
+
+    Files.writeString(path, "amount\n1\n2\n3\n");
+    CsvFile changed = CsvFile.resolve(document(0, directory), "data.csv");
+    Assertions.assertNotEquals(file.toString(), changed.toString());
+    Assertions.assertEquals(3, changed.summary("amount", true).count());
+  }
+
+  static Stream<Arguments> resolveSrc() {
+    return Stream.of(
+        arguments("0", "data.csv", true),
+        arguments("0", "../outside.csv", true),
+        arguments("1", "data.csv", true),
+        arguments("1", "../outside.csv", false),
+        arguments("1", "missing.csv", false),
+        arguments("1", ".", false),
+        arguments("10", "data.csv", true),
+        arguments("20", "data.csv", false),
+        arguments(null, "data.csv", false),
+        arguments("x", "data.csv", false)
+                    );
+  }
+
+  @ParameterizedTest
+  @MethodSource("resolveSrc")
+  void resolveFollowsTheSafeMode(String safeModeLevel, String file, boolean readable)
+      throws IOException {
+    Path base = Files.createDirectories(directory.resolve("docs"));
+    Files.writeString(base.resolve("data.csv"), "1\n");
+    Files.writeString(directory.resolve("outside.csv"), "1\n");
+    Document document = Mockito.mock(Document.class);
+    Mockito.when(document.getAttribute(CsvFile.SAFE_MODE_LEVEL)).thenReturn(safeModeLevel);
+    Mockito.when(document.getOptions()).thenReturn(Map.of(Util.BASE_DIR_OPTION,
+                                                          base.toString()));
+
+    Assertions.assertEquals(readable, CsvFile.resolve(document, file) != null,
+                            safeModeLevel + " " + file);
+  }
+
+  @Test
+  void resolveRelativeToTheDocumentDirectoryWithoutBaseDir() throws IOException {
+    Files.writeString(directory.resolve("data.csv"), "1\n");
+
+    CsvFile file = CsvFile.resolve(document(1, directory), " data.csv ");
+
+    Assertions.assertEquals(directory.resolve("data.csv"), file.path());
+  }
+
+  static Document document(int safeModeLevel, Path documentDirectory) {
+    Document document = Mockito.mock(Document.class);
+    Mockito.when(document.getAttribute(CsvFile.SAFE_MODE_LEVEL)).thenReturn(
+        String.valueOf(safeModeLevel));
+    Mockito.when(document.getOptions()).thenReturn(Map.of());
+    Mockito.when(document.getAttribute(Util.DOCUMENT_DIR, "")).thenReturn(
+        documentDirectory.toString());
+    return document;
+  }
+
+  private CsvFile write(String content) throws IOException {
+    Path path = Files.createTempFile(directory, "data", ".csv");
+    Files.writeString(path, content, StandardCharsets.UTF_8);
+    return CsvFile.resolve(document(0, directory), path.getFileName().toString());
+  }
+}
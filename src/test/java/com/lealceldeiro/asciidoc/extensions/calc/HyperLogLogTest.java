@@ -0,0 +1,114 @@
+package com.lealceldeiro.asciidoc.extensions.calc;
+
+import static org.junit.jupiter.params.provider.Arguments.arguments;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+class HyperLogLogTest {
+  static Stream<Arguments> estimateSrc() {
+    return Stream.of(
+        arguments(14, 0),
+        arguments(14, 1),
+        arguments(14, 100),
+        arguments(14, 10_000),
+        arguments(14, 50_000),
+        arguments(14, 1_000_000),
+        arguments(4, 1000),
+        arguments(9, 100_000),
+        arguments(18, 1_000_000)
+                    );
+  }
+
+  /**
+   * Estimates must be within 4 standard errors, however many numbers there are, each of them
+   * added several times.
+   */
+  @ParameterizedTest
+  @MethodSource("estimateSrc")
+  void estimate(int precision, int distinct) {
+    HyperLogLog sketch = new HyperLogLog(precision);
+    for (int repetition = 0; repetition < 2; repetition++) {
+      for (int i = 0; i < distinct; i++) {
+        sketch.add(BigDecimal.valueOf(i * 13L - 500, 2));
+      }
+    }
+
+    double standardError = 1.04 / Math.sqrt(1 << precision);
+    Assertions.assertEquals(distinct, sketch.estimate(), 4 * standardError * distinct);
+  }
+
+  /**
+   * Numbers with 64 bits or more are hashed from their whole magnitude, not from a 32 bits hash of
+   * it.
+   */
+  @Test
+  void bigNumbersAreHashedInto64Bits() {
+    byte[] first = {1, 0, 0, 0, 0, 0, 0, 0, 0, 40};
+    byte[] second = {1, 0, 0, 0, 0, 0, 0, 0, 1, 9};
+    Assertions.assertEquals(Arrays.hashCode(first), Arrays.hashCode(second));
+
+    Assertions.assertNotEquals(HyperLogLog.hash(new BigDecimal(new BigInteger(first))),
+                               HyperLogLog.hash(new BigDecimal(new BigInteger(second))));
+    Assertions.assertEquals(HyperLogLog.hash(new BigDecimal(new BigInteger(first), 2)),
+                            HyperLogLog.hash(new BigDecimal(new BigInteger(first)
+                                                                .multiply(BigInteger.TEN), 3)));
+  }
+
+  @Test
+  void mergeIsTheSketchOfTheUnion() {
+    HyperLogLog first = new HyperLogLog(12);
+    HyperLogLog second = new HyperLogLog(12);
+    HyperLogLog union = new HyperLogLog(12);
+    for (int i = 0; i < 50_000; i++) {
+      BigDecimal number = BigDecimal.valueOf(i);
+      (i % 3 == 0 ? first : second).add(number);
+      // overlapping
+      if (i % 5 == 0) {
+        first.add(number);
+      }
+      union.add(number);
+    }
+    long firstEstimate = first.estimate();
+
+    HyperLogLog merged = first.copy();
+    merged.merge(second);
+
+    Assertions.assertEquals(union.estimate(), merged.estimate());
+    Assertions.assertEquals(firstEstimate, first.estimate());
+    Assertions.assertThrows(IllegalArgumentException.class,
+                            () -> merged.merge(new HyperLogLog(13)));
+  }
+
+  @Test
+  void equalNumbersHaveTheSameHash() {
+    Assertions.assertEquals(HyperLogLog.hash(new BigDecimal("1")),
+                            HyperLogLog.hash(new BigDecimal("1.000")));
+    Assertions.assertEquals(HyperLogLog.hash(new BigDecimal("0")),
+                            HyperLogLog.hash(new BigDecimal("0.00")));
+    Assertions.assertEquals(HyperLogLog.hash(new BigDecimal("1E+2")),
+                            HyperLogLog.hash(new BigDecimal("100")));
+    Assertions.assertEquals(HyperLogLog.hash(new BigDecimal("123456789012345678901234567890")),
+                            HyperLogLog.hash(new BigDecimal("123456789012345678901234567890.0")));
+    Assertions.assertNotEquals(HyperLogLog.hash(new BigDecimal("1")),
+                               HyperLogLog.hash(new BigDecimal("0.1")));
+    Assertions.assertNotEquals(HyperLogLog.hash(new BigDecimal("1")),
+                               HyperLogLog.hash(new BigDecimal("-1")));
+  }
+
+  @Test
+  void precision() {
+    Assertions.assertEquals(14, HyperLogLog.precision(0.01));
+    Assertions.assertEquals(9, HyperLogLog.precision(0.05));
+    Assertions.assertEquals(HyperLogLog.MIN_PRECISION, HyperLogLog.precision(0.9));
+    Assertions.assertEquals(HyperLogLog.MAX_PRECISION, HyperLogLog.precision(0.0001));
+    Assertions.assertThrows(IllegalArgumentException.class, () -> new HyperLogLog(3));
+  }
+}
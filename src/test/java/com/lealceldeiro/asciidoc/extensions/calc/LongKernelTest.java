@@ -0,0 +1,117 @@
+package com.lealceldeiro.asciidoc.extensions.calc;
+
+import static org.junit.jupiter.params.provider.Arguments.arguments;
+
+import java.math.BigInteger;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+class LongKernelTest {
+  private static final BigInteger TWO_TO_32 = BigInteger.ONE.shiftLeft(32);
+
+  /**
+   * The tests run with {@code --add-modules jdk.incubator.vector}, and again without it.
+   */
+  @Test
+  void vectorKernelIsUsedIfAvailable() {
+    boolean available = ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent();
+
+    Assertions.assertEquals(available ? "VectorLongKernel" : "LongKernel",
+                            LongKernel.INSTANCE.getClass().getSimpleName());
+  }
+
+  static Stream<Arguments> aggregateSrc() {
+    return Stream.of(
+        arguments(0, 1_000L, 0.0),
+        arguments(1, 1_000L, 0.0),
+        arguments(7, 1_000L, 0.5),
+        arguments(8, 1_000L, 1.0),
+        arguments(1_000, 10_000_000L, 0.0),
+        arguments(8_191, 10_000_000L, 0.1),
+        arguments(8_192, LongKernel.SQUARE_LIMIT, 0.0),
+        arguments(8_192, LongKernel.SQUARE_LIMIT + 1, 0.0),
+        arguments(LongKernel.MAX_LENGTH, Long.MAX_VALUE, 0.01)
+                    );
+  }
+
+  /**
+   * Both kernels must give the same partial aggregates, which must be the exact ones.
+   */
+  @ParameterizedTest
+  @MethodSource("aggregateSrc")
+  void aggregate(int length, long bound, double invalidRatio) {
+    Random random = new Random(length);
+    long[] values = new long[length + 3];
+    for (int i = 0; i < length; i++) {
+      values[i] = random.nextDouble() < invalidRatio
+                  ? ColumnSidecar.INVALID
+                  : random.nextLong(-bound, bound) + (random.nextBoolean() ? 1 : 0);
+    }
+    // beyond the length
+    values[length] = ColumnSidecar.INVALID;
+    values[length + 1] = Long.MAX_VALUE;
+
+    long count = 0;
+    long min = Long.MAX_VALUE;
+    long max = Long.MIN_VALUE;
+    BigInteger sum = BigInteger.ZERO;
+    BigInteger squares = BigInteger.ZERO;
+    for (int i = 0; i < length; i++) {
+      if (values[i] != ColumnSidecar.INVALID) {
+        count++;
+        min = Math.min(min, values[i]);
+        max = Math.max(max, values[i]);
+        sum = sum.add(BigInteger.valueOf(values[i]));
+        squares = squares.add(BigInteger.valueOf(values[i]).pow(2));
+      }
+    }
+
+    for (LongKernel kernel : kernels()) {
+      LongKernel.Partial partial = new LongKernel.Partial();
+      kernel.aggregate(values, length, partial);
+
+      String kernelName = kernel.getClass().getSimpleName();
+      Assertions.assertEquals(count, partial.count, kernelName);
+      if (count > 0) {
+        Assertions.assertEquals(min, partial.min, kernelName);
+        Assertions.assertEquals(max, partial.max, kernelName);
+      }
+      Assertions.assertEquals(sum, BigInteger.valueOf(partial.sumHigh).multiply(TWO_TO_32)
+                                             .add(BigInteger.valueOf(partial.sumLow)), kernelName);
+      boolean overflow = count > 0 && Math.max(-min, max) > LongKernel.SQUARE_LIMIT;
+      Assertions.assertEquals(overflow, partial.squaresOverflow, kernelName);
+      if (!overflow) {
+        Assertions.assertEquals(squares, BigInteger.valueOf(partial.squaresHigh)
+                                                   .multiply(TWO_TO_32)
+                                                   .add(BigInteger.valueOf(partial.squaresLow)),
+                                kernelName);
+      }
+    }
+  }
+
+  @Test
+  void aggregateFailsIfThereAreTooManyValues() {
+    long[] values = new long[LongKernel.MAX_LENGTH + 1];
+    LongKernel.Partial partial = new LongKernel.Partial();
+
+    for (LongKernel kernel : kernels()) {
+      Assertions.assertThrows(IllegalArgumentException.class,
+                              () -> kernel.aggregate(values, values.length, partial));
+    }
+  }
+
+  /**
+   * The vectorized kernel isn't referenced, so the tests compile without the incubator module.
+   */
+  private static List<LongKernel> kernels() {
+    return LongKernel.INSTANCE.getClass() == LongKernel.class
+           ? List.of(new LongKernel())
+           : List.of(new LongKernel(), LongKernel.INSTANCE);
+  }
+}
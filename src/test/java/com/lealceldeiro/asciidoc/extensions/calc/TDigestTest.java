@@ -0,0 +1,133 @@
+package com.lealceldeiro.asciidoc.extensions.calc;
+
+import static org.junit.jupiter.params.provider.Arguments.arguments;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.function.DoubleSupplier;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+class TDigestTest {
+  private static final double[] QUANTILES = {0, 0.001, 0.01, 0.25, 0.5, 0.75, 0.95, 0.99, 1};
+
+  @Test
+  void quantileOfFewNumbersIsExact() {
+    Random random = new Random(42);
+    TDigest digest = new TDigest(100);
+    BigDecimal[] numbers = new BigDecimal[30];
+    for (int i = 0; i < numbers.length; i++) {
+      numbers[i] = BigDecimal.valueOf(random.nextInt(1000));
+      digest.add(numbers[i].doubleValue());
+    }
+
+    for (double q : QUANTILES) {
+      BigDecimal expected = Aggregates.percentile(numbers.clone(), numbers.length,
+                                                  BigDecimal.valueOf(q * 100),
+                                                  MathContext.DECIMAL128);
+      Assertions.assertEquals(expected.doubleValue(), digest.quantile(q), 1e-9, "q=" + q);
+    }
+    Assertions.assertEquals(numbers.length, digest.count());
+    Assertions.assertTrue(Double.isNaN(new TDigest(100).quantile(0.5)));
+  }
+
+  static Stream<Arguments> quantileSrc() {
+    Random random = new Random(42);
+    return Stream.of(
+        arguments("uniform", 50.0, (DoubleSupplier) random::nextDouble),
+        arguments("normal", 200.0, (DoubleSupplier) random::nextGaussian),
+        arguments("lognormal", 200.0, (DoubleSupplier) () -> Math.exp(3 * random.nextGaussian())),
+        arguments("repeated", 200.0, (DoubleSupplier) () -> random.nextInt(10)),
+        arguments("increasing", 200.0, (DoubleSupplier) new DoubleSupplier() {
+          private double next;
+
+          @Override
+          public double getAsDouble() {
+            return next++;
+          }
+        })
+                    );
+  }
+
+  /**
+   * The rank of every quantile must be within {@code 2 / compression} of the expected one, even
+   * when the numbers are merged from several digests.
+   */
+  @ParameterizedTest
+  @MethodSource("quantileSrc")
+  void quantileIsWithinTheError(String distribution, double compression, DoubleSupplier numbers) {
+    int size = 200_000;
+    double[] sorted = new double[size];
+    TDigest digest = new TDigest(compression);
+    TDigest[] parts = {new TDigest(compression), new TDigest(compression),
+                       new TDigest(compression)};
+    for (int i = 0; i < size; i++) {
+      sorted[i] = numbers.getAsDouble();
+      digest.add(sorted[i]);
+      parts[i % parts.length].add(sorted[i]);
+    }
+    TDigest merged = parts[0].copy();
+    merged.merge(parts[1]);
+    merged.merge(parts[2]);
+    Arrays.sort(sorted);
+
+    for (TDigest sketch : new TDigest[] {digest, merged}) {
+      Assertions.assertEquals(size, sketch.count());
+      Assertions.assertTrue(sketch.centroids() <= compression + 2, distribution);
+      for (double q : QUANTILES) {
+        double quantile = sketch.quantile(q);
+        double lower = rank(sorted, quantile, false);
+        double upper = rank(sorted, quantile, true);
+        double expected = q * (size - 1);
+        double error = 2 / compression * size;
+        Assertions.assertTrue(lower <= expected + error && upper >= expected - error,
+                              distribution + " q=" + q + ": " + lower + "-" + upper);
+      }
+    }
+    Assertions.assertEquals(sorted[0], merged.quantile(0));
+    Assertions.assertEquals(sorted[size - 1], merged.quantile(1));
+  }
+
+  @Test
+  void mergeDoesNotModifyTheOtherDigest() {
+    TDigest digest = new TDigest(100);
+    TDigest other = new TDigest(100);
+    for (int i = 0; i < 1000; i++) {
+      digest.add(i);
+      other.add(-i);
+    }
+    double median = other.quantile(0.5);
+
+    digest.merge(other);
+
+    Assertions.assertEquals(median, other.quantile(0.5));
+    Assertions.assertEquals(1000, other.count());
+    Assertions.assertEquals(2000, digest.count());
+    Assertions.assertEquals(-999, digest.quantile(0));
+    Assertions.assertThrows(IllegalArgumentException.class, () -> digest.add(Double.NaN));
+  }
+
+  /**
+   * @return Amount of numbers lower than the given one, or, if {@code orEqual}, the index of the
+   *     last one lower or equal.
+   */
+  private static double rank(double[] sorted, double number, boolean orEqual) {
+    int low = 0;
+    int high = sorted.length;
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (sorted[middle] < number || (orEqual && sorted[middle] == number)) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return orEqual ? low - 1 : low;
+  }
+}
@@ -182,6 +182,34 @@ class CalcDateMacroTest {
     }
   }
 
+  static Stream<Arguments> calculateReusesCachedFormatsAndZonesSrc() {
+    return Stream.of(
+        arguments("dd/MM/yyyy", "Europe/Madrid", "02/01/2024"),
+        arguments("not a valid output date format either", "Europe/Madrid", "2024-01-02"),
+        arguments("yyyy.MM.dd", "not a valid zone id either", "2024.01.02")
+                    );
+  }
+
+  @ParameterizedTest
+  @MethodSource("calculateReusesCachedFormatsAndZonesSrc")
+  void calculateReusesCachedFormatsAndZones(String format, String zoneId, String expected) {
+    Calc<Map<String, Object>> calcDateMacro = new CalcDateMacro();
+    Map<String, Object> attributes = Map.of(DATE_ATTRIBUTE_POSITION, "2024-01-01",
+                                            AMOUNT_ATTRIBUTE_POSITION, "1",
+                                            CalcDateMacro.TARGET_FORMAT_ATTRIBUTE_POSITION, format,
+                                            Macro.Key.FROM_ZONE_ID, zoneId,
+                                            Macro.Key.TO_ZONE_ID, zoneId,
+                                            Macro.Key.MODE, Macro.Value.IGNORE_INVALID);
+
+    Assertions.assertEquals(expected, calcDateMacro.calculate(Operator.SUM, attributes));
+    long formatterHits = CalcDateMacro.formatterCacheStats().hits();
+    long zoneHits = CalcDateMacro.zoneCacheStats().hits();
+    Assertions.assertEquals(expected, calcDateMacro.calculate(Operator.SUM, attributes));
+
+    Assertions.assertTrue(CalcDateMacro.formatterCacheStats().hits() > formatterHits);
+    Assertions.assertTrue(CalcDateMacro.zoneCacheStats().hits() > zoneHits);
+  }
+
   private static Stream<Arguments> calculateDateWithZoneIdsSrc() {
     Set<String> zoneIds = Set.of(
         "UTC", "America/Adak", "America/Anchorage", "America/Los_Angeles", "America/Chicago",
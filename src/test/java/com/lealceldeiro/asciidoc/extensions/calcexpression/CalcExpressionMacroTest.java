@@ -12,6 +12,7 @@ import java.util.Map;
 import java.util.UUID;
 import java.util.stream.Stream;
 import org.asciidoctor.ast.Document;
+import org.asciidoctor.ast.StructuralNode;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
@@ -69,13 +70,22 @@ class CalcExpressionMacroTest {
                                             Macro.Key.EXP, "0.471 + 0.49")), "0.96"),
         Arguments.of(macroAttributes(Map.of(Macro.Key.ROUNDING_MODE, RoundingMode.FLOOR.toString(),
                                             Macro.Key.EXP, "0.474 + 0.494")), "0.96"),
-        // the following test should return 0.97,
-        // but due to https://github.com/mariuszgromada/MathParser.org-mXparser returning a double,
-        // there's an impression and the results is not exactly 0.97, but 0.96 + some approximate to 9999,
-        // hence the value is rounded floor (0.96)
-        // when that's fixed in MathParser, this test case can be updated
+        // evaluated exactly, not as a double
         Arguments.of(macroAttributes(Map.of(Macro.Key.ROUNDING_MODE, RoundingMode.FLOOR.toString(),
-                                            Macro.Key.EXP, "0.475 + 0.495")), "0.96")
+                                            Macro.Key.EXP, "0.475 + 0.495")), "0.97"),
+        Arguments.of(macroAttributes(Map.of(Macro.Key.ROUNDING_MODE, RoundingMode.FLOOR.toString(),
+                                            Macro.Key.EXP, "1 / 3 * 3")), "1.00"),
+        // engines
+        Arguments.of(macroAttributes(Map.of(Macro.Key.ROUNDING_MODE, RoundingMode.FLOOR.toString(),
+                                            Macro.Key.EXPRESSION_ENGINE,
+                                            MXparserExpressionEngine.NAME,
+                                            Macro.Key.EXP, "0.475 + 0.495")), "0.96"),
+        Arguments.of(macroAttributes(Map.of(Macro.Key.EXPRESSION_ENGINE, "unknown",
+                                            Macro.Key.EXP, "0.475 + 0.495")), "0.97"),
+        // outside the natively supported subset
+        Arguments.of(macroAttributes(Map.of(Macro.Key.EXP, "2 ^ 0.5")), "1.41"),
+        Arguments.of(macroAttributes(Map.of(Macro.Key.EXP, "sin(0)")), "0.00"),
+        Arguments.of(macroAttributes(Map.of(Macro.Key.EXP, "2(3)")), "6.00")
                     );
   }
 
@@ -104,6 +114,7 @@ class CalcExpressionMacroTest {
          MockedStatic<License> license = Mockito.mockStatic(License.class)) {
       ExtensionLogger loggerMock = Mockito.mock(ExtensionLogger.class);
       elf.when(ExtensionLoggerFactory::getInstance).thenReturn(loggerMock);
+      MXparserExpressionEngine.clearLicenseConfirmations();
 
       Calc<CalcExpressionMacro.Attributes> calcMacro = new CalcExpressionMacro();
       String result = calcMacro.calculate("", attributes);
@@ -127,6 +138,30 @@ class CalcExpressionMacroTest {
     }
   }
 
+  @ParameterizedTest
+  @ValueSource(strings = {DefaultExpressionEngine.NAME, MXparserExpressionEngine.NAME})
+  void calculateConfirmsLicenseOncePerAuthorAndLicenseType(String engine) {
+    try (MockedStatic<License> license = Mockito.mockStatic(License.class)) {
+      MXparserExpressionEngine.clearLicenseConfirmations();
+      Calc<CalcExpressionMacro.Attributes> calcMacro = new CalcExpressionMacro();
+      Map<String, Object> macroAttributes = Map.of(Macro.Key.EXP, "3 * 4",
+                                                   Macro.Key.EXPRESSION_ENGINE, engine);
+      String otherAuthor = TEST_AUTHOR + " Jr.";
+
+      calcMacro.calculate("", macroAttributes(macroAttributes));
+      calcMacro.calculate("", macroAttributes(macroAttributes));
+      calcMacro.calculate("", attributesWithoutLicense(Map.of(Macro.Key.AUTHOR, otherAuthor,
+                                                              Macro.Key.LICENSE_TYPE, TEST_LICENSE),
+                                                       macroAttributes));
+      calcMacro.calculate("", attributesWithoutLicense(Map.of(Macro.Key.AUTHOR, otherAuthor,
+                                                              Macro.Key.LICENSE_TYPE, TEST_LICENSE),
+                                                       macroAttributes));
+
+      license.verify(() -> License.iConfirmNonCommercialUse(TEST_AUTHOR), Mockito.times(1));
+      license.verify(() -> License.iConfirmNonCommercialUse(otherAuthor), Mockito.times(1));
+    }
+  }
+
   @ParameterizedTest
   @ValueSource(strings = {Macro.Key.AUTHOR, Macro.Key.LICENSE_TYPE})
   void getCalculationAttributesReturnsNullIfAttributeNotProvided(String attribute) {
@@ -187,4 +222,30 @@ class CalcExpressionMacroTest {
 
     Assertions.assertEquals(macroValue, calculationAttributes.getAttribute(attribute));
   }
+
+  @ParameterizedTest
+  @ValueSource(strings = {Macro.Key.AUTHOR, Macro.Key.LICENSE_TYPE})
+  void getCalculationAttributesReadsEachDocumentAttributeOncePerBlock(String attribute) {
+    Document document = Mockito.mock(Document.class);
+    StructuralNode block = Mockito.mock(StructuralNode.class);
+    StructuralNode nextBlock = Mockito.mock(StructuralNode.class);
+    Mockito.when(block.getDocument()).thenReturn(document);
+    Mockito.when(nextBlock.getDocument()).thenReturn(document);
+    Mockito.when(document.getAttribute(attribute)).thenReturn("first value", "redefined value");
+
+    CalcExpressionMacro.Attributes first
+        = CalcExpressionMacro.getCalculationAttributes(block, Collections.emptyMap());
+    CalcExpressionMacro.Attributes second
+        = CalcExpressionMacro.getCalculationAttributes(block, Collections.emptyMap());
+    Assertions.assertEquals("first value", first.getAttribute(attribute));
+    Assertions.assertEquals("first value", second.getAttribute(attribute));
+    Mockito.verify(document).getAttribute(attribute);
+
+    // attributes redefined before the next block are read again
+    CalcExpressionMacro.Attributes third
+        = CalcExpressionMacro.getCalculationAttributes(nextBlock, Collections.emptyMap());
+    Assertions.assertEquals("redefined value", third.getAttribute(attribute));
+    Mockito.verify(document, Mockito.times(2)).getAttribute(attribute);
+    Mockito.verifyNoMoreInteractions(document);
+  }
 }
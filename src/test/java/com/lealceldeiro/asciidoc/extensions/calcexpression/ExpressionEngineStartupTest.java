@@ -0,0 +1,46 @@
+package com.lealceldeiro.asciidoc.extensions.calcexpression;
+
+import com.lealceldeiro.asciidoc.extensions.Macro;
+import com.lealceldeiro.asciidoc.extensions.Util;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Optional;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class ExpressionEngineStartupTest {
+  private static final String STARTUP_PROPERTY
+      = Util.SYSTEM_PROPERTY_PREFIX + Macro.Key.EXPRESSION_STARTUP;
+
+  @AfterEach
+  void tearDown() {
+    System.clearProperty(STARTUP_PROPERTY);
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = {"", "lazy", "unknown"})
+  void nothingIsWarmedUpInLazyMode(String mode) {
+    System.setProperty(STARTUP_PROPERTY, mode);
+
+    Assertions.assertEquals(ExpressionEngineStartup.LAZY, ExpressionEngineStartup.mode());
+    Assertions.assertEquals(Optional.empty(), ExpressionEngineStartup.onRegistration());
+  }
+
+  @Test
+  void enginesAreWarmedUpOnceInBackgroundInPrewarmMode() throws InterruptedException {
+    System.setProperty(STARTUP_PROPERTY, "PREWARM");
+
+    Thread thread = ExpressionEngineStartup.onRegistration().orElseThrow();
+    Assertions.assertTrue(thread.isVirtual());
+    Assertions.assertSame(thread, ExpressionEngineStartup.onRegistration().orElseThrow());
+
+    thread.join();
+    Assertions.assertEquals("7.50", NativeExpression.compile("(1.5 + 2.25) * 2")
+                                                    .evaluate(2, RoundingMode.HALF_EVEN)
+                                                    .map(BigDecimal::toPlainString)
+                                                    .orElseThrow());
+  }
+}
@@ -0,0 +1,88 @@
+package com.lealceldeiro.asciidoc.extensions.calcexpression;
+
+import static org.junit.jupiter.params.provider.Arguments.arguments;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Optional;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class NativeExpressionTest {
+  static Stream<Arguments> evaluateSrc() {
+    return Stream.of(
+        arguments("3 * 4", "12.00"),
+        arguments("(12 * 4) / 8 + 45 * 0.5", "28.50"),
+        arguments("0.1 + 0.2", "0.30"),
+        arguments("10 / 4", "2.50"),
+        arguments("1 / 3", "0.33"),
+        arguments("2 / 3", "0.67"),
+        arguments(".5 + 1", "1.50"),
+        arguments("1e3 + 1E-2", "1000.01"),
+        // unary operators bind tighter than ^, which is right-associative (as in mXparser)
+        arguments("-2^2", "4.00"),
+        arguments("2^3^2", "512.00"),
+        arguments("2^-1", "0.50"),
+        arguments("-3^2*2", "18.00"),
+        // nested powers are exact, as long as they're small enough
+        arguments("(2^10)^10", "1267650600228229401496703205376.00"),
+        arguments("(2^-10)^10 * 2^100", "1.00"),
+        arguments("- -2", "2.00"),
+        arguments("+2", "2.00"),
+        arguments("2*-3", "-6.00"),
+        arguments("abs(-2.5)", "2.50"),
+        arguments("sgn(-3)", "-1.00"),
+        arguments("floor(-1.5)", "-2.00"),
+        arguments("ceil(-1.5)", "-1.00"),
+        arguments("round(2.345, 2)", "2.35"),
+        arguments("round(-2.5, 0)", "-3.00"),
+        arguments("min(3, 1, 2)", "1.00"),
+        arguments("max(3, 1 + 4, 2)", "5.00")
+                    );
+  }
+
+  @ParameterizedTest
+  @MethodSource("evaluateSrc")
+  void evaluate(String expression, String expected) {
+    Optional<CompiledExpression> compiled = NativeExpression.parse(expression);
+
+    Assertions.assertTrue(compiled.isPresent(), expression);
+    Assertions.assertEquals(expected, compiled.get()
+                                              .evaluate(2, RoundingMode.HALF_EVEN)
+                                              .map(BigDecimal::toString)
+                                              .orElse(null));
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = {"1 / 0", "0 / 0", "2 ^ -1 / (1 - 1)"})
+  void evaluateReturnsEmptyOnArithmeticErrors(String expression) {
+    Optional<CompiledExpression> compiled = NativeExpression.parse(expression);
+
+    Assertions.assertTrue(compiled.isPresent(), expression);
+    Assertions.assertTrue(compiled.get().evaluate(2, RoundingMode.HALF_EVEN).isEmpty());
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = {"sin(0)", "2(3)", "1.", "pi", "3 % 2", "round(2.5)", "2 ^", "1e"})
+  void unsupportedExpressionsAreNotCompiledNatively(String expression) {
+    Assertions.assertTrue(NativeExpression.parse(expression).isEmpty(), expression);
+    Assertions.assertInstanceOf(MXparserExpression.class, NativeExpression.compile(expression));
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = {"2 ^ 0.5", "2 ^ 2000", "(10^100)^1000", "((10^100)^1000)^1000",
+                          "((2^1000)^1000)^1000", "(10^-100)^1000", "(1/3)^1000^1000"})
+  @Timeout(10)
+  void unsupportedExponentsFallBackToMXparser(String expression) {
+    Optional<CompiledExpression> compiled = NativeExpression.parse(expression);
+
+    Assertions.assertTrue(compiled.isPresent(), expression);
+    Assertions.assertEquals(new MXparserExpression(expression).evaluate(2, RoundingMode.HALF_EVEN),
+                            compiled.get().evaluate(2, RoundingMode.HALF_EVEN));
+  }
+}
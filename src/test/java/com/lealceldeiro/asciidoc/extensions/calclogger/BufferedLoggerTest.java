@@ -0,0 +1,75 @@
+package com.lealceldeiro.asciidoc.extensions.calclogger;
+
+import org.asciidoctor.extension.BaseProcessor;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+class BufferedLoggerTest {
+  private static final String NL = System.lineSeparator();
+
+  @Test
+  void messagesAreLoggedInOneBatchPerProcessorOnFlush() {
+    ExtensionLogger delegate = Mockito.mock(ExtensionLogger.class);
+    BaseProcessor processor = Mockito.mock(BaseProcessor.class);
+    BaseProcessor otherProcessor = Mockito.mock(BaseProcessor.class);
+    BufferedLogger logger = new BufferedLogger(delegate, 10);
+
+    logger.log(processor, "first");
+    logger.log(otherProcessor, "second");
+    logger.log(processor, "third");
+    Mockito.verifyNoInteractions(delegate);
+
+    logger.flush();
+    Mockito.verify(delegate).log(processor, "first" + NL + "third");
+    Mockito.verify(delegate).log(otherProcessor, "second");
+
+    logger.flush();
+    Mockito.verifyNoMoreInteractions(delegate);
+  }
+
+  @Test
+  void warningsAreNotHeldBack() {
+    ExtensionLogger delegate = Mockito.mock(ExtensionLogger.class);
+    BaseProcessor processor = Mockito.mock(BaseProcessor.class);
+    BufferedLogger logger = new BufferedLogger(delegate, 10);
+
+    logger.log(processor, "debug");
+    logger.warn(processor, "warning");
+    Mockito.verify(delegate).warn(processor, "warning");
+    Mockito.verifyNoMoreInteractions(delegate);
+
+    logger.flush();
+    Mockito.verify(delegate).log(processor, "debug");
+  }
+
+  @Test
+  void oldestMessagesAreDroppedWhenFull() {
+    ExtensionLogger delegate = Mockito.mock(ExtensionLogger.class);
+    BaseProcessor processor = Mockito.mock(BaseProcessor.class);
+    BufferedLogger logger = new BufferedLogger(delegate, 2);
+
+    logger.log(processor, "first");
+    logger.log(processor, "second");
+    logger.log(processor, "third");
+    logger.flush();
+
+    Mockito.verify(delegate).log(processor, "1 earlier messages dropped" + NL + "second" + NL
+                                            + "third");
+  }
+
+  @Test
+  void flushAllLogsMessagesOfEveryThread() throws InterruptedException {
+    ExtensionLogger delegate = Mockito.mock(ExtensionLogger.class);
+    BaseProcessor processor = Mockito.mock(BaseProcessor.class);
+    BufferedLogger logger = new BufferedLogger(delegate, 10);
+
+    Thread thread = new Thread(() -> logger.log(processor, "from another thread"));
+    thread.start();
+    thread.join();
+    logger.flush();
+    Mockito.verifyNoInteractions(delegate);
+
+    logger.flushAll();
+    Mockito.verify(delegate).log(processor, "from another thread");
+  }
+}
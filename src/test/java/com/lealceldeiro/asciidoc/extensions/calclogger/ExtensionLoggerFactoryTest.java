@@ -0,0 +1,79 @@
+package com.lealceldeiro.asciidoc.extensions.calclogger;
+
+import static org.junit.jupiter.params.provider.Arguments.arguments;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import org.asciidoctor.extension.BaseProcessor;
+import org.asciidoctor.log.LogRecord;
+import org.asciidoctor.log.Severity;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+
+class ExtensionLoggerFactoryTest {
+  static Stream<Arguments> createSrc() {
+    return Stream.of(
+        arguments(ExtensionLoggerFactory.ASCIIDOCTOR, AsciidoctorLogger.class),
+        arguments(ExtensionLoggerFactory.JUL, JulLogger.class),
+        arguments(ExtensionLoggerFactory.NOOP, NoopLogger.class),
+        arguments(" noop ", NoopLogger.class),
+        arguments(ExtensionLoggerFactory.BUFFERED, BufferedLogger.class),
+        arguments("unknown", AsciidoctorLogger.class)
+                    );
+  }
+
+  @ParameterizedTest
+  @MethodSource("createSrc")
+  void create(String backend, Class<? extends ExtensionLogger> expectedType) {
+    Assertions.assertInstanceOf(expectedType, ExtensionLoggerFactory.create(backend));
+  }
+
+  static Stream<Arguments> levelSrc() {
+    return Stream.of(
+        arguments("debug", Severity.DEBUG, true),
+        arguments(" INFO ", Severity.INFO, false),
+        arguments("warn", Severity.WARN, false),
+        arguments("fatal", Severity.FATAL, false),
+        arguments("verbose", Severity.WARN, false),
+        arguments(null, Severity.WARN, false)
+                    );
+  }
+
+  @ParameterizedTest
+  @MethodSource("levelSrc")
+  void level(String name, Severity expectedLevel, boolean expectedEnabled) {
+    Severity level = ExtensionLoggerFactory.level(name);
+
+    Assertions.assertEquals(expectedLevel, level);
+    Assertions.assertEquals(expectedEnabled, new AsciidoctorLogger(level).isEnabled());
+  }
+
+  @Test
+  void asciidoctorLoggerLogsWarningsAtTheDefaultLevel() {
+    BaseProcessor processor = Mockito.mock(BaseProcessor.class);
+    AsciidoctorLogger logger = new AsciidoctorLogger(Severity.WARN);
+
+    logger.log(processor, "debug message");
+    logger.warn(processor, "warning");
+
+    Mockito.verify(processor).log(ArgumentMatchers.<LogRecord>argThat(
+        record -> record.getSeverity() == Severity.WARN && record.getMessage().equals("warning")));
+    Mockito.verifyNoMoreInteractions(processor);
+  }
+
+  @Test
+  void disabledLoggerDoesNotBuildMessages() {
+    AtomicInteger builtMessages = new AtomicInteger();
+
+    new NoopLogger().log(null, () -> "message " + builtMessages.incrementAndGet());
+    new AsciidoctorLogger(Severity.WARN)
+        .log(null, () -> "message " + builtMessages.incrementAndGet());
+
+    Assertions.assertEquals(0, builtMessages.get());
+  }
+}